@@ -0,0 +1,206 @@
+package com.demo.ingredisearch.adapters;
+
+import android.app.Instrumentation;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.ViewGroup;
+import android.view.Window;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.ui.MainActivity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Frame times of the first fling through a freshly shown recipe list, with rows inflated on
+ * demand into a private pool versus taken from the pre-inflated rows and the shared pool of
+ * {@link RecyclerPools}. The numbers only mean something on a real device; they are logged under
+ * {@link #TAG} rather than asserted.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RecipeListFrameMetricsTest {
+    private static final String TAG = "RecipeListFrames";
+    private static final int RECIPES = 500;
+    private static final int FLING_PX = 20_000;
+    private static final long FRAME_BUDGET_NS = 16_666_667L;
+
+    private final Instrumentation mInstrumentation = InstrumentationRegistry.getInstrumentation();
+    private HandlerThread mMetricsThread;
+
+    @Before
+    public void setUp() {
+        mMetricsThread = new HandlerThread(TAG);
+        mMetricsThread.start();
+        // Class loading and JIT of the list code would otherwise all land on the first run
+        firstFling(false);
+    }
+
+    @After
+    public void tearDown() {
+        mMetricsThread.quitSafely();
+        mInstrumentation.runOnMainSync(RecyclerPools::clear);
+    }
+
+    @Test
+    public void firstFling_preInflatedRowsAndSharedPool_vsInflatedOnDemand() {
+        // Act (When)
+        FrameStats onDemand = firstFling(false);
+        FrameStats preInflated = firstFling(true);
+
+        // Assert (Then)
+        Log.i(TAG, "inflated on demand: " + onDemand);
+        Log.i(TAG, "pre-inflated, shared pool: " + preInflated);
+        assertThat(onDemand.frames, is(greaterThan(0)));
+        assertThat(preInflated.frames, is(greaterThan(0)));
+        // The first screen came from the rows inflated ahead
+        assertThat(preInflated.rowsInflatedOnMainThread, is(lessThan(onDemand.rowsInflatedOnMainThread)));
+    }
+
+    private FrameStats firstFling(boolean pooled) {
+        List<Long> durations = new ArrayList<>();
+        AtomicInteger inflatedOnMainThread = new AtomicInteger();
+        AtomicReference<RecyclerView> listRef = new AtomicReference<>();
+
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            scenario.onActivity(activity -> {
+                RecyclerPools.clear();
+                if (pooled) RecyclerPools.preInflateRecipeRows(activity);
+            });
+            if (pooled) awaitPreInflated();
+
+            scenario.onActivity(activity -> {
+                RecyclerView list = new RecyclerView(activity);
+                if (pooled) {
+                    RecyclerPools.setUpRecipeList(list);
+                } else {
+                    list.setLayoutManager(new LinearLayoutManager(activity));
+                }
+                list.setAdapter(new RecipeAdapter(new NoInteraction()) {
+                    @Override
+                    public RecipeViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                        if (RecyclerPools.getPreInflatedCount() == 0) inflatedOnMainThread.incrementAndGet();
+                        return super.onCreateViewHolder(parent, viewType);
+                    }
+                });
+                ((RecipeAdapter) list.getAdapter()).setRecipes(recipes());
+                activity.setContentView(list);
+                listRef.set(list);
+            });
+            mInstrumentation.waitForIdleSync();
+
+            Window.OnFrameMetricsAvailableListener listener = (window, metrics, dropped) -> {
+                synchronized (durations) {
+                    durations.add(metrics.getMetric(FrameMetrics.TOTAL_DURATION));
+                }
+            };
+            scenario.onActivity(activity -> {
+                activity.getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(mMetricsThread.getLooper()));
+                listRef.get().smoothScrollBy(0, FLING_PX);
+            });
+            awaitScrollIdle(listRef.get());
+            scenario.onActivity(activity -> activity.getWindow().removeOnFrameMetricsAvailableListener(listener));
+        }
+
+        synchronized (durations) {
+            return new FrameStats(durations, inflatedOnMainThread.get());
+        }
+    }
+
+    private void awaitPreInflated() {
+        long deadline = System.currentTimeMillis() + 5_000;
+        int[] count = new int[1];
+        do {
+            mInstrumentation.runOnMainSync(() -> count[0] = RecyclerPools.getPreInflatedCount());
+            if (count[0] >= RecyclerPools.PRE_INFLATED_RECIPE_ROWS) return;
+            mInstrumentation.waitForIdleSync();
+        } while (System.currentTimeMillis() < deadline);
+    }
+
+    private void awaitScrollIdle(RecyclerView list) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        boolean[] idle = new boolean[1];
+        do {
+            mInstrumentation.waitForIdleSync();
+            mInstrumentation.runOnMainSync(() -> idle[0] = list.getScrollState() == RecyclerView.SCROLL_STATE_IDLE);
+        } while (!idle[0] && System.currentTimeMillis() < deadline);
+    }
+
+    private static List<Recipe> recipes() {
+        List<Recipe> recipes = new ArrayList<>(RECIPES);
+        for (int i = 0; i < RECIPES; i++) {
+            recipes.add(new Recipe("r" + i, "Recipe " + i, null, null, new String[0], i, i % 3 == 0));
+        }
+        return recipes;
+    }
+
+    private static class NoInteraction implements RecipeAdapter.Interaction {
+        @Override
+        public void onClickItem(Recipe item) {
+        }
+
+        @Override
+        public void onAddFavorite(Recipe item) {
+        }
+
+        @Override
+        public void onRemoveFavorite(Recipe item) {
+        }
+    }
+
+    private static final class FrameStats {
+        final int frames;
+        final int janky;
+        final double p50Ms;
+        final double p90Ms;
+        final double maxMs;
+        final int rowsInflatedOnMainThread;
+
+        FrameStats(List<Long> durations, int rowsInflatedOnMainThread) {
+            long[] sorted = new long[durations.size()];
+            for (int i = 0; i < sorted.length; i++) sorted[i] = durations.get(i);
+            Arrays.sort(sorted);
+            int janky = 0;
+            for (long duration : sorted) if (duration > FRAME_BUDGET_NS) janky++;
+
+            this.frames = sorted.length;
+            this.janky = janky;
+            this.p50Ms = percentileMs(sorted, 0.5);
+            this.p90Ms = percentileMs(sorted, 0.9);
+            this.maxMs = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6;
+            this.rowsInflatedOnMainThread = rowsInflatedOnMainThread;
+        }
+
+        private static double percentileMs(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0;
+            return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * percentile))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("frames=%d, janky=%d, p50=%.1fms, p90=%.1fms, max=%.1fms, rowsInflatedOnMainThread=%d",
+                    frames, janky, p50Ms, p90Ms, maxMs, rowsInflatedOnMainThread);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.ingredisearch;
+
+import com.demo.ingredisearch.repository.RecipeRepository;
+import com.demo.ingredisearch.repository.sources.remote.RecipeApiClient;
+import com.demo.ingredisearch.util.AppExecutors;
+
+/**
+ * Objects shared by every screen of the app. One repository serves them all, so the details of
+ * recipes prefetched after a search are there when one of them is opened.
+ */
+public class Injection {
+    // The best rated recipes of a search come first, above the server's order for the rest
+    private static final int TOP_RANKED = 5;
+
+    private final AppExecutors mAppExecutors = new AppExecutors();
+    private RecipeRepository mRecipeRepository;
+
+    /**
+     * Created on first use, after MainActivity has installed the caches and index it picks up.
+     */
+    public synchronized RecipeRepository getRecipeRepository() {
+        if (mRecipeRepository == null) {
+            mRecipeRepository = new RecipeRepository(new RecipeApiClient(mAppExecutors), mAppExecutors);
+            mRecipeRepository.setTopRanked(TOP_RANKED, null);
+        }
+        return mRecipeRepository;
+    }
+}
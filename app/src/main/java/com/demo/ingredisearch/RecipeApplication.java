@@ -0,0 +1,11 @@
+package com.demo.ingredisearch;
+
+import android.app.Application;
+
+public class RecipeApplication extends Application {
+    private final Injection mInjection = new Injection();
+
+    public Injection getInjection() {
+        return mInjection;
+    }
+}
@@ -0,0 +1,56 @@
+package com.demo.ingredisearch.adapters;
+
+import android.content.Context;
+import android.widget.ArrayAdapter;
+import android.widget.Filter;
+
+import androidx.annotation.NonNull;
+
+import com.demo.ingredisearch.repository.index.IngredientIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drop-down of ingredient completions for an {@link android.widget.AutoCompleteTextView}.
+ * <p>
+ * {@link Filter} does its filtering on a background thread, so the trie lookup behind
+ * {@link IngredientIndex#suggest} never runs on the main thread.
+ */
+public class IngredientSuggestionAdapter extends ArrayAdapter<String> {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final IngredientIndex mIndex;
+    private final Filter mFilter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            List<String> suggestions = constraint == null
+                    ? new ArrayList<>() : mIndex.suggest(constraint.toString(), MAX_SUGGESTIONS);
+            FilterResults results = new FilterResults();
+            results.values = suggestions;
+            results.count = suggestions.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            clear();
+            if (results.values != null) addAll((List<String>) results.values);
+            notifyDataSetChanged();
+        }
+    };
+
+    public IngredientSuggestionAdapter(@NonNull Context context, @NonNull IngredientIndex index) {
+        super(context, android.R.layout.simple_dropdown_item_1line, new ArrayList<>());
+        mIndex = index;
+        setNotifyOnChange(false);
+    }
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return mFilter;
+    }
+}
@@ -1,22 +1,40 @@
 package com.demo.ingredisearch.adapters;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.demo.ingredisearch.R;
 import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
+/**
+ * New lists are diffed against the one shown on a background thread, and only the rows that were
+ * added, removed, moved or changed are updated, so the other rows keep their views, images and
+ * animations.
+ * <p>
+ * Two {@link RecipeStore}s are diffed on their columns, without creating any {@link Recipe}; any
+ * other list is read once per update, as a diff compares each row many times.
+ */
 public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeViewHolder> {
 
     private static final String TAG = "RecipeApp";
@@ -27,19 +45,82 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
         void onRemoveFavorite(Recipe item);
     }
 
-    private List<Recipe> mRecipes;
+    /**
+     * What changed in a row that can be updated without binding it again.
+     */
+    enum Payload {
+        /** Only the favorite flag: swap the icon, keep the image and title */
+        FAVORITE
+    }
+
+    // Rows are the same recipe if their IDs are; their contents only differ if what a row shows does
+    static final DiffUtil.ItemCallback<Recipe> DIFF_CALLBACK = new DiffUtil.ItemCallback<Recipe>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Recipe oldItem, @NonNull Recipe newItem) {
+            return oldItem.isSameAs(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Recipe oldItem, @NonNull Recipe newItem) {
+            return oldItem.isFavorite() == newItem.isFavorite()
+                    && Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl());
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Recipe oldItem, @NonNull Recipe newItem) {
+            boolean sameLook = Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl());
+            return sameLook ? Payload.FAVORITE : null;
+        }
+    };
+
+    private final Executor mDiffExecutor;
+    private final Handler mMainThread = new Handler(Looper.getMainLooper());
+    // Main thread only
+    private List<Recipe> mRecipes = Collections.emptyList();
+    private int mGeneration;
     private Interaction interaction;
 
     public RecipeAdapter(Interaction interaction) {
+        this(interaction, null);
+    }
+
+    /**
+     * @param diffExecutor where lists are diffed; a shared background pool if null
+     */
+    @VisibleForTesting
+    RecipeAdapter(Interaction interaction, @Nullable Executor diffExecutor) {
         this.interaction = interaction;
-        mRecipes = new ArrayList<>();
+        // The pool AsyncListDiffer would use
+        mDiffExecutor = diffExecutor != null ? diffExecutor
+                : new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build().getBackgroundThreadExecutor();
+        setHasStableIds(true);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the recipe ID, so a row keeps its ID across lists. Two IDs of one
+     * result set colliding is vanishingly unlikely at these sizes.
+     */
+    static long stableIdOf(@NonNull String recipeId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < recipeId.length(); i++) {
+            hash ^= recipeId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // NO_ID means "no stable ID" to RecyclerView
+        return hash == RecyclerView.NO_ID ? 0 : hash;
     }
 
     @NotNull
     @Override
     public RecipeViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        View itemView = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.listitem_recipe, parent, false);
+        View itemView = RecyclerPools.takePreInflatedRecipeRow(parent.getContext());
+        if (itemView == null) {
+            itemView = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.listitem_recipe, parent, false);
+        }
         return new RecipeViewHolder(itemView);
     }
 
@@ -48,26 +129,174 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
         holder.bind(mRecipes.get(position), interaction);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !onlyFavoriteChanged(payloads)) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindFavorite(mRecipes.get(position), interaction);
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String recipeId = mRecipes instanceof RecipeStore
+                ? ((RecipeStore) mRecipes).getRecipeId(position) : mRecipes.get(position).getRecipeId();
+        return stableIdOf(recipeId);
+    }
+
+    // Several changes to a row before it was rebound arrive together
+    private static boolean onlyFavoriteChanged(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != Payload.FAVORITE) return false;
+        }
+        return true;
+    }
+
     @Override
     public int getItemCount() {
         return mRecipes.size();
     }
 
+    /**
+     * Shows {@code recipes} once they have been diffed against the current list. Don't change the
+     * list afterwards; pass a new one instead.
+     * <p>
+     * Once shown, rows are read with {@link List#get(int)} as they are bound, so a
+     * {@link RecipeStore} only creates recipes for the rows shown.
+     */
     public void setRecipes(List<Recipe> recipes){
-        mRecipes = recipes;
-        notifyDataSetChanged();
+        if (recipes == mRecipes) return;
+        int generation = ++mGeneration;
+        List<Recipe> old = mRecipes;
+
+        // Nothing to diff against
+        if (old.isEmpty() || recipes.isEmpty()) {
+            mRecipes = recipes;
+            if (!old.isEmpty()) notifyItemRangeRemoved(0, old.size());
+            if (!recipes.isEmpty()) notifyItemRangeInserted(0, recipes.size());
+            return;
+        }
+
+        mDiffExecutor.execute(() -> {
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(diffCallback(old, recipes));
+            mMainThread.post(() -> {
+                // A newer list is on its way
+                if (generation != mGeneration) return;
+                mRecipes = recipes;
+                diff.dispatchUpdatesTo(this);
+            });
+        });
+    }
+
+    private static DiffUtil.Callback diffCallback(List<Recipe> oldList, List<Recipe> newList) {
+        if (oldList instanceof RecipeStore && newList instanceof RecipeStore) {
+            return new StoreDiff((RecipeStore) oldList, (RecipeStore) newList);
+        }
+        return new ItemDiff(oldList.toArray(new Recipe[0]), newList.toArray(new Recipe[0]));
+    }
+
+    // Compares the rows of two stores column by column
+    private static final class StoreDiff extends DiffUtil.Callback {
+        private final RecipeStore mOld;
+        private final RecipeStore mNew;
+
+        StoreDiff(RecipeStore oldList, RecipeStore newList) {
+            mOld = oldList;
+            mNew = newList;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOld.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNew.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return mOld.hasSameId(oldPosition, mNew, newPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return mOld.isFavorite(oldPosition) == mNew.isFavorite(newPosition)
+                    && mOld.hasSameTitleAndImage(oldPosition, mNew, newPosition);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldPosition, int newPosition) {
+            return mOld.hasSameTitleAndImage(oldPosition, mNew, newPosition) ? Payload.FAVORITE : null;
+        }
+    }
+
+    // Compares rows read once from any other list through DIFF_CALLBACK
+    private static final class ItemDiff extends DiffUtil.Callback {
+        private final Recipe[] mOld;
+        private final Recipe[] mNew;
+
+        ItemDiff(Recipe[] oldRows, Recipe[] newRows) {
+            mOld = oldRows;
+            mNew = newRows;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOld.length;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNew.length;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return DIFF_CALLBACK.areItemsTheSame(mOld[oldPosition], mNew[newPosition]);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return DIFF_CALLBACK.areContentsTheSame(mOld[oldPosition], mNew[newPosition]);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldPosition, int newPosition) {
+            return DIFF_CALLBACK.getChangePayload(mOld[oldPosition], mNew[newPosition]);
+        }
     }
 
     static class RecipeViewHolder extends RecyclerView.ViewHolder {
         ImageView imageView;
         TextView title;
         ImageView favButton;
+        private Recipe mItem;
+        private Interaction mInteraction;
 
         RecipeViewHolder(View itemView) {
             super(itemView);
             imageView = itemView.findViewById(R.id.imageView);
             title = itemView.findViewById(R.id.title);
             favButton = itemView.findViewById(R.id.favButton);
+
+            // Set once; they act on whichever recipe is bound when clicked. Holders are shared
+            // between lists (see RecyclerPools), so the interaction comes with the recipe.
+            itemView.setOnClickListener(view ->
+                    mInteraction.onClickItem(mItem)
+            );
+
+            favButton.setOnClickListener(view -> {
+                if (mItem.isFavorite()) {
+                    mInteraction.onRemoveFavorite(mItem);
+                } else {
+                    mInteraction.onAddFavorite(mItem);
+                }
+            });
         }
 
         private void bind(Recipe item, Interaction interaction) {
@@ -76,7 +305,12 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
                     .placeholder(R.drawable.ic_search_24dp)
                     .into(imageView);
             title.setText(item.getTitle());
+            bindFavorite(item, interaction);
+        }
 
+        private void bindFavorite(Recipe item, Interaction interaction) {
+            mItem = item;
+            mInteraction = interaction;
             if (item.isFavorite()) {
                 favButton.setImageResource(R.drawable.ic_favorite_24dp);
                 favButton.setTag(R.drawable.ic_favorite_24dp);
@@ -84,18 +318,6 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
                 favButton.setImageResource(R.drawable.ic_favorite_border_24dp);
                 favButton.setTag(R.drawable.ic_favorite_border_24dp);
             }
-
-            itemView.setOnClickListener(view ->
-                    interaction.onClickItem(item)
-            );
-
-            favButton.setOnClickListener(view -> {
-                if (item.isFavorite()) {
-                    interaction.onRemoveFavorite(item);
-                } else {
-                    interaction.onAddFavorite(item);
-                }
-            });
         }
     }
 }
@@ -0,0 +1,154 @@
+package com.demo.ingredisearch.adapters;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.demo.ingredisearch.R;
+
+import java.util.ArrayDeque;
+
+/**
+ * Recipe rows shared by every recipe list of the activity: one {@link RecyclerView.RecycledViewPool}
+ * that a list hands its rows to when it goes away and the next list takes them from, and rows
+ * inflated in the background ahead of the first results, so opening a list inflates little or
+ * nothing on the main thread.
+ * <p>
+ * Rows hold on to the activity they were inflated for, so everything is dropped when that
+ * activity is destroyed or another one asks. Main thread only.
+ */
+public final class RecyclerPools {
+
+    // RecipeAdapter has a single view type
+    static final int RECIPE_VIEW_TYPE = 0;
+    // A phone screen shows about ten rows (82dp each); keep a screenful plus the item cache
+    @VisibleForTesting
+    static final int MAX_RECYCLED_RECIPE_ROWS = 16;
+    @VisibleForTesting
+    static final int PRE_INFLATED_RECIPE_ROWS = 12;
+    // Rows just scrolled off are rebound without going through the pool; 2 by default
+    private static final int ITEM_VIEW_CACHE_SIZE = 4;
+
+    private static Context sActivity;
+    private static RecyclerView.RecycledViewPool sRecipePool;
+    private static final ArrayDeque<View> sPreInflated = new ArrayDeque<>();
+    private static AsyncLayoutInflater sInflater;
+    private static int sInflating;
+
+    private RecyclerPools() {
+    }
+
+    /**
+     * Sets up a list showing a {@link RecipeAdapter}: layout, shared pool and prefetching.
+     */
+    @MainThread
+    public static void setUpRecipeList(@NonNull RecyclerView list) {
+        LinearLayoutManager layoutManager = new LinearLayoutManager(list.getContext());
+        // Rows go back to the shared pool when the list is detached, for the next list to reuse
+        layoutManager.setRecycleChildrenOnDetach(true);
+        // Rows of the next scroll frames are inflated and bound while the main thread is idle
+        layoutManager.setItemPrefetchEnabled(true);
+        list.setLayoutManager(layoutManager);
+        // Changes to the rows never change the size of the list itself
+        list.setHasFixedSize(true);
+        list.setItemViewCacheSize(ITEM_VIEW_CACHE_SIZE);
+        list.setRecycledViewPool(recipePool(list.getContext()));
+        preInflateRecipeRows(list.getContext());
+    }
+
+    /**
+     * Starts inflating recipe rows in the background, e.g. while a search is being typed, unless
+     * enough are pooled or on their way.
+     */
+    @MainThread
+    public static void preInflateRecipeRows(@NonNull Context context) {
+        RecyclerView.RecycledViewPool pool = recipePool(context);
+        int available = sPreInflated.size() + sInflating + pool.getRecycledViewCount(RECIPE_VIEW_TYPE);
+        if (available >= PRE_INFLATED_RECIPE_ROWS) return;
+
+        if (sInflater == null) sInflater = new AsyncLayoutInflater(sActivity);
+        // Its queue blocks the caller when full, so rows are requested one after the other
+        if (sInflating == 0) {
+            sInflating = PRE_INFLATED_RECIPE_ROWS - available;
+            inflateNext(sActivity);
+        }
+    }
+
+    /**
+     * @return a row inflated ahead for {@code context}, or null if none is left
+     */
+    @MainThread
+    @Nullable
+    static View takePreInflatedRecipeRow(@NonNull Context context) {
+        return activityOf(context) == sActivity ? sPreInflated.poll() : null;
+    }
+
+    @MainThread
+    @NonNull
+    static RecyclerView.RecycledViewPool recipePool(@NonNull Context context) {
+        Context activity = activityOf(context);
+        if (activity != sActivity) {
+            clear();
+            sActivity = activity;
+            sRecipePool = new RecyclerView.RecycledViewPool();
+            sRecipePool.setMaxRecycledViews(RECIPE_VIEW_TYPE, MAX_RECYCLED_RECIPE_ROWS);
+            if (activity instanceof LifecycleOwner) {
+                ((LifecycleOwner) activity).getLifecycle().addObserver((LifecycleEventObserver) (source, event) -> {
+                    if (event == Lifecycle.Event.ON_DESTROY && sActivity == source) clear();
+                });
+            }
+        }
+        return sRecipePool;
+    }
+
+    @VisibleForTesting
+    @MainThread
+    static void clear() {
+        if (sRecipePool != null) sRecipePool.clear();
+        sRecipePool = null;
+        sPreInflated.clear();
+        sInflater = null;
+        sInflating = 0;
+        sActivity = null;
+    }
+
+    @VisibleForTesting
+    static int getPreInflatedCount() {
+        return sPreInflated.size();
+    }
+
+    private static void inflateNext(Context activity) {
+        // No parent: the list is not there yet, so the row gets its list's layout params by hand
+        sInflater.inflate(R.layout.listitem_recipe, null, (view, resid, parent) -> {
+            // Dropped in the meantime
+            if (sActivity != activity) return;
+
+            view.setLayoutParams(new RecyclerView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            sPreInflated.add(view);
+            if (--sInflating > 0) inflateNext(activity);
+        });
+    }
+
+    private static Context activityOf(Context context) {
+        while (context instanceof ContextWrapper && !(context instanceof Activity)) {
+            Context base = ((ContextWrapper) context).getBaseContext();
+            if (base == null) break;
+            context = base;
+        }
+        return context;
+    }
+}
@@ -11,11 +11,11 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
-import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.demo.ingredisearch.R;
 import com.demo.ingredisearch.adapters.RecipeAdapter;
+import com.demo.ingredisearch.adapters.RecyclerPools;
 import com.demo.ingredisearch.models.Recipe;
 import com.demo.ingredisearch.util.ViewHelper;
 
@@ -57,7 +57,7 @@ public class FavoritesFragment extends Fragment {
     }
 
     private void setupRecyclerView() {
-        mRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        RecyclerPools.setUpRecipeList(mRecyclerView);
 
         mAdapter = new RecipeAdapter(new RecipeAdapter.Interaction() {
             @Override
@@ -5,7 +5,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.EditText;
+import android.widget.MultiAutoCompleteTextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -13,11 +13,14 @@ import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
 import com.demo.ingredisearch.R;
+import com.demo.ingredisearch.adapters.IngredientSuggestionAdapter;
+import com.demo.ingredisearch.adapters.RecyclerPools;
+import com.demo.ingredisearch.repository.index.IngredientIndex;
 import com.demo.ingredisearch.util.ViewHelper;
 
 public class SearchFragment extends Fragment {
     private Button searchActionButton;
-    private EditText ingredients;
+    private MultiAutoCompleteTextView ingredients;
 
     @Nullable
     @Override
@@ -26,6 +29,7 @@ public class SearchFragment extends Fragment {
 
         View root = inflater.inflate(R.layout.fragment_search, container, false);
         getViews(root);
+        setupSuggestions();
 
         searchActionButton.setOnClickListener(view -> {
             String query = ingredients.getText().toString();
@@ -34,6 +38,8 @@ public class SearchFragment extends Fragment {
         });
 
         ViewHelper.showSubtitle(this, null);
+        // The results list will need its rows; inflate them while the query is typed
+        RecyclerPools.preInflateRecipeRows(requireContext());
         return root;
     }
 
@@ -42,6 +48,17 @@ public class SearchFragment extends Fragment {
         searchActionButton = root.findViewById(R.id.searchActionButton);
     }
 
+    /**
+     * Completes the ingredient being typed, i.e. the text after the last comma.
+     */
+    private void setupSuggestions() {
+        IngredientIndex index = IngredientIndex.getInstalled();
+        if (index == null) return;
+
+        ingredients.setAdapter(new IngredientSuggestionAdapter(requireContext(), index));
+        ingredients.setTokenizer(new MultiAutoCompleteTextView.CommaTokenizer());
+    }
+
     private void navigateToSearchResults(String query) {
         Navigation.findNavController(requireView()).navigate(
                 SearchFragmentDirections.actionSearchFragmentToSearchResultsFragment(query));
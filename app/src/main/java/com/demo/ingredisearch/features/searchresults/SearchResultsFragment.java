@@ -7,28 +7,66 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
-import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.demo.ingredisearch.R;
+import com.demo.ingredisearch.RecipeApplication;
 import com.demo.ingredisearch.adapters.RecipeAdapter;
+import com.demo.ingredisearch.adapters.RecyclerPools;
 import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.filter.RecipeFilter;
+import com.demo.ingredisearch.repository.filter.RecipeFilterEngine;
+import com.demo.ingredisearch.util.NearEndScrollListener;
+import com.demo.ingredisearch.util.Resource;
 import com.demo.ingredisearch.util.ViewHelper;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class SearchResultsFragment extends Fragment {
+    // Start fetching the next page when this many rows are left below the last visible one
+    private static final int PREFETCH_DISTANCE = 10;
+    // Limit of the "few ingredients" filter
+    private static final int FEW_INGREDIENTS = 5;
+
     private RecyclerView mRecyclerView;
     private RecipeAdapter mAdapter;
+    private NearEndScrollListener mNearEndListener;
 
     private TextView mRetry;
+    private TextView mDidYouMean;
     private ViewHelper mViewHelper;
     private String mQuery;
+    private SearchResultsViewModel mViewModel;
+
+    // Sorting and filtering run here, never on the main thread
+    private ExecutorService mFilterExecutor;
+    private RecipeFilterEngine mFilterEngine;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mFilterExecutor = Executors.newSingleThreadExecutor();
+        mFilterEngine = new RecipeFilterEngine(mFilterExecutor);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mFilterExecutor.shutdownNow();
+    }
 
     @Nullable
     @Override
@@ -55,6 +93,7 @@ public class SearchResultsFragment extends Fragment {
         LinearLayout mErrorContainer = root.findViewById(R.id.errorContainer);
         LinearLayout mNoResultsContainer = root.findViewById(R.id.noresultsContainer);
         mRetry = root.findViewById(R.id.retry);
+        mDidYouMean = root.findViewById(R.id.didYouMean);
 
         mViewHelper = new ViewHelper(mRecyclerView, mLoadingContainer,
                 mErrorContainer, mNoResultsContainer);
@@ -64,25 +103,89 @@ public class SearchResultsFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
+        createViewModel();
+        mViewModel.getRecipes().observe(getViewLifecycleOwner(), response -> {
+            if (response != null)
+                handleResponse(response);
+        });
+        mViewModel.getCorrectedQuery().observe(getViewLifecycleOwner(), this::showCorrection);
+        mFilterEngine.getResults().observe(getViewLifecycleOwner(), this::showResults);
         searchRecipes(mQuery);
     }
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
-        if (item.getItemId() == R.id.favoritesFragment) {
+        int id = item.getItemId();
+        RecipeFilter filter = mFilterEngine.getFilter();
+        if (id == R.id.favoritesFragment) {
             Navigation.findNavController(requireView()).navigate(R.id.action_searchResultsFragment_to_favoritesFragment);
-            return true;
+        } else if (id == R.id.sortRelevance) {
+            mFilterEngine.setSort(RecipeFilterEngine.Sort.RELEVANCE);
+        } else if (id == R.id.sortRank) {
+            mFilterEngine.setSort(RecipeFilterEngine.Sort.RANK);
+        } else if (id == R.id.sortTitle) {
+            mFilterEngine.setSort(RecipeFilterEngine.Sort.TITLE);
+        } else if (id == R.id.filterHasImage) {
+            mFilterEngine.setFilter(filter.withImageRequired(!item.isChecked()));
+        } else if (id == R.id.filterFewIngredients) {
+            mFilterEngine.setFilter(filter.withMaxIngredients(
+                    item.isChecked() ? RecipeFilter.ANY_INGREDIENT_COUNT : FEW_INGREDIENTS));
+        } else if (id == R.id.filterExcludeIngredient) {
+            askIngredientToExclude();
+        } else if (id == R.id.filterClear) {
+            mFilterEngine.setFilter(RecipeFilter.NONE);
+        } else {
+            return false;
         }
-        return false;
+        requireActivity().invalidateOptionsMenu();
+        return true;
     }
 
     @Override
     public void onCreateOptionsMenu(@NonNull Menu menu, MenuInflater inflater) {
         inflater.inflate(R.menu.filter_recipes, menu);
+        menu.findItem(R.id.filterFewIngredients).setTitle(getString(R.string.filter_few_ingredients, FEW_INGREDIENTS));
+    }
+
+    @Override
+    public void onPrepareOptionsMenu(@NonNull Menu menu) {
+        RecipeFilter filter = mFilterEngine.getFilter();
+        switch (mFilterEngine.getSort()) {
+            case RANK:
+                menu.findItem(R.id.sortRank).setChecked(true);
+                break;
+            case TITLE:
+                menu.findItem(R.id.sortTitle).setChecked(true);
+                break;
+            default:
+                menu.findItem(R.id.sortRelevance).setChecked(true);
+        }
+        menu.findItem(R.id.filterHasImage).setChecked(filter.isImageRequired());
+        menu.findItem(R.id.filterFewIngredients).setChecked(
+                filter.getMaxIngredients() != RecipeFilter.ANY_INGREDIENT_COUNT);
+        menu.findItem(R.id.filterClear).setEnabled(!filter.isEmpty());
+    }
+
+    private void askIngredientToExclude() {
+        EditText input = new EditText(requireContext());
+        input.setHint(R.string.filter_exclude_hint);
+        input.setSingleLine();
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.filter_exclude_ingredient)
+                .setView(input)
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    String ingredient = input.getText().toString();
+                    if (!ingredient.trim().isEmpty()) {
+                        mFilterEngine.setFilter(mFilterEngine.getFilter().withoutIngredient(ingredient));
+                        requireActivity().invalidateOptionsMenu();
+                    }
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
     }
 
     private void setupRecyclerView() {
-        mRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        RecyclerPools.setUpRecipeList(mRecyclerView);
         mAdapter = new RecipeAdapter(new RecipeAdapter.Interaction() {
             @Override
             public void onRemoveFavorite(@NonNull Recipe recipe) {
@@ -101,6 +204,8 @@ public class SearchResultsFragment extends Fragment {
             }
         });
         mRecyclerView.setAdapter(mAdapter);
+        mNearEndListener = new NearEndScrollListener(PREFETCH_DISTANCE, this::loadNextPage);
+        mRecyclerView.addOnScrollListener(mNearEndListener);
     }
 
     private void navigateToRecipeDetails(@NonNull Recipe recipe) {
@@ -108,8 +213,65 @@ public class SearchResultsFragment extends Fragment {
                 SearchResultsFragmentDirections.actionSearchResultsFragmentToRecipeDetailsFragment(recipe.getRecipeId()));
     }
 
+    private void createViewModel() {
+        RecipeApplication app = (RecipeApplication) requireActivity().getApplication();
+        mViewModel = new ViewModelProvider(this,
+                new SearchResultsViewModelFactory(app.getInjection().getRecipeRepository()))
+                .get(SearchResultsViewModel.class);
+    }
+
     public void searchRecipes(String query) {
-        // TODO - temporary
-        mViewHelper.showNoResults();
+        mViewModel.searchRecipes(query);
+    }
+
+    private void handleResponse(Resource<List<Recipe>> response) {
+        switch (response.status) {
+            case LOADING:
+                mViewHelper.showLoading();
+                break;
+            case ERROR:
+                mViewHelper.showError();
+                break;
+            default:
+                // Shown once sorted and filtered, see showResults()
+                mFilterEngine.setRecipes(response.data != null ? response.data : Collections.emptyList());
+        }
+    }
+
+    /**
+     * What passes the current sort and filters, worked out off the main thread.
+     */
+    private void showResults(List<Recipe> recipes) {
+        if (recipes.isEmpty()) {
+            mViewHelper.showNoResults();
+        } else {
+            mViewHelper.hideOthers();
+            mAdapter.setRecipes(recipes);
+            // A page that fits the screen, or a filter that leaves only a few rows, can't be
+            // scrolled to its end; check once it has been laid out
+            mRecyclerView.post(() -> mNearEndListener.check(mRecyclerView));
+        }
+    }
+
+    /**
+     * Offered under "no results"; tapping it searches for the corrected query instead.
+     */
+    private void showCorrection(@Nullable String corrected) {
+        if (corrected == null) {
+            mDidYouMean.setVisibility(View.GONE);
+            mDidYouMean.setOnClickListener(null);
+        } else {
+            mDidYouMean.setText(getString(R.string.did_you_mean, corrected));
+            mDidYouMean.setVisibility(View.VISIBLE);
+            mDidYouMean.setOnClickListener(view -> {
+                mQuery = corrected;
+                ViewHelper.showSubtitle(this, mQuery);
+                searchRecipes(mQuery);
+            });
+        }
+    }
+
+    private void loadNextPage() {
+        mViewModel.loadNextPage();
     }
 }
@@ -0,0 +1,43 @@
+package com.demo.ingredisearch.features.searchresults;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.RecipeRepository;
+import com.demo.ingredisearch.util.Resource;
+
+import java.util.List;
+
+public class SearchResultsViewModel extends ViewModel {
+    private final RecipeRepository mRecipeRepository;
+
+    public SearchResultsViewModel(@NonNull RecipeRepository recipeRepository) {
+        this.mRecipeRepository = recipeRepository;
+    }
+
+    public LiveData<Resource<List<Recipe>>> getRecipes() {
+        return mRecipeRepository.getRecipes();
+    }
+
+    /**
+     * A spelling of the last query that might find something, or null.
+     */
+    public LiveData<String> getCorrectedQuery() {
+        return mRecipeRepository.getCorrectedQuery();
+    }
+
+    public void searchRecipes(String query) {
+        mRecipeRepository.searchRecipes(query);
+    }
+
+    /**
+     * Called as the list nears its end; the repository ignores it while a page is loading or
+     * once there are no more.
+     */
+    public void loadNextPage() {
+        mRecipeRepository.loadNextPage();
+    }
+
+}
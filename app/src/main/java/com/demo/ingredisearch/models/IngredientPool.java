@@ -0,0 +1,75 @@
+package com.demo.ingredisearch.models;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide pool of ingredient lines, so that every recipe listing "salt" or "2 eggs" shares
+ * one string instead of holding its own copy.
+ * <p>
+ * Paths that create recipes from serialized data (JSON, parcels, the ingredient index file) pass
+ * each ingredient through {@link #intern(String)}. The pool stops growing at
+ * {@value #MAX_ENTRIES} distinct lines; lines seen after that are returned as they are.
+ */
+public final class IngredientPool {
+
+    private static final int MAX_ENTRIES = 20_000;
+
+    private static final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong();
+
+    private IngredientPool() {
+    }
+
+    /**
+     * @return the pooled string equal to {@code ingredient}, or {@code ingredient} itself
+     */
+    @Nullable
+    public static String intern(@Nullable String ingredient) {
+        if (ingredient == null) return null;
+
+        String pooled = pool.get(ingredient);
+        if (pooled != null) {
+            hits.incrementAndGet();
+            return pooled;
+        }
+        if (pool.size() >= MAX_ENTRIES) return ingredient;
+        pooled = pool.putIfAbsent(ingredient, ingredient);
+        return pooled != null ? pooled : ingredient;
+    }
+
+    /**
+     * Interns every element in place.
+     *
+     * @return {@code ingredients}
+     */
+    @Nullable
+    public static String[] internAll(@Nullable String[] ingredients) {
+        if (ingredients != null) {
+            for (int i = 0; i < ingredients.length; i++) {
+                ingredients[i] = intern(ingredients[i]);
+            }
+        }
+        return ingredients;
+    }
+
+    /**
+     * @return whether {@code ingredient} is the pooled instance, i.e. shared rather than owned
+     */
+    public static boolean isPooled(@Nullable String ingredient) {
+        return ingredient != null && pool.get(ingredient) == ingredient;
+    }
+
+    public static int size() {
+        return pool.size();
+    }
+
+    /**
+     * @return how many lookups returned an already pooled string
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+}
@@ -31,6 +31,9 @@ public class Recipe implements Parcelable {
     public Recipe() {
     }
 
+    /**
+     * Copies the ingredient array, but shares the strings in it.
+     */
     public Recipe(final Recipe other) {
         this.recipe_id = other.recipe_id;
         this.title = other.title;
@@ -47,7 +50,7 @@ public class Recipe implements Parcelable {
         title = Objects.requireNonNull(in.readString());
         image_url = in.readString();
         source_url = in.readString();
-        ingredients = in.createStringArray();
+        ingredients = IngredientPool.internAll(in.createStringArray());
         social_rank = in.readFloat();
         isFavorite = in.readByte() != 0;
     }
@@ -0,0 +1,437 @@
+package com.demo.ingredisearch.models;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of recipes stored column by column, for result sets too large to keep as one
+ * {@link Recipe} object (with its own strings and array) per row.
+ * <p>
+ * Ranks and flags are primitive arrays. IDs, titles and URLs are packed into one UTF-8 byte array;
+ * a URL keeps only what follows its last '/', the directory before it being a code into a
+ * dictionary, since most images and many sources share a handful of directories. Each row's
+ * ingredients are a range of codes into the same dictionary, which holds the distinct
+ * {@link IngredientPool#intern interned} lines. {@link #get(int)} builds a new {@link Recipe} for
+ * the row every time, so callers that only look at the rows they show never create the others.
+ * Changing such a view does not change the store.
+ * <p>
+ * Stores come from a {@link Builder}; taking a store and then adding more rows does not change the
+ * store already taken.
+ */
+public final class RecipeStore extends AbstractList<Recipe> implements RandomAccess {
+
+    public static final RecipeStore EMPTY = new Builder().build();
+
+    private static final int ID = 0;
+    private static final int TITLE = 1;
+    private static final int IMAGE_URL = 2;
+    private static final int SOURCE_URL = 3;
+    private static final int TEXT_FIELDS = 4;
+
+    private static final byte FAVORITE = 1;
+    private static final byte NO_IMAGE_URL = 1 << 1;
+    private static final byte NO_SOURCE_URL = 1 << 2;
+    private static final byte NO_INGREDIENTS = 1 << 3;
+
+    private final int mSize;
+    private final float[] mSocialRanks;
+    private final byte[] mFlags;
+    private final byte[] mText;
+    // Row r's text field f is mText[mTextOffsets[r * 4 + f], mTextOffsets[r * 4 + f + 1])
+    private final int[] mTextOffsets;
+    // Dictionary codes of the directories of row r's URLs, at r * 2 and r * 2 + 1
+    private final int[] mUrlPrefixes;
+    // Row r's ingredients are mDictionary[mIngredientCodes[mIngredientOffsets[r] ... mIngredientOffsets[r + 1])]
+    private final int[] mIngredientOffsets;
+    private final int[] mIngredientCodes;
+    private final String[] mDictionary;
+
+    private RecipeStore(Builder builder) {
+        mSize = builder.mSize;
+        mSocialRanks = builder.mSocialRanks;
+        mFlags = builder.mFlags;
+        mText = builder.mText;
+        mTextOffsets = builder.mTextOffsets;
+        mUrlPrefixes = builder.mUrlPrefixes;
+        mIngredientOffsets = builder.mIngredientOffsets;
+        mIngredientCodes = builder.mIngredientCodes;
+        mDictionary = builder.mDictionary;
+    }
+
+    /**
+     * @return a store holding {@code recipes} in order, duplicates included
+     */
+    @NonNull
+    public static RecipeStore of(@NonNull Collection<Recipe> recipes) {
+        if (recipes instanceof RecipeStore) return (RecipeStore) recipes;
+        Builder builder = new Builder(recipes.size());
+        for (Recipe recipe : recipes) builder.append(recipe);
+        builder.trimToSize();
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return a new {@link Recipe} holding row {@code index}
+     */
+    @Override
+    public Recipe get(int index) {
+        checkIndex(index);
+        byte flags = mFlags[index];
+        return new Recipe(
+                text(index, ID),
+                text(index, TITLE),
+                (flags & NO_IMAGE_URL) != 0 ? null : url(index, IMAGE_URL),
+                (flags & NO_SOURCE_URL) != 0 ? null : url(index, SOURCE_URL),
+                (flags & NO_INGREDIENTS) != 0 ? null : ingredients(index),
+                mSocialRanks[index],
+                (flags & FAVORITE) != 0);
+    }
+
+    @NonNull
+    public String getRecipeId(int index) {
+        checkIndex(index);
+        return text(index, ID);
+    }
+
+    @NonNull
+    public String getTitle(int index) {
+        checkIndex(index);
+        return text(index, TITLE);
+    }
+
+    public float getSocialRank(int index) {
+        checkIndex(index);
+        return mSocialRanks[index];
+    }
+
+    public boolean isFavorite(int index) {
+        checkIndex(index);
+        return (mFlags[index] & FAVORITE) != 0;
+    }
+
+    public boolean hasImageUrl(int index) {
+        checkIndex(index);
+        return (mFlags[index] & NO_IMAGE_URL) == 0;
+    }
+
+    /**
+     * False if the row's recipe came without an ingredient list, as opposed to an empty one;
+     * {@link #getIngredientCount(int)} is 0 either way.
+     */
+    public boolean hasIngredients(int index) {
+        checkIndex(index);
+        return (mFlags[index] & NO_INGREDIENTS) == 0;
+    }
+
+    public int getIngredientCount(int index) {
+        checkIndex(index);
+        return mIngredientOffsets[index + 1] - mIngredientOffsets[index];
+    }
+
+    /**
+     * Ingredient line {@code line} of row {@code index}, without creating the row's
+     * {@link Recipe}; lines repeated across rows come back as the same instance.
+     */
+    @NonNull
+    public String getIngredient(int index, int line) {
+        checkIndex(index);
+        int start = mIngredientOffsets[index];
+        if (line < 0 || line >= mIngredientOffsets[index + 1] - start)
+            throw new IndexOutOfBoundsException("Line: " + line + ", Lines: " + (mIngredientOffsets[index + 1] - start));
+        return mDictionary[mIngredientCodes[start + line]];
+    }
+
+    /**
+     * Whether row {@code index} and row {@code otherIndex} of {@code other} have the same recipe
+     * ID; compares the stored bytes without creating any string.
+     */
+    public boolean hasSameId(int index, @NonNull RecipeStore other, int otherIndex) {
+        checkIndex(index);
+        other.checkIndex(otherIndex);
+        return textEquals(index, ID, other, otherIndex);
+    }
+
+    /**
+     * Whether row {@code index} and row {@code otherIndex} of {@code other} have the same title
+     * and image URL; compares the stored bytes without creating any string.
+     */
+    public boolean hasSameTitleAndImage(int index, @NonNull RecipeStore other, int otherIndex) {
+        checkIndex(index);
+        other.checkIndex(otherIndex);
+        if (!textEquals(index, TITLE, other, otherIndex)) return false;
+
+        boolean image = (mFlags[index] & NO_IMAGE_URL) == 0;
+        if (image != ((other.mFlags[otherIndex] & NO_IMAGE_URL) == 0)) return false;
+        return !image || (textEquals(index, IMAGE_URL, other, otherIndex)
+                && mDictionary[mUrlPrefixes[index * 2]].equals(other.mDictionary[other.mUrlPrefixes[otherIndex * 2]]));
+    }
+
+    /**
+     * Approximate heap held by the columns, including room reserved for rows not added yet.
+     */
+    public long getSizeInBytes() {
+        long bytes = 8L * 16;
+        bytes += 4L * mSocialRanks.length + mFlags.length + mText.length;
+        bytes += 4L * (mTextOffsets.length + mUrlPrefixes.length + mIngredientOffsets.length + mIngredientCodes.length);
+        bytes += 4L * mDictionary.length;
+        for (String line : mDictionary) {
+            if (line != null && !IngredientPool.isPooled(line)) bytes += 40 + 2L * line.length();
+        }
+        return bytes;
+    }
+
+    private String text(int row, int field) {
+        int start = mTextOffsets[row * TEXT_FIELDS + field];
+        return new String(mText, start, mTextOffsets[row * TEXT_FIELDS + field + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private boolean textEquals(int row, int field, RecipeStore other, int otherRow) {
+        int start = mTextOffsets[row * TEXT_FIELDS + field];
+        int length = mTextOffsets[row * TEXT_FIELDS + field + 1] - start;
+        int otherStart = other.mTextOffsets[otherRow * TEXT_FIELDS + field];
+        if (other.mTextOffsets[otherRow * TEXT_FIELDS + field + 1] - otherStart != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (mText[start + i] != other.mText[otherStart + i]) return false;
+        }
+        return true;
+    }
+
+    private String url(int row, int field) {
+        return mDictionary[mUrlPrefixes[row * 2 + field - IMAGE_URL]].concat(text(row, field));
+    }
+
+    private String[] ingredients(int row) {
+        int start = mIngredientOffsets[row];
+        String[] ingredients = new String[mIngredientOffsets[row + 1] - start];
+        for (int i = 0; i < ingredients.length; i++) {
+            ingredients[i] = mDictionary[mIngredientCodes[start + i]];
+        }
+        return ingredients;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+
+    /**
+     * Appends rows to the columns. Not thread-safe, but a store returned by {@link #build()} may
+     * be read on any thread while more rows are added.
+     */
+    public static final class Builder {
+
+        private int mSize;
+        private float[] mSocialRanks;
+        private byte[] mFlags;
+        private byte[] mText;
+        private int mTextLength;
+        private int[] mTextOffsets;
+        private int[] mUrlPrefixes;
+        private int[] mIngredientOffsets;
+        private int[] mIngredientCodes;
+        private String[] mDictionary;
+        private final Map<String, Integer> mCodes = new HashMap<>();
+        // Open addressing over rows by recipe ID; a slot holds row + 1, 0 when empty
+        private int[] mIdSlots;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedRows) {
+            int rows = Math.max(1, expectedRows);
+            mSocialRanks = new float[rows];
+            mFlags = new byte[rows];
+            mText = new byte[rows * 64];
+            mTextOffsets = new int[rows * TEXT_FIELDS + 1];
+            mUrlPrefixes = new int[rows * 2];
+            mIngredientOffsets = new int[rows + 1];
+            mIngredientCodes = new int[rows * 8];
+            mDictionary = new String[16];
+            mIdSlots = new int[Integer.highestOneBit(rows * 2 - 1) << 1];
+        }
+
+        public int size() {
+            return mSize;
+        }
+
+        public boolean contains(@NonNull String recipeId) {
+            return mIdSlots[slotOf(recipeId)] != 0;
+        }
+
+        /**
+         * Appends {@code recipe} unless a row with its ID is already there.
+         *
+         * @return true if it was appended
+         */
+        public boolean add(@NonNull Recipe recipe) {
+            if (contains(recipe.getRecipeId())) return false;
+            append(recipe);
+            return true;
+        }
+
+        /**
+         * @return a store holding the rows added so far
+         */
+        @NonNull
+        public RecipeStore build() {
+            return new RecipeStore(this);
+        }
+
+        private void append(Recipe recipe) {
+            ensureRowCapacity(mSize + 1);
+            int row = mSize;
+            byte flags = recipe.isFavorite() ? FAVORITE : 0;
+            if (recipe.getImageUrl() == null) flags |= NO_IMAGE_URL;
+            if (recipe.getSourceUrl() == null) flags |= NO_SOURCE_URL;
+            if (recipe.getIngredients() == null) flags |= NO_INGREDIENTS;
+            mFlags[row] = flags;
+            mSocialRanks[row] = recipe.getSocial_rank();
+
+            appendText(row, ID, recipe.getRecipeId());
+            appendText(row, TITLE, recipe.getTitle());
+            appendUrl(row, IMAGE_URL, recipe.getImageUrl());
+            appendUrl(row, SOURCE_URL, recipe.getSourceUrl());
+            appendIngredients(row, recipe.getIngredients());
+
+            // Last, so a row is only found once it is complete
+            mSize = row + 1;
+            indexId(recipe.getRecipeId(), row);
+        }
+
+        private void appendText(int row, int field, @Nullable String text) {
+            int length = text == null ? 0 : text.length();
+            ensureTextCapacity(mTextLength + length);
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    // Not ASCII; let the encoder deal with it
+                    byte[] encoded = text.substring(i).getBytes(StandardCharsets.UTF_8);
+                    ensureTextCapacity(mTextLength + encoded.length);
+                    System.arraycopy(encoded, 0, mText, mTextLength, encoded.length);
+                    mTextLength += encoded.length;
+                    break;
+                }
+                mText[mTextLength++] = (byte) c;
+            }
+            mTextOffsets[row * TEXT_FIELDS + field + 1] = mTextLength;
+        }
+
+        private void appendUrl(int row, int field, @Nullable String url) {
+            int split = url == null ? 0 : url.lastIndexOf('/') + 1;
+            mUrlPrefixes[row * 2 + field - IMAGE_URL] = codeOf(split == 0 ? "" : url.substring(0, split));
+            appendText(row, field, url == null ? null : url.substring(split));
+        }
+
+        private void ensureTextCapacity(int length) {
+            if (length > mText.length) mText = Arrays.copyOf(mText, Math.max(mText.length * 2, length));
+        }
+
+        private void appendIngredients(int row, @Nullable String[] ingredients) {
+            int start = mIngredientOffsets[row];
+            int count = ingredients == null ? 0 : ingredients.length;
+            if (start + count > mIngredientCodes.length) {
+                mIngredientCodes = Arrays.copyOf(mIngredientCodes,
+                        Math.max(mIngredientCodes.length * 2, start + count));
+            }
+            for (int i = 0; i < count; i++) {
+                mIngredientCodes[start + i] = codeOf(IngredientPool.intern(ingredients[i]));
+            }
+            mIngredientOffsets[row + 1] = start + count;
+        }
+
+        private int codeOf(String text) {
+            Integer code = mCodes.get(text);
+            if (code != null) return code;
+
+            code = mCodes.size();
+            if (code == mDictionary.length) mDictionary = Arrays.copyOf(mDictionary, code * 2);
+            mDictionary[code] = text;
+            mCodes.put(text, code);
+            return code;
+        }
+
+        private void ensureRowCapacity(int rows) {
+            if (rows <= mFlags.length) return;
+            int capacity = Math.max(rows, mFlags.length * 2);
+            mSocialRanks = Arrays.copyOf(mSocialRanks, capacity);
+            mFlags = Arrays.copyOf(mFlags, capacity);
+            mTextOffsets = Arrays.copyOf(mTextOffsets, capacity * TEXT_FIELDS + 1);
+            mUrlPrefixes = Arrays.copyOf(mUrlPrefixes, capacity * 2);
+            mIngredientOffsets = Arrays.copyOf(mIngredientOffsets, capacity + 1);
+        }
+
+        // Only for stores that are done growing
+        private void trimToSize() {
+            mSocialRanks = Arrays.copyOf(mSocialRanks, mSize);
+            mFlags = Arrays.copyOf(mFlags, mSize);
+            mText = Arrays.copyOf(mText, mTextLength);
+            mTextOffsets = Arrays.copyOf(mTextOffsets, mSize * TEXT_FIELDS + 1);
+            mUrlPrefixes = Arrays.copyOf(mUrlPrefixes, mSize * 2);
+            mIngredientOffsets = Arrays.copyOf(mIngredientOffsets, mSize + 1);
+            mIngredientCodes = Arrays.copyOf(mIngredientCodes, mIngredientOffsets[mSize]);
+            mDictionary = Arrays.copyOf(mDictionary, mCodes.size());
+        }
+
+        private void indexId(String recipeId, int row) {
+            if (mSize * 2 > mIdSlots.length) {
+                int[] slots = new int[mIdSlots.length * 2];
+                for (int slot : mIdSlots) {
+                    if (slot != 0) slots[probe(slots, hash(slot - 1), slot - 1)] = slot;
+                }
+                mIdSlots = slots;
+            }
+            mIdSlots[slotOf(recipeId)] = row + 1;
+        }
+
+        private int slotOf(String recipeId) {
+            int mask = mIdSlots.length - 1;
+            int slot = recipeId.hashCode() * 0x9E3779B9 & mask;
+            while (mIdSlots[slot] != 0 && !idEquals(mIdSlots[slot] - 1, recipeId)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Rehashing only sees distinct IDs, so the first free slot is the one
+        private int probe(int[] slots, int hash, int row) {
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private int hash(int row) {
+            return id(row).hashCode() * 0x9E3779B9;
+        }
+
+        private boolean idEquals(int row, String recipeId) {
+            int start = mTextOffsets[row * TEXT_FIELDS + ID];
+            int length = mTextOffsets[row * TEXT_FIELDS + ID + 1] - start;
+            for (int i = 0; i < length; i++) {
+                byte b = mText[start + i];
+                if (b < 0) return id(row).equals(recipeId);
+                if (i >= recipeId.length() || b != recipeId.charAt(i)) return false;
+            }
+            return length == recipeId.length();
+        }
+
+        private String id(int row) {
+            int start = mTextOffsets[row * TEXT_FIELDS + ID];
+            return new String(mText, start, mTextOffsets[row * TEXT_FIELDS + ID + 1] - start, StandardCharsets.UTF_8);
+        }
+    }
+}
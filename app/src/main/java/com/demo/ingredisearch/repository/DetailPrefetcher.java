@@ -0,0 +1,161 @@
+package com.demo.ingredisearch.repository;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.sources.ResponseCallback;
+import com.demo.ingredisearch.repository.sources.remote.RecipeApiClient;
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Resource;
+import com.demo.ingredisearch.util.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Fetches recipe details ahead of time into a {@link RecipeDetailCache}, so that opening one of
+ * the top search results doesn't wait for the network. Each fetched recipe is also handed to
+ * {@code onFetched}.
+ * <p>
+ * Prefetching is background work: at most {@code maxConcurrent} details are fetched at a time,
+ * and nothing new is started while a request the user is waiting for is in flight.
+ */
+class DetailPrefetcher {
+
+    private final RecipeApiClient mRecipeApiClient;
+    private final Executor mExecutor;
+    private final RecipeDetailCache mCache;
+    private final int mMaxConcurrent;
+    private final Consumer<Recipe> mOnFetched;
+
+    private final Deque<String> mQueue = new ArrayDeque<>();
+    private final Map<String, Fetch> mInFlight = new HashMap<>();
+    private int mForeground;
+
+    DetailPrefetcher(RecipeApiClient recipeApiClient, Executor executor, RecipeDetailCache cache,
+                     int maxConcurrent, Consumer<Recipe> onFetched) {
+        mRecipeApiClient = recipeApiClient;
+        mExecutor = executor;
+        mCache = cache;
+        mMaxConcurrent = maxConcurrent;
+        mOnFetched = onFetched;
+    }
+
+    /**
+     * Replaces whatever was queued with the details of the first {@code count} recipes that are
+     * not cached yet.
+     */
+    void prefetch(List<Recipe> recipes, int count) {
+        synchronized (this) {
+            mQueue.clear();
+            for (int i = 0; i < Math.min(count, recipes.size()); i++) {
+                String recipeId = recipes.get(i).getRecipeId();
+                if (!mCache.contains(recipeId) && !mInFlight.containsKey(recipeId)) {
+                    mQueue.add(recipeId);
+                }
+            }
+        }
+        mExecutor.execute(this::drain);
+    }
+
+    /**
+     * Marks a request the user is waiting for as started; prefetching holds off until every such
+     * request has ended.
+     */
+    Foreground beginForeground() {
+        synchronized (this) {
+            mForeground++;
+        }
+        return new Foreground();
+    }
+
+    void cancelAll() {
+        List<Cancellable> calls = new ArrayList<>();
+        synchronized (this) {
+            mQueue.clear();
+            for (Fetch fetch : mInFlight.values()) {
+                fetch.mCancelled = true;
+                if (fetch.mCall != null) calls.add(fetch.mCall);
+            }
+            mInFlight.clear();
+        }
+        for (Cancellable call : calls) {
+            call.cancel();
+        }
+    }
+
+    synchronized int getQueued() {
+        return mQueue.size();
+    }
+
+    synchronized int getInFlight() {
+        return mInFlight.size();
+    }
+
+    private void drain() {
+        while (true) {
+            String recipeId;
+            Fetch fetch = new Fetch();
+            synchronized (this) {
+                if (mForeground > 0 || mInFlight.size() >= mMaxConcurrent || mQueue.isEmpty()) return;
+                recipeId = mQueue.poll();
+                mInFlight.put(recipeId, fetch);
+            }
+
+            Cancellable call = mRecipeApiClient.searchRecipe(recipeId, new ResponseCallback<Recipe>() {
+                @Override
+                public void onDataAvailable(Resource<Recipe> response) {
+                    if (response.status == Status.SUCCESS && response.data != null) {
+                        mCache.put(response.data);
+                        mOnFetched.accept(response.data);
+                    }
+                    finish(recipeId, fetch);
+                }
+
+                @Override
+                public void onError(Resource<Recipe> response) {
+                    finish(recipeId, fetch); // fetched if and when it is opened
+                }
+            });
+
+            boolean cancelled;
+            synchronized (this) {
+                fetch.mCall = call;
+                cancelled = fetch.mCancelled;
+            }
+            if (cancelled && call != null) call.cancel();
+        }
+    }
+
+    private void finish(String recipeId, Fetch fetch) {
+        synchronized (this) {
+            mInFlight.remove(recipeId, fetch);
+        }
+        mExecutor.execute(this::drain);
+    }
+
+    private static class Fetch {
+        Cancellable mCall;
+        boolean mCancelled;
+    }
+
+    /**
+     * A foreground request in progress; {@link #end()} it once it completes or is abandoned.
+     */
+    class Foreground {
+        private final AtomicBoolean mEnded = new AtomicBoolean();
+
+        void end() {
+            if (!mEnded.compareAndSet(false, true)) return;
+            synchronized (DetailPrefetcher.this) {
+                mForeground--;
+            }
+            mExecutor.execute(DetailPrefetcher.this::drain);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.demo.ingredisearch.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The pages of one search loaded so far, merged in page order and de-duplicated by recipe ID.
+ * <p>
+ * Rows go straight into a {@link RecipeStore}, so a long scroll through a large result set keeps
+ * columns rather than one object graph per recipe, and taking the list after each page copies
+ * nothing.
+ * <p>
+ * With a {@link RecipeRanking}, the best rows can also be had first, from the streamed first page
+ * on; each page only ranks the rows it added.
+ */
+class PagedRecipes {
+
+    private final String mQuery;
+    private final RecipeStore.Builder mRecipes = new RecipeStore.Builder();
+    @Nullable
+    private final RecipeRanking mRanking;
+    private final AtomicBoolean mLoading = new AtomicBoolean();
+    private int mLastPage;
+    private boolean mEndReached;
+
+    PagedRecipes(String query) {
+        this(query, null);
+    }
+
+    PagedRecipes(String query, @Nullable RecipeRanking ranking) {
+        mQuery = query;
+        mRanking = ranking;
+    }
+
+    String getQuery() {
+        return mQuery;
+    }
+
+    synchronized int getLastPage() {
+        return mLastPage;
+    }
+
+    synchronized boolean isEndReached() {
+        return mEndReached;
+    }
+
+    /**
+     * Appends the next page. A page that brings no recipe we don't already have marks the end of
+     * the result set.
+     *
+     * @return true if the page added at least one new recipe
+     */
+    synchronized boolean addPage(int page, List<Recipe> recipes) {
+        if (page != mLastPage + 1) return false;
+
+        int added = 0;
+        if (recipes != null) {
+            for (Recipe recipe : recipes) {
+                if (mRecipes.add(recipe)) {
+                    added++;
+                }
+            }
+        }
+        // A duplicate within the page shifted the rows ranked while it was streamed
+        if (mRanking != null && recipes != null && added < recipes.size()) mRanking.reset();
+        mLastPage = page;
+        mEndReached = added == 0;
+        return added > 0;
+    }
+
+    @NonNull
+    synchronized RecipeStore getRecipes() {
+        return mRecipes.build();
+    }
+
+    /**
+     * @return the recipes so far, the best ones first if there is a ranking
+     */
+    @NonNull
+    synchronized List<Recipe> getRankedRecipes() {
+        return rank(mRecipes.build());
+    }
+
+    /**
+     * @param recipesSoFar the first page as decoded so far
+     * @return those recipes, the best ones first if there is a ranking
+     */
+    @NonNull
+    synchronized List<Recipe> rankPartial(@NonNull List<Recipe> recipesSoFar) {
+        if (mLastPage > 0) return recipesSoFar;
+        return rank(recipesSoFar);
+    }
+
+    private List<Recipe> rank(List<Recipe> recipes) {
+        if (mRanking == null) return recipes;
+        mRanking.offer(recipes);
+        return mRanking.apply(recipes);
+    }
+
+    /**
+     * @return false if a page is already being loaded
+     */
+    boolean startLoading() {
+        return mLoading.compareAndSet(false, true);
+    }
+
+    void finishLoading() {
+        mLoading.set(false);
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.ingredisearch.repository;
+
+import androidx.annotation.Nullable;
+
+import com.demo.ingredisearch.models.Recipe;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used in-memory cache of recipe details, keyed by recipe ID.
+ */
+class RecipeDetailCache {
+
+    private final Map<String, Recipe> mRecipes;
+    private int mHits;
+    private int mMisses;
+
+    RecipeDetailCache(int capacity) {
+        mRecipes = new LinkedHashMap<String, Recipe>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Recipe> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Nullable
+    synchronized Recipe get(String recipeId) {
+        Recipe recipe = mRecipes.get(recipeId);
+        if (recipe == null) {
+            mMisses++;
+        } else {
+            mHits++;
+        }
+        return recipe;
+    }
+
+    synchronized boolean contains(String recipeId) {
+        return mRecipes.containsKey(recipeId);
+    }
+
+    synchronized void put(Recipe recipe) {
+        mRecipes.put(recipe.getRecipeId(), recipe);
+    }
+
+    synchronized int getHits() {
+        return mHits;
+    }
+
+    synchronized int getMisses() {
+        return mMisses;
+    }
+}
@@ -0,0 +1,210 @@
+package com.demo.ingredisearch.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The best {@code k} recipes of a result set by social rank, kept up to date as the set grows.
+ * <p>
+ * A min-heap holds the current top {@code k}; each new recipe costs one comparison with the worst
+ * of them, and O(log k) only if it gets in, so nothing ever sorts the whole set. Rows are fed
+ * with {@link #offer(List)} as the list grows (a streamed response, further pages) and only the
+ * rows not seen before are looked at. For a {@link RecipeStore}, a row is only turned into a
+ * {@link Recipe} if it could get into the top.
+ * <p>
+ * Equal ranks go to the optional tie-breaker, then to whichever row came first.
+ */
+class RecipeRanking {
+
+    private final int mK;
+    @Nullable
+    private final Comparator<Recipe> mTieBreaker;
+
+    // Min-heap, worst of the top at 0
+    private final int[] mRows;
+    private final float[] mRanks;
+    private final Recipe[] mRecipes;
+    private int mHeapSize;
+    private int mConsumed;
+
+    /**
+     * @param tieBreaker orders recipes of equal rank, the one to show first being the lesser
+     */
+    RecipeRanking(int k, @Nullable Comparator<Recipe> tieBreaker) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        mK = k;
+        mTieBreaker = tieBreaker;
+        mRows = new int[k];
+        mRanks = new float[k];
+        mRecipes = tieBreaker != null ? new Recipe[k] : null;
+    }
+
+    /**
+     * Looks at the rows of {@code recipes} past the ones offered before. The rows offered before
+     * must still be its first rows; {@link #reset()} first otherwise.
+     */
+    void offer(@NonNull List<Recipe> recipes) {
+        if (recipes.size() < mConsumed) reset();
+        RecipeStore store = recipes instanceof RecipeStore ? (RecipeStore) recipes : null;
+
+        for (int row = mConsumed; row < recipes.size(); row++) {
+            Recipe recipe = store != null ? null : recipes.get(row);
+            float rank = store != null ? store.getSocialRank(row) : recipe.getSocial_rank();
+            if (mHeapSize == mK) {
+                // A later row only beats an equal one through the tie-breaker
+                if (rank < mRanks[0] || (rank == mRanks[0] && mTieBreaker == null)) continue;
+                if (recipe == null && mTieBreaker != null) recipe = recipes.get(row);
+                if (rank == mRanks[0] && mTieBreaker.compare(recipe, mRecipes[0]) >= 0) continue;
+                set(0, row, rank, recipe);
+                siftDown(0);
+            } else {
+                if (recipe == null && mTieBreaker != null) recipe = recipes.get(row);
+                set(mHeapSize, row, rank, recipe);
+                siftUp(mHeapSize++);
+            }
+        }
+        mConsumed = recipes.size();
+    }
+
+    void reset() {
+        mHeapSize = 0;
+        mConsumed = 0;
+        if (mRecipes != null) Arrays.fill(mRecipes, null);
+    }
+
+    /**
+     * @return how many rows have been offered
+     */
+    int getOffered() {
+        return mConsumed;
+    }
+
+    /**
+     * @return the rows of the current top, best first
+     */
+    @NonNull
+    int[] getTopRows() {
+        Integer[] order = new Integer[mHeapSize];
+        for (int i = 0; i < mHeapSize; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> worse(b, a) ? -1 : worse(a, b) ? 1 : 0);
+
+        int[] rows = new int[mHeapSize];
+        for (int i = 0; i < rows.length; i++) rows[i] = mRows[order[i]];
+        return rows;
+    }
+
+    /**
+     * @param recipes the list offered last
+     * @return {@code recipes} with the current top moved to the front, best first, and the other
+     * rows after them in their own order. A view; no row is copied.
+     */
+    @NonNull
+    List<Recipe> apply(@NonNull List<Recipe> recipes) {
+        if (recipes.size() != mConsumed)
+            throw new IllegalStateException("Offer the list before ranking it");
+        return new Ranked(recipes, getTopRows());
+    }
+
+    /**
+     * @return {@code recipes} with its best {@code k} first; see {@link #apply(List)}
+     */
+    @NonNull
+    static List<Recipe> rank(@NonNull List<Recipe> recipes, int k, @Nullable Comparator<Recipe> tieBreaker) {
+        RecipeRanking ranking = new RecipeRanking(k, tieBreaker);
+        ranking.offer(recipes);
+        return ranking.apply(recipes);
+    }
+
+    private void set(int slot, int row, float rank, Recipe recipe) {
+        mRows[slot] = row;
+        mRanks[slot] = rank;
+        if (mRecipes != null) mRecipes[slot] = recipe;
+    }
+
+    // Whether the entry in slot a should be shown after the one in slot b
+    private boolean worse(int a, int b) {
+        if (mRanks[a] != mRanks[b]) return mRanks[a] < mRanks[b];
+        if (mTieBreaker != null) {
+            int order = mTieBreaker.compare(mRecipes[a], mRecipes[b]);
+            if (order != 0) return order > 0;
+        }
+        return mRows[a] > mRows[b];
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!worse(slot, parent)) return;
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int worst = slot;
+            int left = 2 * slot + 1;
+            if (left < mHeapSize && worse(left, worst)) worst = left;
+            if (left + 1 < mHeapSize && worse(left + 1, worst)) worst = left + 1;
+            if (worst == slot) return;
+            swap(slot, worst);
+            slot = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int row = mRows[a];
+        mRows[a] = mRows[b];
+        mRows[b] = row;
+        float rank = mRanks[a];
+        mRanks[a] = mRanks[b];
+        mRanks[b] = rank;
+        if (mRecipes != null) {
+            Recipe recipe = mRecipes[a];
+            mRecipes[a] = mRecipes[b];
+            mRecipes[b] = recipe;
+        }
+    }
+
+    private static final class Ranked extends AbstractList<Recipe> implements RandomAccess {
+        private final List<Recipe> mRecipes;
+        private final int[] mTop;
+        private final int[] mTopAscending;
+
+        Ranked(List<Recipe> recipes, int[] top) {
+            mRecipes = recipes;
+            mTop = top;
+            mTopAscending = top.clone();
+            Arrays.sort(mTopAscending);
+        }
+
+        @Override
+        public Recipe get(int index) {
+            if (index < 0 || index >= mRecipes.size())
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mRecipes.size());
+            if (index < mTop.length) return mRecipes.get(mTop[index]);
+
+            // The (index - k)th row that is not in the top
+            int row = index - mTop.length;
+            for (int top : mTopAscending) {
+                if (top <= row) row++;
+                else break;
+            }
+            return mRecipes.get(row);
+        }
+
+        @Override
+        public int size() {
+            return mRecipes.size();
+        }
+    }
+}
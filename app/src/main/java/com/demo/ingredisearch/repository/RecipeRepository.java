@@ -1,30 +1,410 @@
 package com.demo.ingredisearch.repository;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.cache.SearchResultCache;
+import com.demo.ingredisearch.repository.index.IngredientIndex;
+import com.demo.ingredisearch.repository.sources.ResponseCallback;
+import com.demo.ingredisearch.repository.sources.remote.RecipeApiClient;
+import com.demo.ingredisearch.repository.util.QueryCanonicalizer;
+import com.demo.ingredisearch.util.AppExecutors;
+import com.demo.ingredisearch.util.Cancellable;
 import com.demo.ingredisearch.util.Resource;
+import com.demo.ingredisearch.util.Status;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.demo.ingredisearch.repository.sources.remote.RecipeApiClient.FIRST_PAGE;
 
 public class RecipeRepository {
 
+    // Details of the top results are fetched in the background, a couple at a time, so that
+    // opening one of them is instant.
+    private static final int DETAIL_PREFETCH_COUNT = 5;
+    private static final int DETAIL_PREFETCH_CONCURRENCY = 2;
+    private static final int DETAIL_CACHE_SIZE = 50;
+
+    private static final long SEARCH_DEADLINE_MILLIS = 5_000;
+    static final String SEARCH_TIMED_OUT = "Search is taking too long. Check your connection.";
+
+    // Recipes come in bursts (a page, a handful of prefetched details); one write covers a burst.
+    private static final long INDEX_SAVE_DELAY_MILLIS = 10_000;
+
+    private final RecipeApiClient mRecipeApiClient;
+    private final AppExecutors mAppExecutors;
+    private final RecipeDetailCache mDetailCache = new RecipeDetailCache(DETAIL_CACHE_SIZE);
+    private final SearchResultCache mSearchCache;
+    private final IngredientIndex mIngredientIndex;
+    private final AtomicBoolean mIndexSavePending = new AtomicBoolean();
+    private volatile long mSearchDeadlineMillis = SEARCH_DEADLINE_MILLIS;
+    private final DetailPrefetcher mPrefetcher;
+    private volatile int mPrefetchCount = DETAIL_PREFETCH_COUNT;
+    private volatile int mRankCount;
+    private volatile Comparator<Recipe> mRankTieBreaker;
+
+    private final MutableLiveData<Resource<List<Recipe>>> mRecipes = new MutableLiveData<>();
+    private final MutableLiveData<Resource<Recipe>> mRecipe = new MutableLiveData<>();
+    private final MutableLiveData<String> mCorrectedQuery = new MutableLiveData<>();
+
+    // A new search supersedes the previous one: its call is cancelled and anything it still
+    // delivers is dropped, so stale results can never overwrite fresh ones.
+    private final AtomicInteger mSearchGeneration = new AtomicInteger();
+    private final AtomicInteger mRecipeGeneration = new AtomicInteger();
+    // Set on whichever thread starts the call, cancelled from the caller's
+    private volatile Cancellable mSearchCall;
+    private volatile Cancellable mNextPageCall;
+    private volatile Cancellable mRecipeCall;
+    private volatile Cancellable mSearchDeadline;
+    private volatile DetailPrefetcher.Foreground mSearchForeground;
+    private volatile DetailPrefetcher.Foreground mNextPageForeground;
+    private volatile DetailPrefetcher.Foreground mRecipeForeground;
+
+    // Only the first page is fetched up front; the rest is fetched as the list is scrolled.
+    private volatile PagedRecipes mPages;
+    private volatile String mLoadingSearchKey;
+
+    /**
+     * Search results are cached in the {@link SearchResultCache#install installed} cache, and
+     * recipes indexed in the {@link IngredientIndex#install installed} index; either is kept in
+     * memory only if there is none.
+     */
+    public RecipeRepository(RecipeApiClient recipeApiClient, AppExecutors appExecutors) {
+        this(recipeApiClient, appExecutors, defaultSearchCache());
+    }
+
+    public RecipeRepository(RecipeApiClient recipeApiClient, AppExecutors appExecutors,
+                            SearchResultCache searchCache) {
+        this(recipeApiClient, appExecutors, searchCache, defaultIngredientIndex());
+    }
+
+    public RecipeRepository(RecipeApiClient recipeApiClient, AppExecutors appExecutors,
+                            SearchResultCache searchCache, IngredientIndex ingredientIndex) {
+        mRecipeApiClient = recipeApiClient;
+        mAppExecutors = appExecutors;
+        mSearchCache = searchCache;
+        mIngredientIndex = ingredientIndex;
+        mPrefetcher = new DetailPrefetcher(recipeApiClient, appExecutors.networkIO(), mDetailCache,
+                DETAIL_PREFETCH_CONCURRENCY, recipe -> index(Collections.singletonList(recipe)));
+    }
+
+    private static SearchResultCache defaultSearchCache() {
+        SearchResultCache installed = SearchResultCache.getInstalled();
+        return installed != null ? installed : SearchResultCache.inMemory();
+    }
+
+    private static IngredientIndex defaultIngredientIndex() {
+        IngredientIndex installed = IngredientIndex.getInstalled();
+        return installed != null ? installed : new IngredientIndex();
+    }
+
+    public SearchResultCache getSearchCache() {
+        return mSearchCache;
+    }
+
+    public IngredientIndex getIngredientIndex() {
+        return mIngredientIndex;
+    }
+
+    /**
+     * Sets how many of the top results of each search get their details prefetched; 0 turns
+     * prefetching off.
+     */
+    public void setDetailPrefetchCount(int count) {
+        mPrefetchCount = count;
+    }
+
+    /**
+     * Moves the {@code count} recipes of each search with the highest social rank to the front of
+     * {@link #getRecipes()}, best first, while the rest keep the server's order. This holds from
+     * the first partial result on, and as more pages come in; 0 (the default) keeps the server's
+     * order throughout. Takes effect from the next search.
+     *
+     * @param tieBreaker orders recipes of equal rank, the lesser first; by default the one the
+     *                   server listed first comes first
+     */
+    public void setTopRanked(int count, @Nullable Comparator<Recipe> tieBreaker) {
+        mRankTieBreaker = tieBreaker;
+        mRankCount = count;
+    }
+
     public LiveData<Resource<List<Recipe>>> getRecipes() {
-        // TODO
-        return null;
+        return mRecipes;
     }
 
     public LiveData<Resource<Recipe>> getRecipe() {
-        // TODO
-        return null;
+        return mRecipe;
     }
 
+    /**
+     * A "did you mean" for the last search, once it has found no recipes: its query with
+     * misspelled ingredients corrected against the {@link IngredientIndex}, if that differs from
+     * the one typed. Null otherwise.
+     * The search itself always runs the query as typed; the index only knows the ingredients of
+     * past results, so a word it doesn't know may well be right.
+     */
+    public LiveData<String> getCorrectedQuery() {
+        return mCorrectedQuery;
+    }
+
+    /**
+     * Searches without making the user wait on the network when there is a usable answer.
+     * <p>
+     * A cached result for the query is posted at once as {@link Resource#stale} and revalidated
+     * in the background; the fresh result is then posted as {@link Resource#success} even if it
+     * is the same, so the list stops being marked stale, and a failed revalidation leaves the
+     * cached one in place. Without a cached result, the search falls back to an error
+     * once the deadline set by {@link #setSearchDeadline(long)} has passed with nothing to show,
+     * rather than waiting on the network timeouts; a result arriving after that is still posted.
+     * <p>
+     * When the search fails or runs out of time, recipes matching every ingredient in the local
+     * {@link IngredientIndex} are posted as {@link Resource#stale} instead of the error, if there
+     * are any.
+     */
     public void searchRecipes(String query) {
-        // TODO
+        // "Milk, eggs" while "eggs,milk" is still loading asks for what is already coming
+        String key = QueryCanonicalizer.canonicalize(query);
+        if (key.equals(mLoadingSearchKey)) return;
+        mLoadingSearchKey = key;
+
+        cancel(mSearchCall);
+        cancel(mNextPageCall);
+        cancel(mSearchDeadline);
+        mSearchDeadline = null;
+        end(mSearchForeground);
+        end(mNextPageForeground);
+        int generation = mSearchGeneration.incrementAndGet();
+        mCorrectedQuery.postValue(null);
+        int rankCount = mRankCount;
+        PagedRecipes pages = new PagedRecipes(query,
+                rankCount > 0 ? new RecipeRanking(rankCount, mRankTieBreaker) : null);
+        mPages = pages;
+
+        // The cache and index may have to go to disk
+        mAppExecutors.networkIO().execute(() -> {
+            if (generation != mSearchGeneration.get()) return;
+            search(query, pages, generation, mSearchCache.get(query));
+        });
+    }
+
+    private void search(String query, PagedRecipes pages, int generation, List<Recipe> cached) {
+        AtomicBoolean shown = new AtomicBoolean(cached != null);
+        AtomicBoolean offline = new AtomicBoolean();
+        if (cached != null) {
+            mRecipes.postValue(Resource.stale(rank(cached)));
+            stopDeduplicating(generation);
+        } else {
+            mRecipes.postValue(Resource.loading(null));
+            if (mSearchDeadlineMillis > 0) {
+                mSearchDeadline = mAppExecutors.scheduler().schedule(() -> {
+                    if (generation == mSearchGeneration.get() && shown.compareAndSet(false, true)) {
+                        if (!postOffline(query, offline)) mRecipes.postValue(Resource.error(SEARCH_TIMED_OUT, null));
+                        // Retry on what is shown now must search again
+                        stopDeduplicating(generation);
+                    }
+                }, mSearchDeadlineMillis);
+            }
+        }
+
+        DetailPrefetcher.Foreground foreground = mPrefetcher.beginForeground();
+        mSearchForeground = foreground;
+        Cancellable call = mRecipeApiClient.searchRecipes(query, FIRST_PAGE, new ResponseCallback<List<Recipe>>() {
+            @Override
+            public void onDataAvailable(Resource<List<Recipe>> response) {
+                if (response.status != Status.PARTIAL) foreground.end();
+                if (generation != mSearchGeneration.get()) return;
+                if (response.status != Status.PARTIAL) mLoadingSearchKey = null;
+
+                if (response.status == Status.SUCCESS) {
+                    pages.addPage(FIRST_PAGE, response.data);
+                    List<Recipe> recipes = pages.getRecipes();
+                    List<Recipe> ranked = pages.getRankedRecipes();
+                    shown.set(true);
+                    mRecipes.postValue(Resource.success(ranked));
+                    mPrefetcher.prefetch(ranked, mPrefetchCount);
+                    mAppExecutors.networkIO().execute(() -> mSearchCache.put(query, recipes));
+                    index(response.data);
+                    if (recipes.isEmpty()) suggestCorrection(query, generation);
+                } else if (cached == null) {
+                    // Partial results count as something to show; a cached result is never
+                    // replaced by part of a fresh one
+                    shown.set(true);
+                    mRecipes.postValue(response.status == Status.PARTIAL && response.data != null
+                            ? Resource.partial(pages.rankPartial(response.data)) : response);
+                }
+            }
+
+            @Override
+            public void onError(Resource<List<Recipe>> response) {
+                foreground.end();
+                if (generation != mSearchGeneration.get()) return;
+                mLoadingSearchKey = null;
+                if (cached != null || offline.get()) return;
+                // Recipes found offline beat an error, but don't replace part of a fresh result
+                boolean nothingShown = shown.compareAndSet(false, true);
+                if (!nothingShown || !postOffline(query, offline)) mRecipes.postValue(response);
+            }
+        });
+        mSearchCall = call;
+        if (generation != mSearchGeneration.get()) {
+            // Superseded while starting; the newer search couldn't cancel what wasn't there yet
+            cancel(call);
+            foreground.end();
+        }
+    }
+
+    /**
+     * Only worked out once a search has come back empty, so no search waits on it.
+     */
+    private void suggestCorrection(String query, int generation) {
+        mAppExecutors.networkIO().execute(() -> {
+            if (generation != mSearchGeneration.get()) return;
+            String corrected = mIngredientIndex.correct(query);
+            if (!corrected.equals(query) && generation == mSearchGeneration.get()) {
+                mCorrectedQuery.postValue(corrected);
+            }
+        });
+    }
+
+    // The same search again is only a duplicate while it still has nothing to show; once a stale
+    // copy, an error or offline results are up, searching again is a refresh or a retry
+    private void stopDeduplicating(int generation) {
+        if (generation == mSearchGeneration.get()) mLoadingSearchKey = null;
+    }
+
+    /**
+     * Sets how long a search with no cached result may go without anything to show before it
+     * reports an error; 0 waits on the network timeouts instead.
+     */
+    public void setSearchDeadline(long deadlineMillis) {
+        mSearchDeadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Fetches the page after the last one loaded on the network executor and appends its new
+     * recipes to {@link #getRecipes()}. Meant to be called ahead of time, when the list gets close
+     * to its end; does nothing while a page is loading or once the last page has been reached.
+     */
+    public void loadNextPage() {
+        PagedRecipes pages = mPages;
+        if (pages == null || pages.getLastPage() < FIRST_PAGE || pages.isEndReached()
+                || !pages.startLoading()) return;
+
+        int generation = mSearchGeneration.get();
+        int page = pages.getLastPage() + 1;
+        mAppExecutors.networkIO().execute(() -> {
+            if (generation != mSearchGeneration.get()) {
+                pages.finishLoading();
+                return;
+            }
+            DetailPrefetcher.Foreground foreground = mPrefetcher.beginForeground();
+            mNextPageForeground = foreground;
+            mNextPageCall = mRecipeApiClient.searchRecipes(pages.getQuery(), page, new ResponseCallback<List<Recipe>>() {
+                @Override
+                public void onDataAvailable(Resource<List<Recipe>> response) {
+                    if (response.status != Status.SUCCESS) return; // rows are shown per page
+
+                    foreground.end();
+                    pages.finishLoading();
+                    index(response.data);
+                    if (generation == mSearchGeneration.get() && pages.addPage(page, response.data)) {
+                        mRecipes.postValue(Resource.success(pages.getRankedRecipes()));
+                    }
+                }
+
+                @Override
+                public void onError(Resource<List<Recipe>> response) {
+                    // Keep what is shown; the next scroll towards the end tries again.
+                    foreground.end();
+                    pages.finishLoading();
+                }
+            });
+        });
     }
 
+    /**
+     * Recipes already in the detail cache, e.g. prefetched after a search, are posted right away.
+     */
     public void searchRecipe(String recipeId) {
-        // TODO
+        cancel(mRecipeCall);
+        end(mRecipeForeground);
+        int generation = mRecipeGeneration.incrementAndGet();
+
+        Recipe cached = mDetailCache.get(recipeId.trim());
+        if (cached != null) {
+            mRecipeCall = null;
+            mRecipe.postValue(Resource.success(cached));
+            return;
+        }
+        mRecipe.postValue(Resource.loading(null));
+
+        DetailPrefetcher.Foreground foreground = mPrefetcher.beginForeground();
+        mRecipeForeground = foreground;
+        mRecipeCall = mRecipeApiClient.searchRecipe(recipeId, new ResponseCallback<Recipe>() {
+            @Override
+            public void onDataAvailable(Resource<Recipe> response) {
+                foreground.end();
+                if (response.status == Status.SUCCESS && response.data != null) {
+                    mDetailCache.put(response.data);
+                    index(Collections.singletonList(response.data));
+                }
+                if (generation == mRecipeGeneration.get()) mRecipe.postValue(response);
+            }
+
+            @Override
+            public void onError(Resource<Recipe> response) {
+                foreground.end();
+                if (generation == mRecipeGeneration.get()) mRecipe.postValue(response);
+            }
+        });
+    }
+
+    /**
+     * Posts the recipes in the local index that match every ingredient of {@code query}.
+     *
+     * @return false if there were none
+     */
+    private boolean postOffline(String query, AtomicBoolean offline) {
+        List<Recipe> recipes = mIngredientIndex.search(query, IngredientIndex.Match.ALL);
+        if (recipes.isEmpty()) return false;
+        offline.set(true);
+        mRecipes.postValue(Resource.stale(rank(recipes)));
+        return true;
+    }
+
+    private List<Recipe> rank(List<Recipe> recipes) {
+        int count = mRankCount;
+        return count > 0 ? RecipeRanking.rank(recipes, count, mRankTieBreaker) : recipes;
+    }
+
+    /**
+     * Adds recipes to the local index on the network executor and saves it a little later.
+     */
+    private void index(Collection<Recipe> recipes) {
+        if (recipes == null || recipes.isEmpty()) return;
+        mAppExecutors.networkIO().execute(() -> {
+            mIngredientIndex.addAll(recipes);
+            if (mIndexSavePending.compareAndSet(false, true)) {
+                mAppExecutors.scheduler().schedule(this::saveIndex, INDEX_SAVE_DELAY_MILLIS);
+            }
+        });
+    }
+
+    private void saveIndex() {
+        mIndexSavePending.set(false);
+        try {
+            mIngredientIndex.save();
+        } catch (IOException e) {
+            // Still in memory; the next batch of recipes tries again
+        }
     }
 
     public List<Recipe> getFavorites() {
@@ -44,6 +424,34 @@ public class RecipeRepository {
         // TODO
     }
 
-    // TODO - destroy!!
+    /**
+     * Cancels outstanding searches; call when the screen that started them goes away.
+     */
+    public void destroy() {
+        mSearchGeneration.incrementAndGet();
+        mRecipeGeneration.incrementAndGet();
+        cancel(mSearchCall);
+        cancel(mNextPageCall);
+        cancel(mRecipeCall);
+        cancel(mSearchDeadline);
+        end(mSearchForeground);
+        end(mNextPageForeground);
+        end(mRecipeForeground);
+        mPrefetcher.cancelAll();
+        mSearchCall = null;
+        mNextPageCall = null;
+        mRecipeCall = null;
+        mSearchDeadline = null;
+        mPages = null;
+        mLoadingSearchKey = null;
+    }
+
+    private static void cancel(Cancellable call) {
+        if (call != null) call.cancel();
+    }
+
+    private static void end(DetailPrefetcher.Foreground foreground) {
+        if (foreground != null) foreground.end();
+    }
 
 }
@@ -0,0 +1,220 @@
+package com.demo.ingredisearch.repository.cache;
+
+import androidx.annotation.Nullable;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.util.JsonConverter;
+import com.demo.ingredisearch.util.Clock;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent tier: one file per entry in a directory of its own, so results survive the process.
+ * <p>
+ * Entries expire a fixed time after they were written and the tier is bounded by entry count and
+ * total file size, least recently used first. Each file holds the write time, the key and the
+ * recipes as JSON, one per line; files that can't be read are deleted and count as misses.
+ */
+class DiskTier {
+
+    private static final String SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File mDirectory;
+    private final int mMaxEntries;
+    private final long mMaxBytes;
+    private final long mTtlMillis;
+    private final Clock mClock;
+
+    // File name -> entry, least recently used first; read from the directory on first use
+    private LinkedHashMap<String, Entry> mIndex;
+    private long mBytes;
+    private int mEvictions;
+    private int mExpired;
+
+    DiskTier(File directory, int maxEntries, long maxBytes, long ttlMillis, Clock clock) {
+        mDirectory = directory;
+        mMaxEntries = maxEntries;
+        mMaxBytes = maxBytes;
+        mTtlMillis = ttlMillis;
+        mClock = clock;
+    }
+
+    @Nullable
+    synchronized List<Recipe> get(String key) {
+        String name = fileNameOf(key);
+        Entry entry = index().get(name);
+        if (entry == null) return null;
+
+        if (mClock.now() - entry.mStoredAt >= mTtlMillis) {
+            mExpired++;
+            remove(name);
+            return null;
+        }
+
+        try (BufferedReader reader = open(new File(mDirectory, name))) {
+            reader.readLine();
+            if (!key.equals(reader.readLine())) return null; // another key with the same hash
+            List<Recipe> recipes = JsonConverter.toRecipes(readAll(reader));
+            if (recipes == null) throw new JsonParseException("No recipes");
+            return recipes;
+        } catch (IOException | JsonParseException e) {
+            remove(name);
+            return null;
+        }
+    }
+
+    synchronized void put(String key, List<Recipe> recipes) {
+        String name = fileNameOf(key);
+        LinkedHashMap<String, Entry> index = index();
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) return;
+
+        File temp = new File(mDirectory, name + TEMP_SUFFIX);
+        long storedAt = mClock.now();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            writer.write(storedAt + "\n" + key + "\n");
+            writer.write(JsonConverter.toJson(recipes));
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+
+        File file = new File(mDirectory, name);
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return;
+        }
+        Entry previous = index.remove(name);
+        if (previous != null) mBytes -= previous.mBytes;
+        Entry entry = new Entry(storedAt, file.length());
+        index.put(name, entry);
+        mBytes += entry.mBytes;
+        trim();
+    }
+
+    synchronized void clear() {
+        for (String name : new ArrayList<>(index().keySet())) {
+            remove(name);
+        }
+    }
+
+    synchronized int size() {
+        return index().size();
+    }
+
+    synchronized long getBytes() {
+        index();
+        return mBytes;
+    }
+
+    synchronized int getEvictions() {
+        return mEvictions;
+    }
+
+    synchronized int getExpired() {
+        return mExpired;
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> eldest = mIndex.entrySet().iterator();
+        while ((mIndex.size() > mMaxEntries || mBytes > mMaxBytes) && eldest.hasNext()) {
+            Map.Entry<String, Entry> entry = eldest.next();
+            eldest.remove();
+            mBytes -= entry.getValue().mBytes;
+            new File(mDirectory, entry.getKey()).delete();
+            mEvictions++;
+        }
+    }
+
+    private void remove(String name) {
+        Entry entry = mIndex.remove(name);
+        if (entry != null) mBytes -= entry.mBytes;
+        new File(mDirectory, name).delete();
+    }
+
+    private LinkedHashMap<String, Entry> index() {
+        if (mIndex != null) return mIndex;
+
+        mIndex = new LinkedHashMap<>(16, 0.75f, true);
+        File[] files = mDirectory.listFiles();
+        if (files == null) return mIndex;
+
+        // Nothing records reads across restarts; the oldest writes go first
+        List<Map.Entry<String, Entry>> found = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete(); // interrupted write
+                continue;
+            }
+            if (!file.getName().endsWith(SUFFIX)) continue;
+            try (BufferedReader reader = open(file)) {
+                Entry entry = new Entry(Long.parseLong(reader.readLine()), file.length());
+                found.add(new AbstractMap.SimpleEntry<>(file.getName(), entry));
+            } catch (IOException | NumberFormatException e) {
+                file.delete();
+            }
+        }
+        Collections.sort(found, (a, b) -> Long.compare(a.getValue().mStoredAt, b.getValue().mStoredAt));
+        for (Map.Entry<String, Entry> entry : found) {
+            mIndex.put(entry.getKey(), entry.getValue());
+            mBytes += entry.getValue().mBytes;
+        }
+        return mIndex;
+    }
+
+    private static BufferedReader open(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            text.append(buffer, 0, read);
+        }
+        return text.toString();
+    }
+
+    static String fileNameOf(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + SUFFIX.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e); // every JVM has SHA-1
+        }
+    }
+
+    private static class Entry {
+        final long mStoredAt;
+        final long mBytes;
+
+        Entry(long storedAt, long bytes) {
+            mStoredAt = storedAt;
+            mBytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.ingredisearch.repository.cache;
+
+/**
+ * Approximate, fixed-size counter of how often each key has been seen recently (a count-min
+ * sketch).
+ * <p>
+ * Counts saturate at 15 and are all halved once as many increments as there are counters have
+ * happened, so keys that used to be popular fade out instead of staying in forever.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] mCounters;
+    private final int mMask;
+    private final int mResetAfter;
+    private int mIncrements;
+
+    /**
+     * @param expectedKeys roughly how many distinct keys are in play at once
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(expectedKeys, 8) - 1) << 1;
+        mCounters = new byte[DEPTH][width];
+        mMask = width - 1;
+        mResetAfter = width * 10;
+    }
+
+    synchronized void increment(String key) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (mCounters[row][index] < MAX_COUNT) mCounters[row][index]++;
+        }
+        if (++mIncrements >= mResetAfter) halve();
+    }
+
+    synchronized int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, mCounters[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void halve() {
+        for (byte[] row : mCounters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        mIncrements /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+        return (h ^ (h >>> 16)) & mMask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x45D9F3B;
+        return h ^ (h >>> 16);
+    }
+}
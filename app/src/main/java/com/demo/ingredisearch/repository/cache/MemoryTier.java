@@ -0,0 +1,120 @@
+package com.demo.ingredisearch.repository.cache;
+
+import androidx.annotation.Nullable;
+
+import com.demo.ingredisearch.models.IngredientPool;
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * In-memory tier: least-recently-used, bounded by the approximate size of the entries rather than
+ * their number, since a search can return a handful of recipes or hundreds.
+ * <p>
+ * When full, a new entry only gets in if its key has been asked for at least as often lately as
+ * the entry it would push out, so a burst of one-off searches can't flush the ones that keep
+ * coming back.
+ */
+class MemoryTier {
+
+    // Rough heap cost of a Recipe and its fixed fields, on top of its ingredient strings.
+    static final int RECIPE_OVERHEAD_BYTES = 256;
+    static final int STRING_OVERHEAD_BYTES = 40;
+    static final int REFERENCE_BYTES = 4;
+
+    private final long mMaxWeight;
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch mSketch;
+    private long mWeight;
+    private int mEvictions;
+    private int mRejections;
+
+    MemoryTier(long maxWeightBytes, int expectedKeys) {
+        mMaxWeight = maxWeightBytes;
+        mSketch = new FrequencySketch(expectedKeys);
+    }
+
+    @Nullable
+    synchronized List<Recipe> get(String key) {
+        mSketch.increment(key);
+        Entry entry = mEntries.get(key);
+        return entry == null ? null : entry.mRecipes;
+    }
+
+    /**
+     * @return false if the entry was not admitted
+     */
+    synchronized boolean put(String key, List<Recipe> recipes) {
+        long weight = weigh(recipes);
+        Entry previous = mEntries.remove(key);
+        if (previous != null) mWeight -= previous.mWeight;
+
+        if (weight > mMaxWeight || (previous == null && !admit(key, weight))) {
+            mRejections++;
+            return false;
+        }
+
+        Iterator<Entry> eldest = mEntries.values().iterator();
+        while (mWeight + weight > mMaxWeight && eldest.hasNext()) {
+            mWeight -= eldest.next().mWeight;
+            eldest.remove();
+            mEvictions++;
+        }
+        mEntries.put(key, new Entry(recipes, weight));
+        mWeight += weight;
+        return true;
+    }
+
+    private boolean admit(String key, long weight) {
+        if (mWeight + weight <= mMaxWeight || mEntries.isEmpty()) return true;
+        String victim = mEntries.keySet().iterator().next();
+        return mSketch.frequency(key) >= mSketch.frequency(victim);
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+        mWeight = 0;
+    }
+
+    synchronized long getWeight() {
+        return mWeight;
+    }
+
+    synchronized int getEvictions() {
+        return mEvictions;
+    }
+
+    synchronized int getRejections() {
+        return mRejections;
+    }
+
+    static long weigh(List<Recipe> recipes) {
+        if (recipes instanceof RecipeStore) return ((RecipeStore) recipes).getSizeInBytes();
+
+        long weight = 0;
+        for (Recipe recipe : recipes) {
+            weight += RECIPE_OVERHEAD_BYTES;
+            String[] ingredients = recipe.getIngredients();
+            if (ingredients == null) continue;
+            for (String ingredient : ingredients) {
+                // A pooled line is shared with other recipes; only the reference is this entry's
+                weight += ingredient == null || IngredientPool.isPooled(ingredient)
+                        ? REFERENCE_BYTES : STRING_OVERHEAD_BYTES + 2L * ingredient.length();
+            }
+        }
+        return weight;
+    }
+
+    private static class Entry {
+        final List<Recipe> mRecipes;
+        final long mWeight;
+
+        Entry(List<Recipe> recipes, long weight) {
+            mRecipes = recipes;
+            mWeight = weight;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.demo.ingredisearch.repository.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.util.QueryCanonicalizer;
+import com.demo.ingredisearch.util.Clock;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of search results, keyed by {@link QueryCanonicalizer canonical} query: a
+ * size-aware in-memory tier in front of a persistent one that survives process death.
+ * <p>
+ * Lookups try memory first, then disk; a disk hit is offered back to memory. Writes go to both.
+ * Disk access happens on the calling thread, so never use it from the main thread.
+ * <p>
+ * Call {@link #install(File)} once at startup; without it repositories keep results in memory only.
+ */
+public class SearchResultCache {
+
+    private static final String CACHE_DIRECTORY = "searches";
+    private static final long MEMORY_MAX_BYTES = 1024 * 1024;
+    private static final int MEMORY_EXPECTED_QUERIES = 256;
+    private static final int DISK_MAX_ENTRIES = 200;
+    private static final long DISK_MAX_BYTES = 5L * 1024 * 1024;
+    // Results are always revalidated when shown; an old copy still beats nothing while offline.
+    private static final long DISK_TTL_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static SearchResultCache installed;
+
+    private final MemoryTier mMemory;
+    @Nullable
+    private final DiskTier mDisk;
+
+    private final AtomicInteger mMemoryHits = new AtomicInteger();
+    private final AtomicInteger mDiskHits = new AtomicInteger();
+    private final AtomicInteger mMisses = new AtomicInteger();
+    private final AtomicLong mDiskLoadNanos = new AtomicLong();
+    private final AtomicLong mMaxDiskLoadNanos = new AtomicLong();
+    private final AtomicInteger mDiskLoads = new AtomicInteger();
+
+    @VisibleForTesting
+    SearchResultCache(@NonNull MemoryTier memory, @Nullable DiskTier disk) {
+        mMemory = memory;
+        mDisk = disk;
+    }
+
+    public static synchronized void install(@NonNull File cacheDir) {
+        if (installed == null) {
+            installed = new SearchResultCache(createMemoryTier(), new DiskTier(new File(cacheDir, CACHE_DIRECTORY),
+                    DISK_MAX_ENTRIES, DISK_MAX_BYTES, DISK_TTL_MILLIS, Clock.WALL));
+        }
+    }
+
+    @Nullable
+    public static synchronized SearchResultCache getInstalled() {
+        return installed;
+    }
+
+    /**
+     * A cache with no persistent tier.
+     */
+    @NonNull
+    public static SearchResultCache inMemory() {
+        return new SearchResultCache(createMemoryTier(), null);
+    }
+
+    private static MemoryTier createMemoryTier() {
+        return new MemoryTier(MEMORY_MAX_BYTES, MEMORY_EXPECTED_QUERIES);
+    }
+
+    @Nullable
+    @WorkerThread
+    public List<Recipe> get(@NonNull String query) {
+        String key = keyOf(query);
+        List<Recipe> recipes = mMemory.get(key);
+        if (recipes != null) {
+            mMemoryHits.incrementAndGet();
+            return recipes;
+        }
+
+        if (mDisk != null) {
+            long start = System.nanoTime();
+            recipes = mDisk.get(key);
+            recordDiskLoad(System.nanoTime() - start);
+            if (recipes != null) {
+                mDiskHits.incrementAndGet();
+                mMemory.put(key, recipes);
+                return recipes;
+            }
+        }
+        mMisses.incrementAndGet();
+        return null;
+    }
+
+    @WorkerThread
+    public void put(@NonNull String query, @NonNull List<Recipe> recipes) {
+        String key = keyOf(query);
+        mMemory.put(key, recipes);
+        if (mDisk != null) mDisk.put(key, recipes);
+    }
+
+    @WorkerThread
+    public void clear() {
+        mMemory.clear();
+        if (mDisk != null) mDisk.clear();
+    }
+
+    private void recordDiskLoad(long nanos) {
+        mDiskLoads.incrementAndGet();
+        mDiskLoadNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = mMaxDiskLoadNanos.get())) {
+            if (mMaxDiskLoadNanos.compareAndSet(max, nanos)) break;
+        }
+    }
+
+    @NonNull
+    public Stats getStats() {
+        int diskLoads = mDiskLoads.get();
+        return new Stats(
+                mMemoryHits.get(),
+                mDiskHits.get(),
+                mMisses.get(),
+                mMemory.getEvictions(),
+                mMemory.getRejections(),
+                mDisk == null ? 0 : mDisk.getEvictions(),
+                mDisk == null ? 0 : mDisk.getExpired(),
+                mMemory.getWeight(),
+                diskLoads == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(mDiskLoadNanos.get() / diskLoads),
+                TimeUnit.NANOSECONDS.toMicros(mMaxDiskLoadNanos.get()));
+    }
+
+    static String keyOf(String query) {
+        return QueryCanonicalizer.canonicalize(query);
+    }
+
+    /**
+     * Point-in-time cache counters.
+     */
+    public static final class Stats {
+        public final int memoryHits;
+        public final int diskHits;
+        public final int misses;
+        /** Entries pushed out of memory to make room. */
+        public final int memoryEvictions;
+        /** Entries kept out of memory because what they would have replaced is used more. */
+        public final int admissionRejections;
+        /** Entries deleted from disk to stay within the entry or byte limit. */
+        public final int diskEvictions;
+        /** Entries found on disk past their time to live. */
+        public final int diskExpired;
+        /** Estimated heap taken by the in-memory tier. */
+        public final long memoryBytes;
+        public final long averageDiskLoadMicros;
+        public final long maxDiskLoadMicros;
+
+        Stats(int memoryHits, int diskHits, int misses, int memoryEvictions, int admissionRejections,
+              int diskEvictions, int diskExpired, long memoryBytes, long averageDiskLoadMicros,
+              long maxDiskLoadMicros) {
+            this.memoryHits = memoryHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.memoryEvictions = memoryEvictions;
+            this.admissionRejections = admissionRejections;
+            this.diskEvictions = diskEvictions;
+            this.diskExpired = diskExpired;
+            this.memoryBytes = memoryBytes;
+            this.averageDiskLoadMicros = averageDiskLoadMicros;
+            this.maxDiskLoadMicros = maxDiskLoadMicros;
+        }
+
+        public double hitRatio() {
+            int requests = memoryHits + diskHits + misses;
+            return requests == 0 ? 0 : (double) (memoryHits + diskHits) / requests;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "memoryHits=" + memoryHits +
+                    ", diskHits=" + diskHits +
+                    ", misses=" + misses +
+                    ", memoryEvictions=" + memoryEvictions +
+                    ", admissionRejections=" + admissionRejections +
+                    ", diskEvictions=" + diskEvictions +
+                    ", diskExpired=" + diskExpired +
+                    ", memoryBytes=" + memoryBytes +
+                    ", averageDiskLoadMicros=" + averageDiskLoadMicros +
+                    ", maxDiskLoadMicros=" + maxDiskLoadMicros +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.demo.ingredisearch.repository.filter;
+
+import androidx.annotation.NonNull;
+
+import com.demo.ingredisearch.repository.index.IngredientTerms;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Which search results to show. Immutable; the {@code with...} methods return a changed copy.
+ */
+public final class RecipeFilter {
+
+    public static final int ANY_INGREDIENT_COUNT = Integer.MAX_VALUE;
+
+    public static final RecipeFilter NONE = new RecipeFilter(false, ANY_INGREDIENT_COUNT, Collections.emptySet());
+
+    private final boolean mImageRequired;
+    private final int mMaxIngredients;
+    private final Set<String> mExcludedTerms;
+
+    private RecipeFilter(boolean imageRequired, int maxIngredients, Set<String> excludedTerms) {
+        mImageRequired = imageRequired;
+        mMaxIngredients = maxIngredients;
+        mExcludedTerms = excludedTerms;
+    }
+
+    public boolean isImageRequired() {
+        return mImageRequired;
+    }
+
+    public int getMaxIngredients() {
+        return mMaxIngredients;
+    }
+
+    /**
+     * @return index terms ("tomato") of the excluded ingredients
+     */
+    @NonNull
+    public Set<String> getExcludedTerms() {
+        return mExcludedTerms;
+    }
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+
+    @NonNull
+    public RecipeFilter withImageRequired(boolean required) {
+        return new RecipeFilter(required, mMaxIngredients, mExcludedTerms);
+    }
+
+    /**
+     * @param max {@link #ANY_INGREDIENT_COUNT} to drop the limit
+     */
+    @NonNull
+    public RecipeFilter withMaxIngredients(int max) {
+        if (max < 0) throw new IllegalArgumentException("Negative ingredient count: " + max);
+        return new RecipeFilter(mImageRequired, max, mExcludedTerms);
+    }
+
+    /**
+     * Drops recipes with an ingredient matching {@code ingredient}, which is read like a search
+     * query: "Tomatoes" excludes "2 ripe tomatoes".
+     */
+    @NonNull
+    public RecipeFilter withoutIngredient(@NonNull String ingredient) {
+        Set<String> excluded = new LinkedHashSet<>(mExcludedTerms);
+        excluded.addAll(IngredientTerms.of(ingredient));
+        return new RecipeFilter(mImageRequired, mMaxIngredients, Collections.unmodifiableSet(excluded));
+    }
+
+    /**
+     * @return whether every recipe this filter lets through also gets through {@code other}
+     */
+    public boolean isNarrowerThan(@NonNull RecipeFilter other) {
+        return (mImageRequired || !other.mImageRequired)
+                && mMaxIngredients <= other.mMaxIngredients
+                && mExcludedTerms.containsAll(other.mExcludedTerms);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecipeFilter filter = (RecipeFilter) o;
+        return mImageRequired == filter.mImageRequired &&
+                mMaxIngredients == filter.mMaxIngredients &&
+                mExcludedTerms.equals(filter.mExcludedTerms);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mImageRequired, mMaxIngredients, mExcludedTerms);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "RecipeFilter{" +
+                "imageRequired=" + mImageRequired +
+                ", maxIngredients=" + mMaxIngredients +
+                ", excludedTerms=" + mExcludedTerms +
+                '}';
+    }
+}
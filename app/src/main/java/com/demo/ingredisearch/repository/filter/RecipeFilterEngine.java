@@ -0,0 +1,360 @@
+package com.demo.ingredisearch.repository.filter;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+import com.demo.ingredisearch.repository.index.IngredientTerms;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sorts and filters a list of search results on a background executor and posts what to show to
+ * {@link #getResults()}.
+ * <p>
+ * Everything the sorts and filters look at is worked out once per list and kept: ranks, collation
+ * keys of the titles, whether there is an image, ingredient counts, and for each excluded
+ * ingredient the rows that contain it. Each sort order is computed once and kept too. A filter
+ * change then costs one pass over the kept order, and a filter that only narrows the one shown
+ * (another excluded ingredient, a lower ingredient limit) only re-checks the rows already shown.
+ * <p>
+ * Setting a new list starts over; results are views over it, so rows are only read as they are
+ * shown. Unsorted and unfiltered, the results are the list itself.
+ * <p>
+ * A recipe that came without its ingredient list can't be shown to pass an ingredient filter, so
+ * any ingredient limit or excluded ingredient hides it.
+ */
+public class RecipeFilterEngine {
+
+    public enum Sort {
+        /** As the list was given, e.g. the server's order */
+        RELEVANCE,
+        /** Highest social rank first */
+        RANK,
+        /** By title, in the collation order of the locale */
+        TITLE
+    }
+
+    private final Executor mExecutor;
+    private final Collator mCollator;
+    private final MutableLiveData<List<Recipe>> mResults = new MutableLiveData<>();
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    private volatile List<Recipe> mRecipes = Collections.emptyList();
+    private volatile Sort mSort = Sort.RELEVANCE;
+    private volatile RecipeFilter mFilter = RecipeFilter.NONE;
+
+    // Only used on the executor, under the lock
+    private Columns mColumns;
+    private Sort mShownSort;
+    private RecipeFilter mShownFilter;
+    private int[] mShownRows;
+    private int mFullPasses;
+    private int mNarrowingPasses;
+
+    public RecipeFilterEngine(@NonNull Executor executor) {
+        this(executor, Locale.getDefault());
+    }
+
+    public RecipeFilterEngine(@NonNull Executor executor, @NonNull Locale locale) {
+        mExecutor = executor;
+        mCollator = Collator.getInstance(locale);
+        // "apple" sorts with "Apple", but an accented letter still after the plain one
+        mCollator.setStrength(Collator.SECONDARY);
+    }
+
+    public LiveData<List<Recipe>> getResults() {
+        return mResults;
+    }
+
+    public void setRecipes(@NonNull List<Recipe> recipes) {
+        mRecipes = recipes;
+        refresh();
+    }
+
+    @NonNull
+    public Sort getSort() {
+        return mSort;
+    }
+
+    public void setSort(@NonNull Sort sort) {
+        mSort = sort;
+        refresh();
+    }
+
+    @NonNull
+    public RecipeFilter getFilter() {
+        return mFilter;
+    }
+
+    public void setFilter(@NonNull RecipeFilter filter) {
+        mFilter = filter;
+        refresh();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(mColumns == null ? 0 : mColumns.mOrderings.size(), mFullPasses, mNarrowingPasses);
+    }
+
+    private void refresh() {
+        int generation = mGeneration.incrementAndGet();
+        mExecutor.execute(() -> apply(generation));
+    }
+
+    private synchronized void apply(int generation) {
+        // A newer change is queued and will do the work
+        if (generation != mGeneration.get()) return;
+
+        List<Recipe> recipes = mRecipes;
+        Sort sort = mSort;
+        RecipeFilter filter = mFilter;
+        if (mColumns == null || mColumns.mRecipes != recipes) {
+            mColumns = new Columns(recipes, mCollator);
+            mShownRows = null;
+        }
+
+        int[] rows;
+        if (mShownRows != null && sort == mShownSort && filter.isNarrowerThan(mShownFilter)) {
+            mNarrowingPasses++;
+            rows = mColumns.filter(mShownRows, filter);
+        } else {
+            mFullPasses++;
+            rows = mColumns.filter(mColumns.ordering(sort), filter);
+        }
+        mShownSort = sort;
+        mShownFilter = filter;
+        mShownRows = rows;
+
+        if (generation != mGeneration.get()) return;
+        // Shown as given, the list itself goes out, e.g. a RecipeStore the adapter can diff by column
+        mResults.postValue(rows == mColumns.mOrderings.get(Sort.RELEVANCE) ? recipes : new Rows(recipes, rows));
+    }
+
+    public static final class Stats {
+        /** Sort orders computed for the current list */
+        public final int orderings;
+        /** Filter passes over a whole sort order */
+        public final int fullPasses;
+        /** Filter passes over the rows shown before only */
+        public final int narrowingPasses;
+
+        Stats(int orderings, int fullPasses, int narrowingPasses) {
+            this.orderings = orderings;
+            this.fullPasses = fullPasses;
+            this.narrowingPasses = narrowingPasses;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{orderings=" + orderings + ", fullPasses=" + fullPasses
+                    + ", narrowingPasses=" + narrowingPasses + '}';
+        }
+    }
+
+    /**
+     * What the sorts and filters need from one list, each column worked out the first time it is
+     * needed.
+     */
+    private static final class Columns {
+        // Above any limit, so a row whose ingredients aren't known never passes one
+        private static final int UNKNOWN_COUNT = Integer.MAX_VALUE;
+
+        final List<Recipe> mRecipes;
+        private final RecipeStore mStore;
+        private final Collator mCollator;
+        final Map<Sort, int[]> mOrderings = new EnumMap<>(Sort.class);
+
+        private float[] mRanks;
+        private CollationKey[] mTitleKeys;
+        private BitSet mHasImage;
+        private int[] mIngredientCounts;
+        private final Map<String, BitSet> mRowsWithTerm = new HashMap<>();
+        // Ingredient lines repeat across recipes; split each one once
+        private final Map<String, Set<String>> mLineTerms = new HashMap<>();
+
+        Columns(List<Recipe> recipes, Collator collator) {
+            mRecipes = recipes;
+            mStore = recipes instanceof RecipeStore ? (RecipeStore) recipes : null;
+            mCollator = collator;
+        }
+
+        int[] ordering(Sort sort) {
+            int[] rows = mOrderings.get(sort);
+            if (rows != null) return rows;
+
+            int size = mRecipes.size();
+            if (sort == Sort.RELEVANCE) {
+                rows = new int[size];
+                for (int row = 0; row < size; row++) rows[row] = row;
+            } else {
+                Integer[] order = new Integer[size];
+                for (int row = 0; row < size; row++) order[row] = row;
+                if (sort == Sort.RANK) {
+                    float[] ranks = ranks();
+                    Arrays.sort(order, (a, b) -> Float.compare(ranks[b], ranks[a]));
+                } else {
+                    CollationKey[] keys = titleKeys();
+                    Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+                }
+                rows = new int[size];
+                for (int i = 0; i < size; i++) rows[i] = order[i];
+            }
+            mOrderings.put(sort, rows);
+            return rows;
+        }
+
+        /**
+         * @return the rows of {@code candidates} that pass, in the same order
+         */
+        int[] filter(int[] candidates, RecipeFilter filter) {
+            if (filter.isEmpty()) return candidates;
+
+            BitSet hasImage = filter.isImageRequired() ? hasImage() : null;
+            int[] counts = filter.getMaxIngredients() != RecipeFilter.ANY_INGREDIENT_COUNT ? ingredientCounts() : null;
+            BitSet excluded = new BitSet(mRecipes.size());
+            for (String term : filter.getExcludedTerms()) excluded.or(rowsWithTerm(term));
+
+            int[] rows = new int[candidates.length];
+            int count = 0;
+            for (int row : candidates) {
+                if (hasImage != null && !hasImage.get(row)) continue;
+                if (counts != null && counts[row] > filter.getMaxIngredients()) continue;
+                if (excluded.get(row)) continue;
+                rows[count++] = row;
+            }
+            return Arrays.copyOf(rows, count);
+        }
+
+        private float[] ranks() {
+            if (mRanks == null) {
+                mRanks = new float[mRecipes.size()];
+                for (int row = 0; row < mRanks.length; row++) {
+                    mRanks[row] = mStore != null ? mStore.getSocialRank(row) : mRecipes.get(row).getSocial_rank();
+                }
+            }
+            return mRanks;
+        }
+
+        private CollationKey[] titleKeys() {
+            if (mTitleKeys == null) {
+                mTitleKeys = new CollationKey[mRecipes.size()];
+                for (int row = 0; row < mTitleKeys.length; row++) {
+                    String title = mStore != null ? mStore.getTitle(row) : mRecipes.get(row).getTitle();
+                    mTitleKeys[row] = mCollator.getCollationKey(title);
+                }
+            }
+            return mTitleKeys;
+        }
+
+        private BitSet hasImage() {
+            if (mHasImage == null) {
+                mHasImage = new BitSet(mRecipes.size());
+                for (int row = 0; row < mRecipes.size(); row++) {
+                    boolean image = mStore != null ? mStore.hasImageUrl(row) : mRecipes.get(row).getImageUrl() != null;
+                    if (image) mHasImage.set(row);
+                }
+            }
+            return mHasImage;
+        }
+
+        private int[] ingredientCounts() {
+            if (mIngredientCounts == null) {
+                mIngredientCounts = new int[mRecipes.size()];
+                for (int row = 0; row < mIngredientCounts.length; row++) {
+                    if (mStore != null) {
+                        mIngredientCounts[row] = mStore.hasIngredients(row)
+                                ? mStore.getIngredientCount(row) : UNKNOWN_COUNT;
+                    } else {
+                        String[] ingredients = mRecipes.get(row).getIngredients();
+                        mIngredientCounts[row] = ingredients == null ? UNKNOWN_COUNT : ingredients.length;
+                    }
+                }
+            }
+            return mIngredientCounts;
+        }
+
+        /**
+         * Also the rows whose ingredients aren't known, as they may well have it.
+         */
+        private BitSet rowsWithTerm(String term) {
+            BitSet rows = mRowsWithTerm.get(term);
+            if (rows != null) return rows;
+
+            rows = new BitSet(mRecipes.size());
+            for (int row = 0; row < mRecipes.size(); row++) {
+                if (mStore != null) {
+                    if (!mStore.hasIngredients(row)) {
+                        rows.set(row);
+                        continue;
+                    }
+                    for (int line = 0, count = mStore.getIngredientCount(row); line < count; line++) {
+                        if (lineHasTerm(mStore.getIngredient(row, line), term)) {
+                            rows.set(row);
+                            break;
+                        }
+                    }
+                    continue;
+                }
+                String[] ingredients = mRecipes.get(row).getIngredients();
+                if (ingredients == null) {
+                    rows.set(row);
+                    continue;
+                }
+                for (String line : ingredients) {
+                    if (lineHasTerm(line, term)) {
+                        rows.set(row);
+                        break;
+                    }
+                }
+            }
+            mRowsWithTerm.put(term, rows);
+            return rows;
+        }
+
+        private boolean lineHasTerm(String line, String term) {
+            Set<String> terms = mLineTerms.get(line);
+            if (terms == null) {
+                terms = IngredientTerms.of(line);
+                mLineTerms.put(line, terms);
+            }
+            return terms.contains(term);
+        }
+    }
+
+    private static final class Rows extends AbstractList<Recipe> implements RandomAccess {
+        private final List<Recipe> mRecipes;
+        private final int[] mRows;
+
+        Rows(List<Recipe> recipes, int[] rows) {
+            mRecipes = recipes;
+            mRows = rows;
+        }
+
+        @Override
+        public Recipe get(int index) {
+            return mRecipes.get(mRows[index]);
+        }
+
+        @Override
+        public int size() {
+            return mRows.length;
+        }
+    }
+}
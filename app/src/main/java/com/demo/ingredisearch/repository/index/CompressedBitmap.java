@@ -0,0 +1,481 @@
+package com.demo.ingredisearch.repository.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Set of non-negative ints split, like a roaring bitmap, into chunks of 65536 values by their
+ * high 16 bits. A chunk holding few values stores them as a sorted array of their low 16 bits; a
+ * chunk holding more than {@value #ARRAY_MAX} stores a 65536-bit bitmap, which is smaller by then.
+ * Set operations work chunk by chunk and pick the cheapest way for each pair of chunk kinds, so
+ * intersecting two dense sets costs a few thousand word ANDs however many values they hold.
+ * <p>
+ * Results of {@link #and}, {@link #or} and {@link #andNot} share nothing with their operands.
+ * Not thread-safe.
+ */
+final class CompressedBitmap {
+
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] mKeys = new char[0];
+    private Container[] mContainers = new Container[0];
+    private int mSize;
+
+    void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new ArrayContainer());
+        }
+        mContainers[index] = mContainers[index].add((char) value);
+    }
+
+    boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && mContainers[index].contains((char) value);
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < mSize; i++) {
+            cardinality += mContainers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return the highest value, or -1 if there is none
+     */
+    int last() {
+        if (mSize == 0) return -1;
+        int[] values = new int[mContainers[mSize - 1].cardinality()];
+        mContainers[mSize - 1].fill(mKeys[mSize - 1] << 16, values, 0);
+        return values[values.length - 1];
+    }
+
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * @return the values, ascending
+     */
+    int[] toArray() {
+        int[] values = new int[cardinality()];
+        int offset = 0;
+        for (int i = 0; i < mSize; i++) {
+            offset = mContainers[i].fill(mKeys[i] << 16, values, offset);
+        }
+        return values;
+    }
+
+    static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0, j = 0; i < a.mSize && j < b.mSize; ) {
+            if (a.mKeys[i] < b.mKeys[j]) {
+                i++;
+            } else if (a.mKeys[i] > b.mKeys[j]) {
+                j++;
+            } else {
+                result.append(a.mKeys[i], a.mContainers[i++].and(b.mContainers[j++]));
+            }
+        }
+        return result;
+    }
+
+    static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.mSize || j < b.mSize) {
+            if (j == b.mSize || (i < a.mSize && a.mKeys[i] < b.mKeys[j])) {
+                result.append(a.mKeys[i], a.mContainers[i++].copy());
+            } else if (i == a.mSize || a.mKeys[i] > b.mKeys[j]) {
+                result.append(b.mKeys[j], b.mContainers[j++].copy());
+            } else {
+                result.append(a.mKeys[i], a.mContainers[i++].or(b.mContainers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the values of {@code a} that are not in {@code b}
+     */
+    static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0, j = 0; i < a.mSize; i++) {
+            while (j < b.mSize && b.mKeys[j] < a.mKeys[i]) j++;
+            Container container = j < b.mSize && b.mKeys[j] == a.mKeys[i]
+                    ? a.mContainers[i].andNot(b.mContainers[j]) : a.mContainers[i].copy();
+            result.append(a.mKeys[i], container);
+        }
+        return result;
+    }
+
+    /**
+     * Approximate memory held by the values.
+     */
+    long getSizeInBytes() {
+        long bytes = mKeys.length * 2L + mContainers.length * 4L;
+        for (int i = 0; i < mSize; i++) {
+            bytes += mContainers[i].getSizeInBytes();
+        }
+        return bytes;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeShort(mSize);
+        for (int i = 0; i < mSize; i++) {
+            out.writeChar(mKeys[i]);
+            mContainers[i].writeTo(out);
+        }
+    }
+
+    static CompressedBitmap readFrom(DataInputStream in) throws IOException {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int size = in.readUnsignedShort();
+        for (int i = 0; i < size; i++) {
+            char key = in.readChar();
+            if (i > 0 && key <= bitmap.mKeys[i - 1]) throw new IOException("Corrupt bitmap");
+            bitmap.append(key, readContainer(in));
+        }
+        return bitmap;
+    }
+
+    private int indexOf(char key) {
+        // Values mostly grow, so the last chunk is the likeliest
+        if (mSize > 0 && mKeys[mSize - 1] == key) return mSize - 1;
+        return Arrays.binarySearch(mKeys, 0, mSize, key);
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (mSize == mKeys.length) {
+            int capacity = Math.max(4, mSize * 2);
+            mKeys = Arrays.copyOf(mKeys, capacity);
+            mContainers = Arrays.copyOf(mContainers, capacity);
+        }
+        System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+        System.arraycopy(mContainers, index, mContainers, index + 1, mSize - index);
+        mKeys[index] = key;
+        mContainers[index] = container;
+        mSize++;
+    }
+
+    private void append(char key, Container container) {
+        if (container.cardinality() > 0) insert(mSize, key, container);
+    }
+
+    private static Container readContainer(DataInputStream in) throws IOException {
+        int cardinality = in.readUnsignedShort() + 1;
+        if (cardinality <= ARRAY_MAX) {
+            char[] values = new char[cardinality];
+            for (int i = 0; i < cardinality; i++) {
+                values[i] = in.readChar();
+                if (i > 0 && values[i] <= values[i - 1]) throw new IOException("Corrupt bitmap");
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+        long[] words = new long[WORDS];
+        int counted = 0;
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = in.readLong();
+            counted += Long.bitCount(words[i]);
+        }
+        if (counted != cardinality) throw new IOException("Corrupt bitmap");
+        return new BitmapContainer(words, cardinality);
+    }
+
+    /**
+     * The low 16 bits of the values in one chunk.
+     */
+    private abstract static class Container {
+
+        /**
+         * @return this, or a container of another kind holding the values plus {@code value}
+         */
+        abstract Container add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract int fill(int high, int[] values, int offset);
+
+        abstract long getSizeInBytes();
+
+        /**
+         * Cardinality minus one first, which fits 16 bits and tells the reader the kind.
+         */
+        abstract void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] mValues;
+        private int mCardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            mValues = values;
+            mCardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            // Values mostly come in ascending order, making this an append
+            int index = mCardinality > 0 && mValues[mCardinality - 1] < value
+                    ? -mCardinality - 1 : Arrays.binarySearch(mValues, 0, mCardinality, value);
+            if (index >= 0) return this;
+            if (mCardinality == ARRAY_MAX) return toBitmap().add(value);
+
+            index = -index - 1;
+            if (mCardinality == mValues.length) {
+                mValues = Arrays.copyOf(mValues, Math.min(ARRAY_MAX, Math.max(4, mCardinality * 2)));
+            }
+            System.arraycopy(mValues, index, mValues, index + 1, mCardinality - index);
+            mValues[index] = value;
+            mCardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(mValues, 0, mCardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return mCardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] values = new char[mCardinality];
+            int cardinality = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0, j = 0; i < mCardinality && j < array.mCardinality; ) {
+                    if (mValues[i] < array.mValues[j]) {
+                        i++;
+                    } else if (mValues[i] > array.mValues[j]) {
+                        j++;
+                    } else {
+                        values[cardinality++] = mValues[i++];
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < mCardinality; i++) {
+                    if (other.contains(mValues[i])) values[cardinality++] = mValues[i];
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) return other.or(this);
+
+            ArrayContainer array = (ArrayContainer) other;
+            char[] values = new char[mCardinality + array.mCardinality];
+            int cardinality = 0;
+            int i = 0;
+            int j = 0;
+            while (i < mCardinality || j < array.mCardinality) {
+                if (j == array.mCardinality || (i < mCardinality && mValues[i] < array.mValues[j])) {
+                    values[cardinality++] = mValues[i++];
+                } else if (i == mCardinality || mValues[i] > array.mValues[j]) {
+                    values[cardinality++] = array.mValues[j++];
+                } else {
+                    values[cardinality++] = mValues[i++];
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(values, cardinality);
+            return cardinality > ARRAY_MAX ? union.toBitmap() : union;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] values = new char[mCardinality];
+            int cardinality = 0;
+            for (int i = 0; i < mCardinality; i++) {
+                if (!other.contains(mValues[i])) values[cardinality++] = mValues[i];
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(mValues, mCardinality), mCardinality);
+        }
+
+        @Override
+        int fill(int high, int[] values, int offset) {
+            for (int i = 0; i < mCardinality; i++) {
+                values[offset++] = high | mValues[i];
+            }
+            return offset;
+        }
+
+        @Override
+        long getSizeInBytes() {
+            return 16 + mValues.length * 2L;
+        }
+
+        @Override
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(mCardinality - 1);
+            for (int i = 0; i < mCardinality; i++) {
+                out.writeChar(mValues[i]);
+            }
+        }
+
+        BitmapContainer toBitmap() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < mCardinality; i++) {
+                words[mValues[i] >>> 6] |= 1L << mValues[i];
+            }
+            return new BitmapContainer(words, mCardinality);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] mWords;
+        private int mCardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            mWords = words;
+            mCardinality = cardinality;
+        }
+
+        /**
+         * @return the values as a bitmap, or as an array if there are few enough
+         */
+        private static Container of(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > ARRAY_MAX) return new BitmapContainer(words, cardinality);
+
+            char[] values = new char[cardinality];
+            int index = 0;
+            for (int i = 0; i < WORDS; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    values[index++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((mWords[value >>> 6] & bit) == 0) {
+                mWords[value >>> 6] |= bit;
+                mCardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (mWords[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return mCardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) return other.and(this);
+
+            long[] words = new long[WORDS];
+            long[] otherWords = ((BitmapContainer) other).mWords;
+            for (int i = 0; i < WORDS; i++) {
+                words[i] = mWords[i] & otherWords[i];
+            }
+            return of(words);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] words = Arrays.copyOf(mWords, WORDS);
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.mCardinality; i++) {
+                    words[array.mValues[i] >>> 6] |= 1L << array.mValues[i];
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).mWords;
+                for (int i = 0; i < WORDS; i++) {
+                    words[i] |= otherWords[i];
+                }
+            }
+            return of(words);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] words = Arrays.copyOf(mWords, WORDS);
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.mCardinality; i++) {
+                    words[array.mValues[i] >>> 6] &= ~(1L << array.mValues[i]);
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).mWords;
+                for (int i = 0; i < WORDS; i++) {
+                    words[i] &= ~otherWords[i];
+                }
+            }
+            return of(words);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(Arrays.copyOf(mWords, WORDS), mCardinality);
+        }
+
+        @Override
+        int fill(int high, int[] values, int offset) {
+            for (int i = 0; i < WORDS; i++) {
+                for (long word = mWords[i]; word != 0; word &= word - 1) {
+                    values[offset++] = high | (i * 64 + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return offset;
+        }
+
+        @Override
+        long getSizeInBytes() {
+            return 16 + WORDS * 8L;
+        }
+
+        @Override
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(mCardinality - 1);
+            for (long word : mWords) {
+                out.writeLong(word);
+            }
+        }
+    }
+}
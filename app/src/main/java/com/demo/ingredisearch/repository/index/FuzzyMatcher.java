@@ -0,0 +1,209 @@
+package com.demo.ingredisearch.repository.index;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the known terms closest to a misspelled one ("brocoli" to "broccoli").
+ * <p>
+ * Candidates come from an index of letter trigrams: a term within edit distance {@code d} of a
+ * word of length {@code m} shares at least {@code m - 4d} of the word's trigrams (an edit breaks
+ * at most three, a swap of adjacent letters four), and its length differs by at most {@code d}.
+ * Candidates sharing the most trigrams are then checked with an edit distance that gives up as
+ * soon as it exceeds {@code d}, until the time budget runs out. Words of fewer than
+ * {@value #MIN_LENGTH} letters are too short to correct reliably.
+ */
+public final class FuzzyMatcher {
+
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000;
+
+    private static final int MIN_LENGTH = 4;
+    private static final int LONG_WORD = 6;
+    private static final char PAD = '$';
+
+    private final String[] mTerms;
+    private final int[] mWeights;
+    private final Map<String, int[]> mGrams;
+
+    // Scratch space for counting shared trigrams; matches are serialized
+    private final int[] mShared;
+    private final int[] mTouched;
+
+    private FuzzyMatcher(String[] terms, int[] weights, Map<String, int[]> grams) {
+        mTerms = terms;
+        mWeights = weights;
+        mGrams = grams;
+        mShared = new int[terms.length];
+        mTouched = new int[terms.length];
+    }
+
+    /**
+     * @param weights how common each term is; of two equally close terms the more common wins
+     */
+    @NonNull
+    public static FuzzyMatcher build(@NonNull Map<String, Integer> weights) {
+        String[] terms = weights.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] termWeights = new int[terms.length];
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int id = 0; id < terms.length; id++) {
+            termWeights[id] = weights.get(terms[id]);
+            for (String gram : grams(terms[id])) {
+                List<Integer> ids = postings.get(gram);
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                    postings.put(gram, ids);
+                }
+                // A gram repeated in one term is listed once
+                if (ids.isEmpty() || ids.get(ids.size() - 1) != id) ids.add(id);
+            }
+        }
+
+        Map<String, int[]> grams = new HashMap<>(postings.size() * 2);
+        for (Map.Entry<String, List<Integer>> gram : postings.entrySet()) {
+            List<Integer> ids = gram.getValue();
+            int[] array = new int[ids.size()];
+            for (int i = 0; i < array.length; i++) array[i] = ids.get(i);
+            grams.put(gram.getKey(), array);
+        }
+        return new FuzzyMatcher(terms, termWeights, grams);
+    }
+
+    private static List<String> grams(String term) {
+        String padded = PAD + term + PAD;
+        List<String> grams = new ArrayList<>(term.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * How far off a word of the given length may be: one edit for short words, two for longer.
+     */
+    static int maxDistance(int length) {
+        if (length < MIN_LENGTH) return 0;
+        return length < LONG_WORD ? 1 : 2;
+    }
+
+    public int size() {
+        return mTerms.length;
+    }
+
+    /**
+     * @return the closest term to {@code word} found within the budget, the more common one of
+     * equally close terms; or null if there is none within {@link #maxDistance}
+     */
+    @Nullable
+    public String bestMatch(@NonNull String word, long budgetNanos) {
+        List<String> matches = matches(word, 1, budgetNanos);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * @return up to {@code limit} terms within {@link #maxDistance} of {@code word}, closest and
+     * then most common first
+     */
+    @NonNull
+    public synchronized List<String> matches(@NonNull String word, int limit, long budgetNanos) {
+        int maxDistance = maxDistance(word.length());
+        if (maxDistance == 0 || limit <= 0) return Collections.emptyList();
+        long deadline = System.nanoTime() + budgetNanos;
+
+        Set<String> grams = new HashSet<>(grams(word));
+        int touched = 0;
+        for (String gram : grams) {
+            int[] ids = mGrams.get(gram);
+            if (ids == null) continue;
+            for (int id : ids) {
+                if (mShared[id]++ == 0) mTouched[touched++] = id;
+            }
+        }
+
+        // Bucket candidates by trigrams shared, most first, so the budget cuts the least likely
+        int minShared = Math.max(1, grams.size() - 4 * maxDistance);
+        List<List<Integer>> byShared = new ArrayList<>();
+        for (int i = 0; i < touched; i++) {
+            int id = mTouched[i];
+            int shared = mShared[id];
+            mShared[id] = 0;
+            if (shared < minShared || Math.abs(mTerms[id].length() - word.length()) > maxDistance) continue;
+            while (byShared.size() <= shared) byShared.add(null);
+            if (byShared.get(shared) == null) byShared.set(shared, new ArrayList<>());
+            byShared.get(shared).add(id);
+        }
+
+        List<long[]> found = new ArrayList<>();
+        verify:
+        for (int shared = byShared.size() - 1; shared >= minShared; shared--) {
+            List<Integer> ids = byShared.get(shared);
+            if (ids == null) continue;
+            for (int id : ids) {
+                if (System.nanoTime() > deadline) break verify;
+                int distance = distance(word, mTerms[id], maxDistance);
+                if (distance <= maxDistance) found.add(new long[]{distance, mWeights[id], id});
+            }
+        }
+
+        Collections.sort(found, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[2], b[2]));
+        List<String> matches = new ArrayList<>(Math.min(limit, found.size()));
+        for (int i = 0; i < found.size() && i < limit; i++) {
+            matches.add(mTerms[(int) found.get(i)[2]]);
+        }
+        return matches;
+    }
+
+    /**
+     * Edit distance between {@code a} and {@code b}, counting a swap of two adjacent letters as
+     * one edit ("onoin"), or {@code max + 1} as soon as it is known to exceed {@code max}. Only
+     * the diagonal band of width {@code 2 * max + 1} is filled.
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+
+        int outside = max + 1;
+        int[] beforePrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = Math.min(j, outside);
+
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            current[0] = Math.min(i, outside);
+            if (from > 1) current[from - 1] = outside;
+            int rowMin = current[0];
+            char c = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && c == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) current[to + 1] = outside;
+            if (rowMin > max) return outside;
+
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+}
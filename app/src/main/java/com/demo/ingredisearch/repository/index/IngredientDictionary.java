@@ -0,0 +1,52 @@
+package com.demo.ingredisearch.repository.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers normalized ingredient terms densely in the order they are first seen, so per-term data
+ * can live in arrays indexed by term ID. Not thread-safe.
+ */
+final class IngredientDictionary {
+
+    static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> mIds = new HashMap<>();
+    private final List<String> mTerms = new ArrayList<>();
+
+    /**
+     * @return the ID of {@code term}, or {@link #UNKNOWN}
+     */
+    int idOf(String term) {
+        Integer id = mIds.get(term);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * @return the ID of {@code term}, assigning the next one if it is new
+     */
+    int add(String term) {
+        Integer id = mIds.get(term);
+        if (id == null) {
+            id = mTerms.size();
+            mIds.put(term, id);
+            mTerms.add(term);
+        }
+        return id;
+    }
+
+    String termOf(int id) {
+        return mTerms.get(id);
+    }
+
+    int size() {
+        return mTerms.size();
+    }
+
+    void clear() {
+        mIds.clear();
+        mTerms.clear();
+    }
+}
@@ -0,0 +1,590 @@
+package com.demo.ingredisearch.repository.index;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.demo.ingredisearch.models.IngredientPool;
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.util.QueryCanonicalizer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from ingredient term to the recipes that mention it, so that ingredient searches
+ * can be answered without the network.
+ * <p>
+ * Recipes are added as they pass through the app; each gets a dense document number. Every term
+ * of its ingredients and title gets an ID from an {@link IngredientDictionary} and a
+ * {@link CompressedBitmap} of the documents that contain it, so queries are bitmap operations
+ * rather than string scans. A query is the same comma-separated ingredient list the API takes:
+ * with {@link Match#ALL} a recipe must match every ingredient, with {@link Match#ANY} at least
+ * one, and in either case none prefixed with {@code -} ("eggs, -milk"). The words of a multi-word
+ * ingredient must all match.
+ * <p>
+ * Terms are also offered as completions by {@link #suggest}, from an {@link IngredientTrie}
+ * weighted by how many recipes use each term. The trie is saved next to the index and is small,
+ * so suggestions are available at startup long before the index itself is needed. Misspelled
+ * words are matched against the same terms by a {@link FuzzyMatcher}, see {@link #correct}.
+ * Both are rebuilt on an executor after recipes are added and swapped in when done; until then
+ * suggestions come from the previous ones rather than waiting.
+ * <p>
+ * A persistent index reads its file on first use and writes it back on {@link #save()}; neither
+ * should happen on the main thread. Call {@link #install(File)} once at startup; without it
+ * repositories keep an index in memory only.
+ */
+public class IngredientIndex {
+
+    public enum Match {
+        ALL,
+        ANY
+    }
+
+    private static final String INDEX_FILE = "ingredients.idx";
+    private static final int FORMAT_VERSION = 2;
+    private static final String TRIE_SUFFIX = ".trie";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String EXCLUDE = "-";
+    private static final Pattern WORD = Pattern.compile("\\p{L}+");
+
+    private static IngredientIndex installed;
+
+    // Rebuilds suggestions for indexes not given an executor of their own
+    private static final Executor REBUILDS = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "IngredientIndex");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Nullable
+    private final File mFile;
+    private final Executor mRebuildExecutor;
+    private final List<Recipe> mRecipes = new ArrayList<>();
+    private final Map<String, Integer> mDocs = new HashMap<>();
+    private final IngredientDictionary mDictionary = new IngredientDictionary();
+    // Indexed by term ID
+    private final List<CompressedBitmap> mBitmaps = new ArrayList<>();
+    private boolean mLoaded;
+    private boolean mDirty;
+    // Counts changes to the terms, so an older rebuild never replaces a newer one
+    private int mTermsVersion;
+    private boolean mRebuildScheduled;
+    private int mSuggesterVersion;
+    // Read without the lock
+    private volatile Suggester mSuggester;
+
+    /**
+     * An index kept in memory only.
+     */
+    public IngredientIndex() {
+        this(null);
+    }
+
+    /**
+     * An index saved to {@code file}, starting from what it holds.
+     */
+    public IngredientIndex(@Nullable File file) {
+        this(file, REBUILDS);
+    }
+
+    /**
+     * @param rebuildExecutor rebuilds the suggestions after recipes are added
+     */
+    public IngredientIndex(@Nullable File file, @NonNull Executor rebuildExecutor) {
+        mFile = file;
+        mLoaded = file == null;
+        mRebuildExecutor = rebuildExecutor;
+    }
+
+    public static synchronized void install(@NonNull File cacheDir) {
+        if (installed == null) {
+            installed = new IngredientIndex(new File(cacheDir, INDEX_FILE));
+        }
+    }
+
+    @Nullable
+    public static synchronized IngredientIndex getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Adds a recipe, or refreshes it if it was added before. A recipe only gains detail (search
+     * results come without ingredients, details with), so terms it had are kept and a copy
+     * without ingredients doesn't replace one with.
+     */
+    @WorkerThread
+    public void add(@NonNull Recipe recipe) {
+        synchronized (this) {
+            addRecipe(recipe);
+        }
+        requestRebuild();
+    }
+
+    @WorkerThread
+    public void addAll(@NonNull Collection<Recipe> recipes) {
+        synchronized (this) {
+            for (Recipe recipe : recipes) {
+                addRecipe(recipe);
+            }
+        }
+        requestRebuild();
+    }
+
+    private void addRecipe(Recipe recipe) {
+        ensureLoaded();
+        Integer doc = mDocs.get(recipe.getRecipeId());
+        if (doc == null) {
+            doc = mRecipes.size();
+            mRecipes.add(recipe);
+            mDocs.put(recipe.getRecipeId(), doc);
+        } else if (recipe.getIngredients() != null || mRecipes.get(doc).getIngredients() == null) {
+            mRecipes.set(doc, recipe);
+        }
+
+        for (String term : termsOf(recipe)) {
+            int id = mDictionary.add(term);
+            if (id == mBitmaps.size()) mBitmaps.add(new CompressedBitmap());
+            mBitmaps.get(id).add(doc);
+        }
+        mDirty = true;
+        mTermsVersion++;
+    }
+
+    private static Set<String> termsOf(Recipe recipe) {
+        Set<String> terms = IngredientTerms.of(recipe.getTitle());
+        String[] ingredients = recipe.getIngredients();
+        if (ingredients != null) {
+            for (String ingredient : ingredients) {
+                terms.addAll(IngredientTerms.of(ingredient));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * @return matching recipes, in the order they were first added
+     */
+    @NonNull
+    @WorkerThread
+    public synchronized List<Recipe> search(@NonNull String query, @NonNull Match match) {
+        int[] docs = match(query, match);
+        List<Recipe> recipes = new ArrayList<>(docs.length);
+        for (int doc : docs) {
+            recipes.add(mRecipes.get(doc));
+        }
+        return recipes;
+    }
+
+    @VisibleForTesting
+    synchronized int[] match(String query, Match match) {
+        ensureLoaded();
+        String canonical = QueryCanonicalizer.canonicalize(query);
+        if (canonical.isEmpty()) return new int[0];
+
+        List<CompressedBitmap> included = new ArrayList<>();
+        CompressedBitmap excluded = null;
+        for (String ingredient : canonical.split(",")) {
+            boolean exclude = ingredient.startsWith(EXCLUDE);
+            Set<String> terms = IngredientTerms.of(ingredient);
+            if (terms.isEmpty()) continue; // only stop words, e.g. "fresh"
+
+            CompressedBitmap docs = matchAll(terms);
+            if (exclude) {
+                excluded = excluded == null ? docs : CompressedBitmap.or(excluded, docs);
+            } else if (match == Match.ALL && docs.isEmpty()) {
+                return new int[0];
+            } else {
+                included.add(docs);
+            }
+        }
+        if (included.isEmpty()) return new int[0];
+
+        CompressedBitmap docs = match == Match.ALL ? and(included) : or(included);
+        if (excluded != null) docs = CompressedBitmap.andNot(docs, excluded);
+        return docs.toArray();
+    }
+
+    private CompressedBitmap matchAll(Set<String> terms) {
+        List<CompressedBitmap> bitmaps = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            int id = mDictionary.idOf(term);
+            if (id == IngredientDictionary.UNKNOWN) return new CompressedBitmap();
+            bitmaps.add(mBitmaps.get(id));
+        }
+        return and(bitmaps);
+    }
+
+    /**
+     * Smallest first, so each step has the least left to intersect.
+     */
+    private static CompressedBitmap and(List<CompressedBitmap> bitmaps) {
+        if (bitmaps.size() == 1) return bitmaps.get(0);
+
+        int[] cardinalities = new int[bitmaps.size()];
+        Integer[] order = new Integer[bitmaps.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            cardinalities[i] = bitmaps.get(i).cardinality();
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(cardinalities[a], cardinalities[b]));
+
+        CompressedBitmap result = bitmaps.get(order[0]);
+        for (int i = 1; i < order.length && !result.isEmpty(); i++) {
+            result = CompressedBitmap.and(result, bitmaps.get(order[i]));
+        }
+        return result;
+    }
+
+    private static CompressedBitmap or(List<CompressedBitmap> bitmaps) {
+        CompressedBitmap result = bitmaps.get(0);
+        for (int i = 1; i < bitmaps.size(); i++) {
+            result = CompressedBitmap.or(result, bitmaps.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Completes the last word of {@code text}, keeping the words before it: "red on" may give
+     * "red onion".
+     *
+     * @return up to {@code limit} completions, those of the most used terms first; if nothing
+     * starts with the word, the known terms closest to it
+     */
+    @NonNull
+    @WorkerThread
+    public List<String> suggest(@NonNull String text, int limit) {
+        // Only leading blanks go: after a trailing one the next word hasn't been started yet
+        String normalized = text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").replaceFirst("^ ", "");
+        int lastSpace = normalized.lastIndexOf(' ');
+        String head = normalized.substring(0, lastSpace + 1);
+        String word = normalized.substring(lastSpace + 1);
+        if (word.isEmpty()) return Collections.emptyList();
+
+        Suggester suggester = getSuggester();
+        IngredientTrie trie = suggester.mTrie;
+        List<String> terms = trie.complete(word, limit);
+        if (terms.isEmpty()) {
+            // "tomatoes" is indexed as "tomato"
+            terms = trie.complete(QueryCanonicalizer.singularize(word), limit);
+        }
+        if (terms.isEmpty()) {
+            terms = suggester.getMatcher().matches(word, limit, FuzzyMatcher.DEFAULT_BUDGET_NANOS);
+        }
+        List<String> suggestions = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            suggestions.add(head + term);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Replaces each word of {@code query} that isn't a known term, but is close to one, with that
+     * term: "brocoli, tomatoe" becomes "broccoli, tomato". Everything else is left as typed.
+     *
+     * @return {@code query} itself if nothing needed correcting
+     */
+    @NonNull
+    @WorkerThread
+    public String correct(@NonNull String query) {
+        Suggester suggester = getSuggester();
+        IngredientTrie trie = suggester.mTrie;
+        FuzzyMatcher matcher = null;
+        StringBuilder corrected = null;
+        int copied = 0;
+        Matcher words = WORD.matcher(query);
+        while (words.find()) {
+            String word = words.group().toLowerCase(Locale.ROOT);
+            if (FuzzyMatcher.maxDistance(word.length()) == 0 || IngredientTerms.of(word).isEmpty()
+                    || trie.weightOf(word) > 0 || trie.weightOf(QueryCanonicalizer.singularize(word)) > 0) {
+                continue;
+            }
+
+            if (matcher == null) matcher = suggester.getMatcher();
+            String match = matcher.bestMatch(word, FuzzyMatcher.DEFAULT_BUDGET_NANOS);
+            if (match == null) continue;
+            if (corrected == null) corrected = new StringBuilder(query.length());
+            corrected.append(query, copied, words.start()).append(match);
+            copied = words.end();
+        }
+        return corrected == null ? query : corrected.append(query, copied, query.length()).toString();
+    }
+
+    private Suggester getSuggester() {
+        Suggester suggester = mSuggester;
+        return suggester != null ? suggester : firstSuggester();
+    }
+
+    /**
+     * The saved trie until the index is loaded, or the index's own terms if it is loaded already.
+     */
+    private synchronized Suggester firstSuggester() {
+        if (mSuggester == null) {
+            mSuggester = new Suggester(mLoaded ? IngredientTrie.build(termWeights()) : loadTrie(), null);
+            mSuggesterVersion = mTermsVersion;
+        }
+        return mSuggester;
+    }
+
+    private void requestRebuild() {
+        synchronized (this) {
+            if (mRebuildScheduled) return;
+            mRebuildScheduled = true;
+        }
+        mRebuildExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Only the term counts are read under the lock; the trie and matcher are built outside it.
+     * Recipes added meanwhile request the next rebuild.
+     */
+    private void rebuild() {
+        Map<String, Integer> weights;
+        int version;
+        synchronized (this) {
+            mRebuildScheduled = false;
+            weights = termWeights();
+            version = mTermsVersion;
+        }
+        Suggester suggester = new Suggester(IngredientTrie.build(weights), FuzzyMatcher.build(weights));
+        synchronized (this) {
+            if (version - mSuggesterVersion > 0 || mSuggester == null) {
+                mSuggester = suggester;
+                mSuggesterVersion = version;
+            }
+        }
+    }
+
+    private Map<String, Integer> termWeights() {
+        Map<String, Integer> weights = new HashMap<>(mDictionary.size() * 2);
+        for (int id = 0; id < mDictionary.size(); id++) {
+            weights.put(mDictionary.termOf(id), mBitmaps.get(id).cardinality());
+        }
+        return weights;
+    }
+
+    private IngredientTrie loadTrie() {
+        File file = trieFile();
+        if (file == null || !file.exists()) return IngredientTrie.EMPTY;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return IngredientTrie.readFrom(in);
+        } catch (IOException | RuntimeException e) {
+            file.delete();
+            return IngredientTrie.EMPTY;
+        }
+    }
+
+    @Nullable
+    private File trieFile() {
+        return mFile == null ? null : new File(mFile.getPath() + TRIE_SUFFIX);
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return mRecipes.size();
+    }
+
+    public synchronized int getTermCount() {
+        ensureLoaded();
+        return mDictionary.size();
+    }
+
+    /**
+     * Approximate memory held by the term bitmaps.
+     */
+    public synchronized long getBitmapBytes() {
+        ensureLoaded();
+        long bytes = 0;
+        for (CompressedBitmap bitmap : mBitmaps) {
+            bytes += bitmap.getSizeInBytes();
+        }
+        return bytes;
+    }
+
+    public synchronized boolean isDirty() {
+        return mDirty;
+    }
+
+    /**
+     * Writes the index and its trie to their files if the index changed since it was last read or
+     * written, replacing each file only once the new copy is complete.
+     */
+    @WorkerThread
+    public synchronized void save() throws IOException {
+        if (mFile == null || !mDirty) return;
+
+        writeAtomically(mFile, this::writeTo);
+        writeAtomically(trieFile(), IngredientTrie.build(termWeights())::writeTo);
+        mDirty = false;
+    }
+
+    private interface Writer {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static void writeAtomically(File file, Writer writer) throws IOException {
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+            writer.writeTo(out);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /**
+     * An unreadable file is deleted and the index starts empty; it fills up again as recipes
+     * come in.
+     */
+    private void ensureLoaded() {
+        if (mLoaded) return;
+        mLoaded = true;
+        // A saved trie already in use was built from the terms read back, so it stays
+        if (!mFile.exists()) return;
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(mFile))) {
+            readFrom(in);
+        } catch (IOException | RuntimeException e) {
+            mRecipes.clear();
+            mDocs.clear();
+            mDictionary.clear();
+            mBitmaps.clear();
+            mFile.delete();
+            // Nothing is left of the terms the saved trie was built from
+            mTermsVersion++;
+            mSuggester = null;
+        }
+    }
+
+    /**
+     * Recipes as plain fields, then the terms in ID order, each with its bitmap.
+     */
+    private void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(FORMAT_VERSION);
+        writeVarInt(out, mRecipes.size());
+        for (Recipe recipe : mRecipes) {
+            writeString(out, recipe.getRecipeId());
+            writeString(out, recipe.getTitle());
+            writeString(out, recipe.getImageUrl());
+            writeString(out, recipe.getSourceUrl());
+            String[] ingredients = recipe.getIngredients();
+            writeVarInt(out, ingredients == null ? 0 : ingredients.length + 1);
+            if (ingredients != null) {
+                for (String ingredient : ingredients) writeString(out, ingredient);
+            }
+            out.writeFloat(recipe.getSocial_rank());
+            out.writeBoolean(recipe.isFavorite());
+        }
+
+        writeVarInt(out, mDictionary.size());
+        for (int id = 0; id < mDictionary.size(); id++) {
+            out.writeUTF(mDictionary.termOf(id));
+            mBitmaps.get(id).writeTo(out);
+        }
+        out.flush();
+    }
+
+    private void readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != FORMAT_VERSION) throw new IOException("Unknown index format");
+
+        int recipes = readVarInt(in);
+        for (int doc = 0; doc < recipes; doc++) {
+            String recipeId = readString(in);
+            String title = readString(in);
+            String imageUrl = readString(in);
+            String sourceUrl = readString(in);
+            int ingredientCount = readVarInt(in) - 1;
+            String[] ingredients = null;
+            if (ingredientCount >= 0) {
+                ingredients = new String[ingredientCount];
+                for (int i = 0; i < ingredientCount; i++) ingredients[i] = IngredientPool.intern(readString(in));
+            }
+            Recipe recipe = new Recipe(recipeId, title, imageUrl, sourceUrl, ingredients,
+                    in.readFloat(), in.readBoolean());
+            mRecipes.add(recipe);
+            mDocs.put(recipeId, doc);
+        }
+
+        int terms = readVarInt(in);
+        for (int id = 0; id < terms; id++) {
+            if (mDictionary.add(in.readUTF()) != id) throw new IOException("Duplicate term");
+            CompressedBitmap docs = CompressedBitmap.readFrom(in);
+            if (docs.last() >= recipes) throw new IOException("Corrupt bitmap");
+            mBitmaps.add(docs);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * A trie and a matcher knowing the same terms. The saved trie comes without a matcher, which
+     * is then built the first time one is needed.
+     */
+    private static final class Suggester {
+        final IngredientTrie mTrie;
+        private FuzzyMatcher mMatcher;
+
+        Suggester(IngredientTrie trie, @Nullable FuzzyMatcher matcher) {
+            mTrie = trie;
+            mMatcher = matcher;
+        }
+
+        synchronized FuzzyMatcher getMatcher() {
+            if (mMatcher == null) mMatcher = FuzzyMatcher.build(mTrie.getTerms());
+            return mMatcher;
+        }
+    }
+}
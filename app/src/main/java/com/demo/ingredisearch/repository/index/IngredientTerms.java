@@ -0,0 +1,53 @@
+package com.demo.ingredisearch.repository.index;
+
+import com.demo.ingredisearch.repository.util.QueryCanonicalizer;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits ingredient lines and titles ("2 cups chopped tomatoes") into index terms ("tomato").
+ * <p>
+ * Terms are lower-case, singular words of letters only; quantities, units and preparation words
+ * are dropped so they don't match every recipe.
+ */
+public final class IngredientTerms {
+
+    private static final int MIN_LENGTH = 3;
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "and", "or", "of", "the", "with", "for", "into", "from", "to", "about", "plus", "optional",
+            "cup", "tablespoon", "teaspoon", "tbsp", "tsp", "ounce", "pound", "gram", "kilogram", "liter",
+            "pinch", "dash", "clove", "slice", "piece", "can", "package", "bunch", "handful",
+            "large", "small", "medium", "fresh", "dried", "chopped", "minced", "sliced", "diced",
+            "grated", "ground", "whole", "finely", "roughly", "thinly", "taste", "divided", "recipe"));
+
+    private IngredientTerms() {
+    }
+
+    public static Set<String> of(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) return terms;
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetter(lower.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                addTerm(terms, lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(Set<String> terms, String word) {
+        if (word.length() < MIN_LENGTH) return;
+        String term = QueryCanonicalizer.singularize(word);
+        if (!STOP_WORDS.contains(term)) terms.add(term);
+    }
+}
@@ -0,0 +1,255 @@
+package com.demo.ingredisearch.repository.index;
+
+import androidx.annotation.NonNull;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix tree of ingredient terms weighted by how many recipes use them, answering
+ * "the k most used terms starting with ..." in microseconds.
+ * <p>
+ * Nodes live in a handful of flat arrays rather than as objects, laid out breadth first so each
+ * node's children are contiguous and sorted by label: a lookup binary-searches one small slice
+ * per character, and the whole structure is written and read back as five bulk arrays.
+ * Every node also stores the best weight below it, so completions come out best first without
+ * visiting subtrees that can't make the top k.
+ */
+public final class IngredientTrie {
+
+    public static final IngredientTrie EMPTY = build(Collections.emptyMap());
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    // A label and four ints
+    private static final int NODE_BYTES = 2 + 4 * 4;
+    private static final int MAX_NODES = 16 * 1024 * 1024;
+    private static final int ROOT = 0;
+
+    private final char[] mLabels;
+    private final int[] mFirstChild;
+    private final int[] mParents;
+    // 0 if no term ends at the node
+    private final int[] mWeights;
+    private final int[] mBest;
+
+    private IngredientTrie(char[] labels, int[] firstChild, int[] parents, int[] weights, int[] best) {
+        mLabels = labels;
+        mFirstChild = firstChild;
+        mParents = parents;
+        mWeights = weights;
+        mBest = best;
+    }
+
+    /**
+     * @param weights positive weight of each term; terms with none are left out
+     */
+    @NonNull
+    public static IngredientTrie build(@NonNull Map<String, Integer> weights) {
+        // Pointer-based tree first, then flattened breadth first
+        Node root = new Node();
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() <= 0 || entry.getKey().isEmpty()) continue;
+            Node node = root;
+            for (char c : entry.getKey().toCharArray()) {
+                Node child = node.mChildren.get(c);
+                if (child == null) {
+                    child = new Node();
+                    node.mChildren.put(c, child);
+                }
+                node = child;
+            }
+            node.mWeight = entry.getValue();
+        }
+
+        List<Node> order = new ArrayList<>();
+        order.add(root);
+        for (int i = 0; i < order.size(); i++) {
+            order.addAll(order.get(i).mChildren.values());
+        }
+
+        int count = order.size();
+        char[] labels = new char[count];
+        int[] firstChild = new int[count + 1];
+        int[] parents = new int[count];
+        int[] nodeWeights = new int[count];
+        int[] best = new int[count];
+        int next = 1;
+        for (int i = 0; i < count; i++) {
+            Node node = order.get(i);
+            firstChild[i] = next;
+            nodeWeights[i] = node.mWeight;
+            for (Map.Entry<Character, Node> child : node.mChildren.entrySet()) {
+                labels[next] = child.getKey();
+                parents[next] = i;
+                next++;
+            }
+        }
+        firstChild[count] = next;
+        parents[ROOT] = -1;
+        for (int i = count - 1; i >= 0; i--) {
+            best[i] = Math.max(best[i], nodeWeights[i]);
+            if (i != ROOT) best[parents[i]] = Math.max(best[parents[i]], best[i]);
+        }
+        return new IngredientTrie(labels, firstChild, parents, nodeWeights, best);
+    }
+
+    private static final class Node {
+        final TreeMap<Character, Node> mChildren = new TreeMap<>();
+        int mWeight;
+    }
+
+    /**
+     * @return up to {@code limit} terms starting with {@code prefix}, most used first, shorter
+     * first among equally used ones
+     */
+    @NonNull
+    public List<String> complete(@NonNull String prefix, int limit) {
+        int node = find(prefix);
+        if (node < 0 || limit <= 0) return Collections.emptyList();
+
+        // Subtrees are queued by the best weight in them, terms by their own weight; a term
+        // comes out only once nothing left can beat it.
+        List<String> completions = new ArrayList<>(limit);
+        // Ties go to the lower node number, i.e. the shorter term
+        PriorityQueue<long[]> queue = new PriorityQueue<>(16, (a, b) ->
+                a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+        queue.add(new long[]{mBest[node], node, 0});
+        while (!queue.isEmpty() && completions.size() < limit) {
+            long[] entry = queue.poll();
+            int current = (int) entry[1];
+            if (entry[2] == 1) {
+                completions.add(termAt(current));
+                continue;
+            }
+            if (mWeights[current] > 0) queue.add(new long[]{mWeights[current], current, 1});
+            for (int child = mFirstChild[current]; child < mFirstChild[current + 1]; child++) {
+                queue.add(new long[]{mBest[child], child, 0});
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * @return how many recipes use {@code term}, or 0 if it isn't in the trie
+     */
+    public int weightOf(@NonNull String term) {
+        int node = find(term);
+        return node < 0 ? 0 : mWeights[node];
+    }
+
+    /**
+     * @return every term with its weight
+     */
+    @NonNull
+    public Map<String, Integer> getTerms() {
+        Map<String, Integer> terms = new HashMap<>();
+        for (int node = 0; node < mWeights.length; node++) {
+            if (mWeights[node] > 0) terms.put(termAt(node), mWeights[node]);
+        }
+        return terms;
+    }
+
+    public int getNodeCount() {
+        return mLabels.length;
+    }
+
+    private int find(String prefix) {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length() && node >= 0; i++) {
+            node = child(node, prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private int child(int node, char label) {
+        int low = mFirstChild[node];
+        int high = mFirstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mLabels[mid] < label) {
+                low = mid + 1;
+            } else if (mLabels[mid] > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private String termAt(int node) {
+        StringBuilder term = new StringBuilder();
+        for (int current = node; current != ROOT; current = mParents[current]) {
+            term.append(mLabels[current]);
+        }
+        return term.reverse().toString();
+    }
+
+    /**
+     * Each array is written whole, so reading it back is a few bulk copies.
+     */
+    void writeTo(OutputStream stream) throws IOException {
+        int count = mLabels.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * NODE_BYTES + 4);
+        buffer.putInt(FORMAT_VERSION).putInt(count);
+        buffer.asCharBuffer().put(mLabels);
+        buffer.position(buffer.position() + count * 2);
+        putInts(buffer, mFirstChild);
+        putInts(buffer, mParents);
+        putInts(buffer, mWeights);
+        putInts(buffer, mBest);
+        stream.write(buffer.array(), 0, buffer.position());
+        stream.flush();
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 4);
+    }
+
+    static IngredientTrie readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != FORMAT_VERSION) throw new IOException("Unknown trie format");
+
+        int count = in.readInt();
+        if (count < 1 || count > MAX_NODES) throw new IOException("Corrupt trie");
+        byte[] bytes = new byte[count * NODE_BYTES + 4];
+        in.readFully(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        char[] labels = new char[count];
+        buffer.asCharBuffer().get(labels);
+        buffer.position(count * 2);
+        int[] firstChild = getInts(buffer, count + 1);
+        int[] parents = getInts(buffer, count);
+        int[] weights = getInts(buffer, count);
+        int[] best = getInts(buffer, count);
+
+        for (int i = 0; i <= count; i++) {
+            if (firstChild[i] < 1 || firstChild[i] > count || (i > 0 && firstChild[i] < firstChild[i - 1]))
+                throw new IOException("Corrupt trie");
+        }
+        for (int i = 1; i < count; i++) {
+            if (parents[i] < 0 || parents[i] >= i) throw new IOException("Corrupt trie");
+        }
+        return new IngredientTrie(labels, firstChild, parents, weights, best);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * 4);
+        return values;
+    }
+}
@@ -0,0 +1,172 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.demo.ingredisearch.util.Clock;
+
+import java.io.IOException;
+
+/**
+ * Stops calling a backend that keeps failing.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the breaker opens and every call fails fast.
+ * Once {@code openDurationMillis} have passed it half-opens and lets up to {@code probes} calls
+ * through: if they all succeed it closes again, the first failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public interface Listener {
+        /**
+         * Called on the thread that caused the transition; keep it short.
+         */
+        void onStateChanged(@NonNull State from, @NonNull State to);
+    }
+
+    /**
+     * Thrown to callers while the breaker is open.
+     */
+    public static class OpenException extends IOException {
+        OpenException() {
+            super("Service temporarily unavailable");
+        }
+    }
+
+    private final int mFailureThreshold;
+    private final long mOpenDurationMillis;
+    private final int mProbes;
+    private final Clock mClock;
+
+    private State mState = State.CLOSED;
+    private int mConsecutiveFailures;
+    private long mOpenedAt;
+    private int mProbesInFlight;
+    private int mProbeSuccesses;
+
+    private int mSuccesses;
+    private int mFailures;
+    private int mRejected;
+    private int mTimesOpened;
+
+    @Nullable
+    private Listener mListener;
+
+    public CircuitBreaker(int failureThreshold, long openDurationMillis, int probes, @NonNull Clock clock) {
+        mFailureThreshold = failureThreshold;
+        mOpenDurationMillis = openDurationMillis;
+        mProbes = probes;
+        mClock = clock;
+    }
+
+    public synchronized void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @return false if the call must not be made
+     */
+    synchronized boolean tryAcquire() {
+        if (mState == State.OPEN) {
+            if (mClock.now() - mOpenedAt < mOpenDurationMillis) {
+                mRejected++;
+                return false;
+            }
+            mProbesInFlight = 0;
+            mProbeSuccesses = 0;
+            moveTo(State.HALF_OPEN);
+        }
+        if (mState == State.HALF_OPEN) {
+            if (mProbesInFlight + mProbeSuccesses >= mProbes) {
+                mRejected++;
+                return false;
+            }
+            mProbesInFlight++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        mSuccesses++;
+        mConsecutiveFailures = 0;
+        if (mState == State.HALF_OPEN) {
+            mProbesInFlight = Math.max(0, mProbesInFlight - 1);
+            if (++mProbeSuccesses >= mProbes) {
+                moveTo(State.CLOSED);
+            }
+        }
+    }
+
+    synchronized void onFailure() {
+        mFailures++;
+        if (mState == State.HALF_OPEN) {
+            open();
+        } else if (mState == State.CLOSED && ++mConsecutiveFailures >= mFailureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * The call was abandoned without an outcome; frees its probe slot.
+     */
+    synchronized void release() {
+        if (mState == State.HALF_OPEN) {
+            mProbesInFlight = Math.max(0, mProbesInFlight - 1);
+        }
+    }
+
+    private void open() {
+        mOpenedAt = mClock.now();
+        mConsecutiveFailures = 0;
+        mTimesOpened++;
+        moveTo(State.OPEN);
+    }
+
+    private void moveTo(State state) {
+        State from = mState;
+        mState = state;
+        if (mListener != null && from != state) {
+            mListener.onStateChanged(from, state);
+        }
+    }
+
+    @NonNull
+    public synchronized State getState() {
+        return mState;
+    }
+
+    @NonNull
+    public synchronized Stats getStats() {
+        return new Stats(mState, mSuccesses, mFailures, mRejected, mTimesOpened);
+    }
+
+    public static final class Stats {
+        public final State state;
+        public final int successes;
+        public final int failures;
+        /** Calls failed fast without touching the network. */
+        public final int rejected;
+        public final int timesOpened;
+
+        Stats(State state, int successes, int failures, int rejected, int timesOpened) {
+            this.state = state;
+            this.successes = successes;
+            this.failures = failures;
+            this.rejected = rejected;
+            this.timesOpened = timesOpened;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "state=" + state +
+                    ", successes=" + successes +
+                    ", failures=" + failures +
+                    ", rejected=" + rejected +
+                    ", timesOpened=" + timesOpened +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Clock;
+import com.demo.ingredisearch.util.Scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Sends a second, identical request when the first one is slower than most recent ones were, and
+ * goes with whichever answers first.
+ * <p>
+ * The hedge goes out once the first attempt has been outstanding for the configured percentile of
+ * the latencies in a {@link LatencyTracker}; the loser is cancelled. Only idempotent requests may
+ * be hedged. To keep the extra load bounded, at most {@code maxHedgeRatio} of all calls are hedged,
+ * and nothing is hedged until enough latencies have been recorded. Both attempts go through the
+ * same {@link ResilientCaller}, so each retries on its own and neither bypasses the breaker.
+ * <p>
+ * Latencies are recorded from the start of the call, whichever attempt answers. When the hedge
+ * wins, that is a lower bound for the cancelled first attempt; timing the hedge alone would leave
+ * out exactly the slow calls the delay is derived from, and hedge ever sooner.
+ */
+public class HedgedCaller {
+
+    private final ResilientCaller mCaller;
+    private final LatencyTracker mLatencies;
+    private final double mPercentile;
+    private final double mMaxHedgeRatio;
+    private final long mMinDelayMillis;
+    private final Clock mClock;
+    private final Scheduler mScheduler;
+    private volatile boolean mEnabled = true;
+
+    private final AtomicInteger mCalls = new AtomicInteger();
+    private final AtomicInteger mHedges = new AtomicInteger();
+    private final AtomicInteger mHedgeWins = new AtomicInteger();
+
+    /**
+     * @param percentile     latency percentile after which the hedge is sent, e.g. 0.95
+     * @param maxHedgeRatio  highest share of calls that may be hedged, e.g. 0.1
+     * @param minDelayMillis never hedge sooner than this, however fast recent calls were
+     */
+    public HedgedCaller(@NonNull ResilientCaller caller, @NonNull LatencyTracker latencies,
+                        double percentile, double maxHedgeRatio, long minDelayMillis,
+                        @NonNull Clock clock, @NonNull Scheduler scheduler) {
+        if (maxHedgeRatio < 0 || maxHedgeRatio > 1) throw new IllegalArgumentException("maxHedgeRatio not in [0, 1]");
+        mCaller = caller;
+        mLatencies = latencies;
+        mPercentile = percentile;
+        mMaxHedgeRatio = maxHedgeRatio;
+        mMinDelayMillis = minDelayMillis;
+        mClock = clock;
+        mScheduler = scheduler;
+    }
+
+    <T> Cancellable enqueue(@NonNull Call<T> call, @NonNull Callback<T> callback) {
+        mCalls.incrementAndGet();
+        Race<T> race = new Race<>(callback);
+        race.start(call);
+        return race;
+    }
+
+    /**
+     * Turns hedging on or off; calls keep being timed either way.
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    @NonNull
+    public ResilientCaller getCaller() {
+        return mCaller;
+    }
+
+    @NonNull
+    public Stats getStats() {
+        return new Stats(mCalls.get(), mHedges.get(), mHedgeWins.get(), mLatencies.percentile(mPercentile));
+    }
+
+    private long hedgeDelay() {
+        if (!mEnabled) return -1;
+        long latency = mLatencies.percentile(mPercentile);
+        return latency < 0 ? -1 : Math.max(latency, mMinDelayMillis);
+    }
+
+    private boolean tryAcquireHedge() {
+        while (true) {
+            int hedges = mHedges.get();
+            if (hedges + 1 > mMaxHedgeRatio * mCalls.get()) return false;
+            if (mHedges.compareAndSet(hedges, hedges + 1)) return true;
+        }
+    }
+
+    private final class Race<T> implements Cancellable {
+        private final Callback<T> mCallback;
+        private final long mStartedAt = mClock.now();
+        private Cancellable mPrimary;
+        private Cancellable mHedge;
+        private Cancellable mPendingHedge;
+        private int mRunning;
+        private boolean mDone;
+        private boolean mHedgeWon;
+        private volatile boolean mCancelled;
+
+        Race(Callback<T> callback) {
+            mCallback = callback;
+        }
+
+        void start(Call<T> call) {
+            synchronized (this) {
+                mRunning++;
+            }
+            Cancellable primary = mCaller.enqueue(call, new Attempt(false));
+            Cancellable pendingHedge = null;
+            long delay = hedgeDelay();
+            if (delay >= 0) {
+                pendingHedge = mScheduler.schedule(() -> hedge(call.clone()), delay);
+            }
+            boolean hedgeWon;
+            synchronized (this) {
+                mPrimary = primary;
+                mPendingHedge = pendingHedge;
+                if (!mDone) return;
+                hedgeWon = mHedgeWon;
+            }
+            // The race was decided before these handles were even stored
+            cancelAll(pendingHedge, hedgeWon ? primary : null);
+        }
+
+        private void hedge(Call<T> call) {
+            synchronized (this) {
+                if (mDone || mCancelled || !tryAcquireHedge()) return;
+                mRunning++;
+            }
+            Cancellable hedge = mCaller.enqueue(call, new Attempt(true));
+            boolean lost;
+            synchronized (this) {
+                mHedge = hedge;
+                lost = mDone;
+            }
+            if (lost) hedge.cancel();
+        }
+
+        @Override
+        public void cancel() {
+            Cancellable primary, hedge, pendingHedge;
+            synchronized (this) {
+                mCancelled = true;
+                mDone = true;
+                primary = mPrimary;
+                hedge = mHedge;
+                pendingHedge = mPendingHedge;
+            }
+            cancelAll(primary, hedge, pendingHedge);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        private final class Attempt implements Callback<T> {
+            private final boolean mIsHedge;
+
+            Attempt(boolean isHedge) {
+                mIsHedge = isHedge;
+            }
+
+            @Override
+            public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                Cancellable loser, pendingHedge;
+                synchronized (Race.this) {
+                    if (mDone) return;
+                    mDone = true;
+                    mHedgeWon = mIsHedge;
+                    loser = mIsHedge ? mPrimary : mHedge;
+                    pendingHedge = mPendingHedge;
+                }
+                mLatencies.record(mClock.now() - mStartedAt);
+                if (mIsHedge) mHedgeWins.incrementAndGet();
+                cancelAll(loser, pendingHedge);
+                mCallback.onResponse(call, response);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> call, @NonNull Throwable throwable) {
+                Cancellable pendingHedge;
+                synchronized (Race.this) {
+                    if (mDone) return;
+                    // The other attempt may still answer
+                    if (--mRunning > 0) return;
+                    mDone = true;
+                    pendingHedge = mPendingHedge;
+                }
+                cancelAll(pendingHedge);
+                mCallback.onFailure(call, throwable);
+            }
+        }
+    }
+
+    private static void cancelAll(Cancellable... calls) {
+        for (Cancellable call : calls) {
+            if (call != null) call.cancel();
+        }
+    }
+
+    /**
+     * Point-in-time hedging counters.
+     */
+    public static final class Stats {
+        public final int calls;
+        /** Calls that sent a second request. */
+        public final int hedges;
+        /** Hedged calls the second request answered first. */
+        public final int hedgeWins;
+        /** Current hedging delay, or -1 while too few latencies are known. */
+        public final long hedgeDelayMillis;
+
+        Stats(int calls, int hedges, int hedgeWins, long hedgeDelayMillis) {
+            this.calls = calls;
+            this.hedges = hedges;
+            this.hedgeWins = hedgeWins;
+            this.hedgeDelayMillis = hedgeDelayMillis;
+        }
+
+        /** Share of calls that were hedged, i.e. the extra load. */
+        public double hedgeRate() {
+            return calls == 0 ? 0 : (double) hedges / calls;
+        }
+
+        /** Share of hedges that paid off. */
+        public double winRate() {
+            return hedges == 0 ? 0 : (double) hedgeWins / hedges;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "calls=" + calls +
+                    ", hedges=" + hedges +
+                    ", hedgeWins=" + hedgeWins +
+                    ", hedgeDelayMillis=" + hedgeDelayMillis +
+                    '}';
+        }
+    }
+}
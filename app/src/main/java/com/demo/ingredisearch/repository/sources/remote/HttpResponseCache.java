@@ -0,0 +1,160 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Size-bounded on-disk cache for {@code api/search} and {@code api/get} responses.
+ * <p>
+ * A network interceptor stamps each endpoint's freshness lifetime on the responses it stores, unless
+ * the server sent caching headers of its own: those, {@code no-store} and {@code private} included,
+ * are left as they are. Once
+ * an entry goes stale, OkHttp revalidates it with {@code If-None-Match}/{@code If-Modified-Since}
+ * (when the server sent an {@code ETag}/{@code Last-Modified}), so unchanged payloads come back as
+ * bodiless 304s.
+ * <p>
+ * Call {@link #install(File)} once at startup, before the first request is made.
+ */
+public class HttpResponseCache {
+
+    private static final String CACHE_DIRECTORY = "http";
+    private static final long MAX_SIZE_BYTES = 10L * 1024 * 1024;
+
+    // Search results shift as the catalogue grows; a recipe itself practically never changes.
+    static final int SEARCH_MAX_AGE_SECONDS = (int) TimeUnit.MINUTES.toSeconds(10);
+    static final int RECIPE_MAX_AGE_SECONDS = (int) TimeUnit.DAYS.toSeconds(1);
+
+    private static HttpResponseCache installed;
+
+    private final Cache mCache;
+    private final int mSearchMaxAgeSeconds;
+    private final int mRecipeMaxAgeSeconds;
+
+    private final AtomicInteger mConditionalRequests = new AtomicInteger();
+    private final AtomicInteger mNotModified = new AtomicInteger();
+
+    @VisibleForTesting
+    HttpResponseCache(File directory, long maxSizeBytes, int searchMaxAgeSeconds, int recipeMaxAgeSeconds) {
+        mCache = new Cache(directory, maxSizeBytes);
+        mSearchMaxAgeSeconds = searchMaxAgeSeconds;
+        mRecipeMaxAgeSeconds = recipeMaxAgeSeconds;
+    }
+
+    public static synchronized void install(@NonNull File cacheDir) {
+        if (installed == null) {
+            installed = new HttpResponseCache(new File(cacheDir, CACHE_DIRECTORY), MAX_SIZE_BYTES,
+                    SEARCH_MAX_AGE_SECONDS, RECIPE_MAX_AGE_SECONDS);
+        }
+    }
+
+    @Nullable
+    public static synchronized HttpResponseCache getInstalled() {
+        return installed;
+    }
+
+    Cache getCache() {
+        return mCache;
+    }
+
+    Interceptor getNetworkInterceptor() {
+        return this::interceptNetwork;
+    }
+
+    private Response interceptNetwork(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        boolean conditional = request.header("If-None-Match") != null
+                || request.header("If-Modified-Since") != null;
+        if (conditional) {
+            mConditionalRequests.incrementAndGet();
+        }
+
+        Response response = chain.proceed(request);
+        if (conditional && response.code() == 304) {
+            mNotModified.incrementAndGet();
+        }
+
+        int maxAgeSeconds = maxAgeFor(request);
+        if (maxAgeSeconds < 0 || !response.isSuccessful() || hasCachingHeaders(response)) {
+            return response;
+        }
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + maxAgeSeconds)
+                .build();
+    }
+
+    private static boolean hasCachingHeaders(Response response) {
+        return response.header("Cache-Control") != null
+                || response.header("Expires") != null
+                || response.header("Pragma") != null;
+    }
+
+    private int maxAgeFor(Request request) {
+        String path = request.url().encodedPath();
+        if (path.endsWith("api/search")) {
+            return mSearchMaxAgeSeconds;
+        } else if (path.endsWith("api/get")) {
+            return mRecipeMaxAgeSeconds;
+        }
+        return -1;
+    }
+
+    @NonNull
+    public Stats getStats() {
+        int notModified = mNotModified.get();
+        int conditional = mConditionalRequests.get();
+        return new Stats(
+                mCache.requestCount(),
+                mCache.hitCount() - notModified,
+                mCache.networkCount() - conditional,
+                conditional,
+                notModified);
+    }
+
+    /**
+     * Point-in-time cache counters.
+     */
+    public static final class Stats {
+        /** Requests that went through the cache. */
+        public final int requests;
+        /** Served from disk without touching the network. */
+        public final int hits;
+        /** Fetched in full from the network. */
+        public final int misses;
+        /** Stale entries revalidated with a conditional request. */
+        public final int revalidations;
+        /** Revalidations the server answered with 304 Not Modified. */
+        public final int notModified;
+
+        Stats(int requests, int hits, int misses, int revalidations, int notModified) {
+            this.requests = requests;
+            this.hits = hits;
+            this.misses = misses;
+            this.revalidations = revalidations;
+            this.notModified = notModified;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "requests=" + requests +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", revalidations=" + revalidations +
+                    ", notModified=" + notModified +
+                    '}';
+        }
+    }
+}
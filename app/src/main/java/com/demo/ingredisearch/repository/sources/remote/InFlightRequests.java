@@ -0,0 +1,192 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+
+import com.demo.ingredisearch.repository.sources.ResponseCallback;
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Resource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of outstanding remote calls, keyed by normalized request.
+ * <p>
+ * The first caller for a key starts the call; everyone who asks for the same key before it
+ * completes is attached to it and receives the very same {@link Resource}. Delivered data is
+ * shared between callers and must be treated as read-only.
+ * <p>
+ * A flight may report progress before it completes; callers attached late are handed the latest
+ * progress right away. Each caller sees progress in order and never after the outcome, even
+ * when it joins while the flight is reporting or landing on another thread.
+ * <p>
+ * Each caller gets its own {@link Cancellable}. A cancelled caller is never called back, and the
+ * underlying call is cancelled as soon as no caller is left waiting for it.
+ */
+class InFlightRequests<T> {
+
+    interface Starter<T> {
+        /**
+         * Enqueues the call for a new flight and reports its outcome to {@code flight}.
+         */
+        Cancellable start(Flight<T> flight);
+    }
+
+    private final Map<String, Flight<T>> mFlights = new HashMap<>();
+
+    Cancellable join(@NonNull String key, @NonNull ResponseCallback<T> callback, @NonNull Starter<T> starter) {
+        Flight<T> flight;
+        Waiter waiter;
+        Resource<T> progress = null;
+        int progressCount = 0;
+        boolean first = false;
+        synchronized (this) {
+            flight = mFlights.get(key);
+            if (flight == null) {
+                flight = new Flight<>(this, key);
+                mFlights.put(key, flight);
+                first = true;
+            } else {
+                progress = flight.mProgress;
+                progressCount = flight.mProgressCount;
+            }
+            waiter = new Waiter(flight, callback);
+            flight.mWaiters.add(waiter);
+        }
+        if (!first) {
+            // The flight may have moved on meanwhile; the waiter drops what it has seen past
+            if (progress != null) {
+                waiter.progress(progress, progressCount);
+            }
+            return waiter;
+        }
+
+        Cancellable call = starter.start(flight);
+        synchronized (this) {
+            flight.mCall = call;
+            if (flight.mWaiters.isEmpty()) { // everybody left while the call was being started
+                call.cancel();
+            }
+        }
+        return waiter;
+    }
+
+    synchronized boolean isInFlight(@NonNull String key) {
+        return mFlights.containsKey(key);
+    }
+
+    private synchronized List<Waiter> waitersOf(Flight<T> flight, Resource<T> progress) {
+        flight.mProgress = progress;
+        flight.mProgressCount++;
+        return new ArrayList<>(flight.mWaiters);
+    }
+
+    private synchronized List<Waiter> land(Flight<T> flight) {
+        if (mFlights.get(flight.mKey) == flight) {
+            mFlights.remove(flight.mKey);
+        }
+        List<Waiter> waiters = new ArrayList<>(flight.mWaiters);
+        flight.mWaiters.clear();
+        return waiters;
+    }
+
+    private synchronized void leave(Waiter waiter) {
+        Flight<T> flight = waiter.mFlight;
+        if (!flight.mWaiters.remove(waiter) || !flight.mWaiters.isEmpty()) return;
+
+        if (mFlights.get(flight.mKey) == flight) {
+            mFlights.remove(flight.mKey);
+        }
+        if (flight.mCall != null) {
+            flight.mCall.cancel();
+        }
+    }
+
+    /**
+     * One outstanding call and the callers waiting for it.
+     */
+    static final class Flight<T> {
+        private final InFlightRequests<T> mRegistry;
+        private final String mKey;
+        private final List<InFlightRequests<T>.Waiter> mWaiters = new ArrayList<>();
+        private Cancellable mCall;
+        private Resource<T> mProgress;
+        // Numbers progress reports, so a waiter can tell an older one from a newer one
+        private int mProgressCount;
+
+        private Flight(InFlightRequests<T> registry, String key) {
+            mRegistry = registry;
+            mKey = key;
+        }
+
+        /**
+         * Non-terminal delivery; the flight stays open.
+         */
+        void onProgress(Resource<T> response) {
+            List<InFlightRequests<T>.Waiter> waiters;
+            int progressCount;
+            synchronized (mRegistry) {
+                waiters = mRegistry.waitersOf(this, response);
+                progressCount = mProgressCount;
+            }
+            for (InFlightRequests<T>.Waiter waiter : waiters) {
+                waiter.progress(response, progressCount);
+            }
+        }
+
+        void onDataAvailable(Resource<T> response) {
+            for (InFlightRequests<T>.Waiter waiter : mRegistry.land(this)) {
+                waiter.land(response, false);
+            }
+        }
+
+        void onError(Resource<T> response) {
+            for (InFlightRequests<T>.Waiter waiter : mRegistry.land(this)) {
+                waiter.land(response, true);
+            }
+        }
+    }
+
+    private final class Waiter implements Cancellable {
+        private final Flight<T> mFlight;
+        private final ResponseCallback<T> mCallback;
+        private volatile boolean mCancelled;
+        // Guarded by this; deliveries to one caller are serialized
+        private int mProgressSeen;
+        private boolean mLanded;
+
+        Waiter(Flight<T> flight, ResponseCallback<T> callback) {
+            mFlight = flight;
+            mCallback = callback;
+        }
+
+        synchronized void progress(Resource<T> response, int progressCount) {
+            if (mCancelled || mLanded || progressCount <= mProgressSeen) return;
+            mProgressSeen = progressCount;
+            mCallback.onDataAvailable(response);
+        }
+
+        synchronized void land(Resource<T> response, boolean error) {
+            if (mCancelled || mLanded) return;
+            mLanded = true;
+            if (error) {
+                mCallback.onError(response);
+            } else {
+                mCallback.onDataAvailable(response);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            mCancelled = true;
+            leave(this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent request latencies, for picking a delay out of their
+ * distribution.
+ */
+public class LatencyTracker {
+
+    private final long[] mWindow;
+    private final int mMinSamples;
+    private int mNext;
+    private int mSize;
+
+    /**
+     * @param windowSize number of most recent samples kept
+     * @param minSamples samples needed before {@link #percentile(double)} reports anything
+     */
+    public LatencyTracker(int windowSize, int minSamples) {
+        if (windowSize < 1) throw new IllegalArgumentException("windowSize < 1");
+        if (minSamples < 1 || minSamples > windowSize) {
+            throw new IllegalArgumentException("minSamples must be in [1, windowSize]");
+        }
+        mWindow = new long[windowSize];
+        mMinSamples = minSamples;
+    }
+
+    public synchronized void record(long latencyMillis) {
+        mWindow[mNext] = latencyMillis;
+        mNext = (mNext + 1) % mWindow.length;
+        if (mSize < mWindow.length) mSize++;
+    }
+
+    /**
+     * @param percentile in (0, 1], e.g. 0.95 for p95
+     * @return the latency at that percentile of the window, or -1 while too few samples are known
+     */
+    public long percentile(double percentile) {
+        if (percentile <= 0 || percentile > 1) throw new IllegalArgumentException("percentile not in (0, 1]");
+
+        long[] samples;
+        synchronized (this) {
+            if (mSize < mMinSamples) return -1;
+            samples = Arrays.copyOf(mWindow, mSize);
+        }
+        Arrays.sort(samples);
+        int rank = (int) Math.ceil(percentile * samples.length) - 1;
+        return samples[Math.max(rank, 0)];
+    }
+
+    public synchronized int getSampleCount() {
+        return mSize;
+    }
+}
@@ -0,0 +1,199 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+
+/**
+ * Times each phase of every HTTP call, per {@link RecipeApi} endpoint, into
+ * {@link LatencyHistogram}s.
+ * <p>
+ * Install it as the {@link EventListener.Factory} of an {@code OkHttpClient}. Phases that don't
+ * happen on a call, e.g. DNS and connect on a pooled connection, aren't recorded for it, so each
+ * histogram describes only the calls that paid for that phase. Body time runs until the body has
+ * been read to its end, which for streamed search results includes decoding them.
+ */
+public class NetworkMetrics implements EventListener.Factory {
+
+    public enum Phase {
+        DNS,
+        /** TCP and, for HTTPS, TLS. */
+        CONNECT,
+        TLS,
+        /** From sending the request headers to the first byte of the response. */
+        TIME_TO_FIRST_BYTE,
+        BODY,
+        /** The whole call, including the phases above and time queued for a connection. */
+        TOTAL,
+        /** Calls that failed or were cancelled, from start to failure. */
+        FAILED
+    }
+
+    static final String SEARCH = "api/search";
+    static final String GET = "api/get";
+    static final String OTHER = "other";
+
+    // One fixed set of histograms per endpoint; an unexpected path never adds to memory use.
+    private final Map<String, Map<Phase, LatencyHistogram>> mHistograms;
+
+    public NetworkMetrics() {
+        Map<String, Map<Phase, LatencyHistogram>> histograms = new LinkedHashMap<>();
+        for (String endpoint : new String[]{SEARCH, GET, OTHER}) {
+            Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, new LatencyHistogram());
+            }
+            histograms.put(endpoint, Collections.unmodifiableMap(phases));
+        }
+        mHistograms = Collections.unmodifiableMap(histograms);
+    }
+
+    @NonNull
+    @Override
+    public EventListener create(@NonNull Call call) {
+        return new CallTimer(mHistograms.get(endpointOf(call)));
+    }
+
+    /**
+     * @return p50/p90/p99 per phase, keyed by endpoint, e.g. {@code "api/search"}
+     */
+    @NonNull
+    public Map<String, Map<Phase, LatencyHistogram.Snapshot>> getSnapshot() {
+        Map<String, Map<Phase, LatencyHistogram.Snapshot>> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<Phase, LatencyHistogram>> endpoint : mHistograms.entrySet()) {
+            Map<Phase, LatencyHistogram.Snapshot> phases = new EnumMap<>(Phase.class);
+            for (Map.Entry<Phase, LatencyHistogram> phase : endpoint.getValue().entrySet()) {
+                phases.put(phase.getKey(), phase.getValue().snapshot());
+            }
+            snapshot.put(endpoint.getKey(), phases);
+        }
+        return snapshot;
+    }
+
+    @NonNull
+    public LatencyHistogram.Snapshot getSnapshot(@NonNull String endpoint, @NonNull Phase phase) {
+        Map<Phase, LatencyHistogram> phases = mHistograms.get(endpoint);
+        if (phases == null) throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        return phases.get(phase).snapshot();
+    }
+
+    public void reset() {
+        for (Map<Phase, LatencyHistogram> phases : mHistograms.values()) {
+            for (LatencyHistogram histogram : phases.values()) {
+                histogram.reset();
+            }
+        }
+    }
+
+    private static String endpointOf(Call call) {
+        String path = call.request().url().encodedPath();
+        if (path.endsWith(SEARCH)) {
+            return SEARCH;
+        } else if (path.endsWith(GET)) {
+            return GET;
+        }
+        return OTHER;
+    }
+
+    /**
+     * One per call; OkHttp reports a call's events one after the other.
+     */
+    private static class CallTimer extends EventListener {
+        private final Map<Phase, LatencyHistogram> mHistograms;
+        private long mCallStart;
+        private long mDnsStart;
+        private long mConnectStart;
+        private long mTlsStart;
+        private long mRequestStart;
+        private long mBodyStart;
+
+        CallTimer(Map<Phase, LatencyHistogram> histograms) {
+            mHistograms = histograms;
+        }
+
+        private void record(Phase phase, long startNanos) {
+            if (startNanos == 0) return;
+            mHistograms.get(phase).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            mCallStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            mDnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> addresses) {
+            record(Phase.DNS, mDnsStart);
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy) {
+            mConnectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            mTlsStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+            record(Phase.TLS, mTlsStart);
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy,
+                               Protocol protocol) {
+            record(Phase.CONNECT, mConnectStart);
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            mRequestStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            record(Phase.TIME_TO_FIRST_BYTE, mRequestStart);
+        }
+
+        @Override
+        public void responseBodyStart(@NonNull Call call) {
+            mBodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            record(Phase.BODY, mBodyStart);
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            record(Phase.TOTAL, mCallStart);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            record(Phase.FAILED, mCallStart);
+        }
+    }
+}
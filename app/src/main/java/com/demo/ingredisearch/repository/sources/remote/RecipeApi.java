@@ -1,16 +1,21 @@
 package com.demo.ingredisearch.repository.sources.remote;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface RecipeApi {
 
-    // https://recipesapi.herokuapp.com/api/search?key=""&q=eggs
+    // https://recipesapi.herokuapp.com/api/search?key=""&q=eggs&page=1
+    // Hands over the raw body unread so it can be parsed as it downloads
+    @Streaming
     @GET("api/search")
-    Call<RecipeSearchResponse> search(
+    Call<ResponseBody> searchStreaming(
             @Query("key") String key,
-            @Query("q") String query
+            @Query("q") String query,
+            @Query("page") int page
     );
 
     // https://recipesapi.herokuapp.com/api/get?key=&rId=1af01c
@@ -1,13 +1,22 @@
 package com.demo.ingredisearch.repository.sources.remote;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 
 import com.demo.ingredisearch.models.Recipe;
 import com.demo.ingredisearch.repository.sources.ResponseCallback;
+import com.demo.ingredisearch.repository.util.QueryCanonicalizer;
+import com.demo.ingredisearch.util.AppExecutors;
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Clock;
 import com.demo.ingredisearch.util.Resource;
+import com.google.gson.JsonParseException;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Random;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -18,59 +27,183 @@ public class RecipeApiClient {
 
     private static final String TAG = "RecipeApp";
 
-    private ServiceGenerator mServiceGenerator = new ServiceGenerator();
+    public static final int FIRST_PAGE = 1;
 
-    public void searchRecipes(String query, ResponseCallback<List<Recipe>> callback) {
-        Call<RecipeSearchResponse> call = mServiceGenerator.getRecipesService(query);
+    // Interactive searches give up quickly; a recipe is cheap and idempotent to fetch, so try harder.
+    private static final RetryPolicy SEARCH_RETRY_POLICY = new RetryPolicy(3, 250, 2_000);
+    private static final RetryPolicy RECIPE_RETRY_POLICY = new RetryPolicy(4, 250, 4_000);
 
-        call.enqueue(new Callback<RecipeSearchResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<RecipeSearchResponse> call, @NonNull Response<RecipeSearchResponse> response) {
-                RecipeSearchResponse searchResponse = response.body();
-                if (response.isSuccessful()) {
-                    if (response.code() == 401) { // Unauthorised error
-                        callback.onError(Resource.error("401 Unauthorized. Token may be invalid", null));
-                    } else if (searchResponse == null) {
-                        callback.onDataAvailable(Resource.success(emptyList()));
+    // Both endpoints are served by the same backend, so they share one breaker.
+    private static final int BREAKER_FAILURE_THRESHOLD = 5;
+    private static final long BREAKER_OPEN_MILLIS = 30_000;
+    private static final int BREAKER_PROBES = 1;
+
+    // A recipe that has not arrived by the p95 of recent ones is most likely stuck on a slow
+    // connection; asking again is cheaper than waiting, as long as few calls need it.
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final double HEDGE_MAX_RATIO = 0.1;
+    private static final long HEDGE_MIN_DELAY_MILLIS = 50;
+    private static final int LATENCY_WINDOW = 100;
+    private static final int LATENCY_MIN_SAMPLES = 20;
+
+    private final ServiceGenerator mServiceGenerator;
+    private final AppExecutors mAppExecutors;
+    private final ResilientCaller mSearchCaller;
+    private final HedgedCaller mRecipeHedger;
+    private final RecipeSearchStreamParser mSearchParser =
+            new RecipeSearchStreamParser(ServiceGenerator.getGson().getAdapter(Recipe.class));
+
+    // Concurrent requests for the same query or recipe share one call. A call is cancelled once
+    // every caller waiting for it has cancelled its handle.
+    private final InFlightRequests<List<Recipe>> mSearches = new InFlightRequests<>();
+    private final InFlightRequests<Recipe> mRecipes = new InFlightRequests<>();
+
+    public RecipeApiClient(AppExecutors appExecutors) {
+        this(new ServiceGenerator(), appExecutors);
+    }
+
+    @VisibleForTesting
+    RecipeApiClient(ServiceGenerator serviceGenerator, AppExecutors appExecutors) {
+        this(serviceGenerator, appExecutors,
+                new CircuitBreaker(BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_MILLIS, BREAKER_PROBES, Clock.SYSTEM));
+    }
+
+    private RecipeApiClient(ServiceGenerator serviceGenerator, AppExecutors appExecutors,
+                            CircuitBreaker circuitBreaker) {
+        this(serviceGenerator, appExecutors,
+                new ResilientCaller(SEARCH_RETRY_POLICY, circuitBreaker, appExecutors.scheduler(), new Random()),
+                new HedgedCaller(
+                        new ResilientCaller(RECIPE_RETRY_POLICY, circuitBreaker, appExecutors.scheduler(), new Random()),
+                        new LatencyTracker(LATENCY_WINDOW, LATENCY_MIN_SAMPLES),
+                        HEDGE_PERCENTILE, HEDGE_MAX_RATIO, HEDGE_MIN_DELAY_MILLIS,
+                        Clock.SYSTEM, appExecutors.scheduler()));
+    }
+
+    @VisibleForTesting
+    RecipeApiClient(ServiceGenerator serviceGenerator, AppExecutors appExecutors,
+                    ResilientCaller searchCaller, HedgedCaller recipeCaller) {
+        mServiceGenerator = serviceGenerator;
+        mAppExecutors = appExecutors;
+        mSearchCaller = searchCaller;
+        mRecipeHedger = recipeCaller;
+    }
+
+    /**
+     * Retry and circuit breaker counters of {@code api/search}.
+     */
+    public ResilientCaller getSearchCaller() {
+        return mSearchCaller;
+    }
+
+    /**
+     * Retry and circuit breaker counters of {@code api/get}.
+     */
+    public ResilientCaller getRecipeCaller() {
+        return mRecipeHedger.getCaller();
+    }
+
+    /**
+     * Hedging of {@code api/get}: how often a second request went out and how often it won.
+     */
+    public HedgedCaller getRecipeHedger() {
+        return mRecipeHedger;
+    }
+
+    /**
+     * Per-endpoint, per-phase latencies (DNS, connect, TLS, time to first byte, body) of the
+     * calls made through the shared HTTP client.
+     */
+    public NetworkMetrics getNetworkMetrics() {
+        return ServiceGenerator.getNetworkMetrics();
+    }
+
+    public Cancellable searchRecipes(String query, ResponseCallback<List<Recipe>> callback) {
+        return searchRecipes(query, FIRST_PAGE, callback);
+    }
+
+    /**
+     * Search results are decoded as they download; the callback first receives
+     * {@link Resource#partial} snapshots of the recipes decoded so far, then the final result.
+     *
+     * @param page 1-based page of the result set
+     */
+    public Cancellable searchRecipes(String query, int page, ResponseCallback<List<Recipe>> callback) {
+        // Queries differing only in order, case or plurals share a call; the server gets the
+        // query of whoever started it, as typed
+        String key = QueryCanonicalizer.canonicalize(query) + "#" + page;
+        String serverQuery = QueryCanonicalizer.forServer(query);
+        return mSearches.join(key, callback, flight -> {
+            Call<ResponseBody> call = mServiceGenerator.getRecipesStreamingService(serverQuery, page);
+
+            return mSearchCaller.enqueue(call, new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(@NonNull Call<ResponseBody> call, @NonNull Response<ResponseBody> response) {
+                    ResponseBody body = response.body();
+                    if (response.isSuccessful()) {
+                        if (response.code() == 401) { // Unauthorised error
+                            flight.onError(Resource.error("401 Unauthorized. Token may be invalid", null));
+                        } else if (body == null) {
+                            flight.onDataAvailable(Resource.success(emptyList()));
+                        } else {
+                            // Reading the body is network I/O; never do it on the callback thread
+                            mAppExecutors.networkIO().execute(() -> parseSearchResponse(body, flight));
+                        }
                     } else {
-                        callback.onDataAvailable(Resource.success(searchResponse.getRecipes()));
+                        flight.onError(Resource.error(response.message() , null));
                     }
-                } else {
-                    callback.onError(Resource.error(response.message() , null));
                 }
-            }
 
-            @Override
-            public void onFailure(@NonNull Call<RecipeSearchResponse> call, @NonNull Throwable throwable) {
-                callback.onError(Resource.error(throwable.getMessage(), null));
-            }
+                @Override
+                public void onFailure(@NonNull Call<ResponseBody> call, @NonNull Throwable throwable) {
+                    flight.onError(Resource.error(throwable.getMessage(), null));
+                }
+            });
         });
     }
 
-    public void searchRecipe(String recipeId, ResponseCallback<Recipe> callback) {
-        Call<RecipeResponse> call = mServiceGenerator.getRecipeService(recipeId);
-
-        call.enqueue(new Callback<RecipeResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<RecipeResponse> call, @NonNull Response<RecipeResponse> response) {
-                RecipeResponse recipe = response.body();
-                if (response.isSuccessful()) {
-                    if (response.code() == 401) { // Unauthorised error
-                        callback.onError(Resource.error("401 Unauthorized. Token may be invalid", null));
-                    } else if (recipe == null) {
-                        callback.onDataAvailable(Resource.success(null));
+    private void parseSearchResponse(ResponseBody body, InFlightRequests.Flight<List<Recipe>> flight) {
+        try (ResponseBody ignored = body) {
+            List<Recipe> recipes = mSearchParser.parse(body.charStream(),
+                    recipesSoFar -> flight.onProgress(Resource.partial(recipesSoFar)));
+            flight.onDataAvailable(Resource.success(recipes));
+        } catch (IOException | JsonParseException e) { // includes the call being cancelled mid-body
+            flight.onError(Resource.error(e.getMessage(), null));
+        } catch (RuntimeException e) {
+            // Thrown here it would end up in the executor's future, and no caller would ever hear
+            flight.onError(Resource.error(e.toString(), null));
+        }
+    }
+
+    /**
+     * A recipe that takes unusually long is requested a second time; see {@link HedgedCaller}.
+     */
+    public Cancellable searchRecipe(String recipeId, ResponseCallback<Recipe> callback) {
+        String key = recipeId.trim();
+        return mRecipes.join(key, callback, flight -> {
+            Call<RecipeResponse> call = mServiceGenerator.getRecipeService(key);
+
+            return mRecipeHedger.enqueue(call, new Callback<RecipeResponse>() {
+                @Override
+                public void onResponse(@NonNull Call<RecipeResponse> call, @NonNull Response<RecipeResponse> response) {
+                    RecipeResponse recipe = response.body();
+                    if (response.isSuccessful()) {
+                        if (response.code() == 401) { // Unauthorised error
+                            flight.onError(Resource.error("401 Unauthorized. Token may be invalid", null));
+                        } else if (recipe == null) {
+                            flight.onDataAvailable(Resource.success(null));
+                        } else {
+                            flight.onDataAvailable(Resource.success(recipe.getRecipe()));
+                        }
                     } else {
-                        callback.onDataAvailable(Resource.success(recipe.getRecipe()));
+                        flight.onError(Resource.error(response.message() , null));
                     }
-                } else {
-                    callback.onError(Resource.error(response.message() , null));
                 }
-            }
 
-            @Override
-            public void onFailure(@NonNull Call<RecipeResponse> call, @NonNull Throwable throwable) {
-                callback.onError(Resource.error(throwable.getMessage(), null));
-            }
+                @Override
+                public void onFailure(@NonNull Call<RecipeResponse> call, @NonNull Throwable throwable) {
+                    flight.onError(Resource.error(throwable.getMessage(), null));
+                }
+            });
         });
     }
 
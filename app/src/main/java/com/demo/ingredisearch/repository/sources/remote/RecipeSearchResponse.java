@@ -20,6 +20,11 @@ public class RecipeSearchResponse {
         this.recipes = recipes;
     }
 
+    RecipeSearchResponse(int count, List<Recipe> recipes) {
+        this.count = count;
+        this.recipes = recipes;
+    }
+
     public int getCount() {
         return count;
     }
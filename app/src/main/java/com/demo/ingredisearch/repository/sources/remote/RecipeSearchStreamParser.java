@@ -0,0 +1,87 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decodes an {@code api/search} payload straight off the wire with a {@link JsonReader}, one
+ * recipe at a time, and reports what it has decoded so far in growing chunks.
+ * <p>
+ * The first snapshot is about one screen of rows so the list can render before the download has
+ * finished; each following snapshot is twice as large, which keeps the total cost of copying them
+ * linear in the number of recipes.
+ */
+class RecipeSearchStreamParser {
+
+    static final int FIRST_CHUNK_SIZE = 10;
+
+    interface Listener {
+        /**
+         * @param recipesSoFar every recipe decoded so far, in server order. Read-only.
+         */
+        void onRecipes(@NonNull List<Recipe> recipesSoFar);
+    }
+
+    private final TypeAdapter<Recipe> mRecipeAdapter;
+
+    RecipeSearchStreamParser(TypeAdapter<Recipe> recipeAdapter) {
+        mRecipeAdapter = recipeAdapter;
+    }
+
+    /**
+     * @return all recipes of the payload; the listener has not seen the tail of this list yet.
+     * @throws JsonSyntaxException if the payload is JSON of another shape, e.g. {@code null}
+     */
+    @NonNull
+    List<Recipe> parse(@NonNull Reader in, @NonNull Listener listener) throws IOException {
+        try {
+            return read(in, listener);
+        } catch (IllegalStateException | NumberFormatException e) {
+            // What JsonReader and the type adapters throw on a token of the wrong type
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private List<Recipe> read(Reader in, Listener listener) throws IOException {
+        List<Recipe> recipes = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("recipes") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readRecipes(reader, recipes, listener);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return Collections.unmodifiableList(recipes);
+    }
+
+    private void readRecipes(JsonReader reader, List<Recipe> recipes, Listener listener) throws IOException {
+        int nextChunkEnd = FIRST_CHUNK_SIZE;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Recipe recipe = mRecipeAdapter.read(reader);
+            if (recipe != null) {
+                recipes.add(recipe);
+            }
+            if (recipes.size() == nextChunkEnd && reader.hasNext()) {
+                listener.onRecipes(Collections.unmodifiableList(new ArrayList<>(recipes)));
+                nextChunkEnd *= 2;
+            }
+        }
+        reader.endArray();
+    }
+}
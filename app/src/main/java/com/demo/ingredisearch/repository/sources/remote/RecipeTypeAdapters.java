@@ -0,0 +1,271 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.models.IngredientPool;
+import com.demo.ingredisearch.models.Recipe;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming, reflection-free Gson adapters for {@link Recipe} and the wrappers it travels in, and
+ * the one {@link Gson} instance they are registered on.
+ * <p>
+ * The API names fields in snake_case and favorites used to be stored with {@code "isFavorite"},
+ * so both spellings of the favorite flag are read; {@code "isFavorite"} is written.
+ */
+public final class RecipeTypeAdapters {
+
+    private static Gson gson;
+
+    private RecipeTypeAdapters() {
+    }
+
+    public static synchronized Gson getGson() {
+        if (gson == null) {
+            RecipeAdapter recipeAdapter = new RecipeAdapter();
+            gson = new GsonBuilder()
+                    .registerTypeAdapter(Recipe.class, recipeAdapter)
+                    .registerTypeAdapter(RecipeSearchResponse.class, new RecipeSearchResponseAdapter(recipeAdapter).nullSafe())
+                    .registerTypeAdapter(RecipeResponse.class, new RecipeResponseAdapter(recipeAdapter).nullSafe())
+                    .registerTypeAdapter(RecipesContainer.class, new RecipesContainerAdapter(recipeAdapter).nullSafe())
+                    .create();
+        }
+        return gson;
+    }
+
+    static final class RecipeAdapter extends TypeAdapter<Recipe> {
+
+        @Override
+        public Recipe read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            String recipeId = null;
+            String title = null;
+            String imageUrl = null;
+            String sourceUrl = null;
+            String[] ingredients = null;
+            float socialRank = 0;
+            boolean isFavorite = false;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "recipe_id":
+                        recipeId = in.nextString();
+                        break;
+                    case "title":
+                        title = in.nextString();
+                        break;
+                    case "image_url":
+                        imageUrl = in.nextString();
+                        break;
+                    case "source_url":
+                        sourceUrl = in.nextString();
+                        break;
+                    case "ingredients":
+                        ingredients = readStrings(in);
+                        break;
+                    case "social_rank":
+                        socialRank = (float) in.nextDouble();
+                        break;
+                    case "isFavorite":
+                    case "is_favorite":
+                        isFavorite = in.nextBoolean();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new Recipe(recipeId, title, imageUrl, sourceUrl, ingredients, socialRank, isFavorite);
+        }
+
+        /**
+         * Ingredient lines repeat across recipes, so they are {@link IngredientPool#intern interned}.
+         */
+        private static String[] readStrings(JsonReader in) throws IOException {
+            String[] strings = new String[8];
+            int size = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == strings.length) strings = Arrays.copyOf(strings, size * 2);
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    strings[size++] = null;
+                } else {
+                    strings[size++] = IngredientPool.intern(in.nextString());
+                }
+            }
+            in.endArray();
+            return size == strings.length ? strings : Arrays.copyOf(strings, size);
+        }
+
+        @Override
+        public void write(JsonWriter out, Recipe recipe) throws IOException {
+            if (recipe == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            writeIfPresent(out, "recipe_id", recipe.getRecipeId());
+            writeIfPresent(out, "title", recipe.getTitle());
+            writeIfPresent(out, "image_url", recipe.getImageUrl());
+            writeIfPresent(out, "source_url", recipe.getSourceUrl());
+            String[] ingredients = recipe.getIngredients();
+            if (ingredients != null) {
+                out.name("ingredients").beginArray();
+                for (String ingredient : ingredients) {
+                    out.value(ingredient);
+                }
+                out.endArray();
+            }
+            // Boxed so that e.g. 99.99f is written as 99.99 rather than its double expansion
+            out.name("social_rank").value(Float.valueOf(recipe.getSocial_rank()));
+            out.name("isFavorite").value(recipe.isFavorite());
+            out.endObject();
+        }
+
+        private static void writeIfPresent(JsonWriter out, String name, String value) throws IOException {
+            if (value != null) out.name(name).value(value);
+        }
+    }
+
+    static final class RecipeSearchResponseAdapter extends TypeAdapter<RecipeSearchResponse> {
+        private final RecipeAdapter mRecipeAdapter;
+
+        RecipeSearchResponseAdapter(RecipeAdapter recipeAdapter) {
+            mRecipeAdapter = recipeAdapter;
+        }
+
+        @Override
+        public RecipeSearchResponse read(JsonReader in) throws IOException {
+            int count = 0;
+            List<Recipe> recipes = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("count") && in.peek() != JsonToken.NULL) {
+                    count = in.nextInt();
+                } else if (name.equals("recipes")) {
+                    recipes = readRecipes(in, mRecipeAdapter);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new RecipeSearchResponse(count, recipes);
+        }
+
+        @Override
+        public void write(JsonWriter out, RecipeSearchResponse response) throws IOException {
+            out.beginObject();
+            out.name("count").value(response.getCount());
+            writeRecipes(out, response.getRecipes(), mRecipeAdapter);
+            out.endObject();
+        }
+    }
+
+    static final class RecipeResponseAdapter extends TypeAdapter<RecipeResponse> {
+        private final RecipeAdapter mRecipeAdapter;
+
+        RecipeResponseAdapter(RecipeAdapter recipeAdapter) {
+            mRecipeAdapter = recipeAdapter;
+        }
+
+        @Override
+        public RecipeResponse read(JsonReader in) throws IOException {
+            Recipe recipe = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("recipe")) {
+                    recipe = mRecipeAdapter.read(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new RecipeResponse(recipe);
+        }
+
+        @Override
+        public void write(JsonWriter out, RecipeResponse response) throws IOException {
+            out.beginObject();
+            if (response.getRecipe() != null) {
+                out.name("recipe");
+                mRecipeAdapter.write(out, response.getRecipe());
+            }
+            out.endObject();
+        }
+    }
+
+    static final class RecipesContainerAdapter extends TypeAdapter<RecipesContainer> {
+        private final RecipeAdapter mRecipeAdapter;
+
+        RecipesContainerAdapter(RecipeAdapter recipeAdapter) {
+            mRecipeAdapter = recipeAdapter;
+        }
+
+        @Override
+        public RecipesContainer read(JsonReader in) throws IOException {
+            List<Recipe> recipes = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("recipes")) {
+                    recipes = readRecipes(in, mRecipeAdapter);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new RecipesContainer(recipes);
+        }
+
+        @Override
+        public void write(JsonWriter out, RecipesContainer container) throws IOException {
+            out.beginObject();
+            writeRecipes(out, container.getRecipes(), mRecipeAdapter);
+            out.endObject();
+        }
+    }
+
+    private static List<Recipe> readRecipes(JsonReader in, RecipeAdapter recipeAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<Recipe> recipes = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            recipes.add(recipeAdapter.read(in));
+        }
+        in.endArray();
+        return recipes;
+    }
+
+    private static void writeRecipes(JsonWriter out, List<Recipe> recipes, RecipeAdapter recipeAdapter) throws IOException {
+        if (recipes == null) return;
+        out.name("recipes").beginArray();
+        for (Recipe recipe : recipes) {
+            recipeAdapter.write(out, recipe);
+        }
+        out.endArray();
+    }
+}
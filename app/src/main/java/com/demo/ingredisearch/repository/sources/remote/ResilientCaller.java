@@ -0,0 +1,151 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Scheduler;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Enqueues Retrofit calls through a {@link CircuitBreaker}, retrying transient failures according
+ * to a {@link RetryPolicy}.
+ * <p>
+ * The callback only ever sees the outcome of the last attempt. While the breaker is open, calls
+ * fail fast with {@link CircuitBreaker.OpenException}.
+ */
+public class ResilientCaller {
+
+    private final RetryPolicy mRetryPolicy;
+    private final CircuitBreaker mCircuitBreaker;
+    private final Scheduler mScheduler;
+    private final Random mRandom;
+
+    private final AtomicInteger mCalls = new AtomicInteger();
+    private final AtomicInteger mRetries = new AtomicInteger();
+
+    public ResilientCaller(@NonNull RetryPolicy retryPolicy, @NonNull CircuitBreaker circuitBreaker,
+                           @NonNull Scheduler scheduler, @NonNull Random random) {
+        mRetryPolicy = retryPolicy;
+        mCircuitBreaker = circuitBreaker;
+        mScheduler = scheduler;
+        mRandom = random;
+    }
+
+    <T> Cancellable enqueue(@NonNull Call<T> call, @NonNull Callback<T> callback) {
+        mCalls.incrementAndGet();
+        Attempts<T> attempts = new Attempts<>(callback);
+        attempts.start(call);
+        return attempts;
+    }
+
+    @NonNull
+    public CircuitBreaker getCircuitBreaker() {
+        return mCircuitBreaker;
+    }
+
+    public int getCalls() {
+        return mCalls.get();
+    }
+
+    public int getRetries() {
+        return mRetries.get();
+    }
+
+    private final class Attempts<T> implements Callback<T>, Cancellable {
+        private final Callback<T> mCallback;
+        private int mAttempt;
+        private long mLastDelayMillis;
+        private Call<T> mCurrentCall;
+        private Cancellable mPendingRetry;
+        private volatile boolean mCancelled;
+
+        Attempts(Callback<T> callback) {
+            mCallback = callback;
+        }
+
+        void start(Call<T> call) {
+            synchronized (this) {
+                if (mCancelled) return;
+                mCurrentCall = call;
+                mAttempt++;
+            }
+            if (!mCircuitBreaker.tryAcquire()) {
+                mCallback.onFailure(call, new CircuitBreaker.OpenException());
+                return;
+            }
+            call.enqueue(this);
+        }
+
+        @Override
+        public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+            if (mCancelled) {
+                mCircuitBreaker.release();
+                return;
+            }
+
+            if (mRetryPolicy.isRetryable(response.code())) {
+                mCircuitBreaker.onFailure();
+                if (retry(call)) {
+                    closeQuietly(response.errorBody());
+                    return;
+                }
+            } else {
+                mCircuitBreaker.onSuccess();
+            }
+            mCallback.onResponse(call, response);
+        }
+
+        @Override
+        public void onFailure(@NonNull Call<T> call, @NonNull Throwable throwable) {
+            if (mCancelled) {
+                mCircuitBreaker.release();
+                return;
+            }
+
+            mCircuitBreaker.onFailure();
+            if (mRetryPolicy.isRetryable(throwable) && retry(call)) return;
+            mCallback.onFailure(call, throwable);
+        }
+
+        /**
+         * @return true if another attempt was scheduled
+         */
+        private synchronized boolean retry(Call<T> failed) {
+            if (mAttempt >= mRetryPolicy.getMaxAttempts()) return false;
+
+            mLastDelayMillis = mRetryPolicy.nextDelay(mLastDelayMillis, mRandom);
+            mRetries.incrementAndGet();
+            mPendingRetry = mScheduler.schedule(() -> start(failed.clone()), mLastDelayMillis);
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            Call<T> call;
+            Cancellable pendingRetry;
+            synchronized (this) {
+                mCancelled = true;
+                call = mCurrentCall;
+                pendingRetry = mPendingRetry;
+            }
+            if (pendingRetry != null) pendingRetry.cancel();
+            if (call != null) call.cancel();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+
+    private static void closeQuietly(ResponseBody body) {
+        if (body != null) body.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * How often and how far apart a remote call is retried.
+ * <p>
+ * Delays follow "decorrelated jitter": each one is drawn uniformly between the base delay and
+ * three times the previous delay, capped at the maximum. Compared with plain exponential backoff
+ * this spreads out clients that failed at the same moment instead of having them retry in lockstep.
+ */
+public class RetryPolicy {
+
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+
+    /**
+     * @param maxAttempts total number of attempts, including the first one
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1 || baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis)
+            throw new IllegalArgumentException("Invalid retry policy");
+
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+    }
+
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * @param previousDelayMillis the delay before the previous retry, or 0 before the first one
+     */
+    long nextDelay(long previousDelayMillis, @NonNull Random random) {
+        long upper = Math.max(mBaseDelayMillis, previousDelayMillis * 3);
+        long delay = mBaseDelayMillis + (long) (random.nextDouble() * (upper - mBaseDelayMillis));
+        return Math.min(mMaxDelayMillis, delay);
+    }
+
+    /**
+     * Timeouts, throttling and server errors are worth another try; other client errors are not.
+     */
+    boolean isRetryable(int httpCode) {
+        return httpCode == 408 || httpCode == 429 || httpCode >= 500;
+    }
+
+    boolean isRetryable(@NonNull Throwable throwable) {
+        return throwable instanceof IOException && !(throwable instanceof CircuitBreaker.OpenException);
+    }
+}
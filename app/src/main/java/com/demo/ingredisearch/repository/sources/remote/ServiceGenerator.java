@@ -1,34 +1,134 @@
 package com.demo.ingredisearch.repository.sources.remote;
 
-import com.google.gson.FieldNamingPolicy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+/**
+ * Hands out {@link RecipeApi} calls backed by one process-wide HTTP stack.
+ * <p>
+ * The {@link OkHttpClient}, {@link Gson} instance (see {@link RecipeTypeAdapters}) and
+ * {@link RecipeApi} proxy are created once and shared, so consecutive searches reuse pooled (and,
+ * where the server allows it, HTTP/2 multiplexed) connections and TLS sessions instead of paying
+ * for a cold client every time.
+ * Responses go through the {@link HttpResponseCache} if one was installed before the first call,
+ * and every call is timed by {@link #getNetworkMetrics()}.
+ */
 class ServiceGenerator {
 
     private static final String API_KEY = "";
     private static final String BASE_URL = "https://recipesapi.herokuapp.com";
 
-    Call<RecipeSearchResponse> getRecipesService(String query) {
-        return getRecipeApi().search(API_KEY, query);
+    // Every request goes to the same host, so the per-host limit is the one that matters.
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+
+    private static final NetworkMetrics networkMetrics = new NetworkMetrics();
+
+    private static OkHttpClient httpClient;
+    private static RecipeApi recipeApi;
+
+    private final RecipeApi mRecipeApi;
+
+    ServiceGenerator() {
+        this(getSharedRecipeApi());
+    }
+
+    @VisibleForTesting
+    ServiceGenerator(@NonNull RecipeApi recipeApi) {
+        mRecipeApi = recipeApi;
+    }
+
+    Call<ResponseBody> getRecipesStreamingService(String query, int page) {
+        return mRecipeApi.searchStreaming(API_KEY, query, page);
     }
 
     Call<RecipeResponse> getRecipeService(String recipeId) {
-        return getRecipeApi().getRecipe(API_KEY, recipeId);
+        return mRecipeApi.getRecipe(API_KEY, recipeId);
     }
 
-    private RecipeApi getRecipeApi() {
-        Gson gson = new GsonBuilder()
-                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                .create();
+    static synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            httpClient = createHttpClient();
+        }
+        return httpClient;
+    }
+
+    /**
+     * Timings of every call made through the shared client.
+     */
+    static NetworkMetrics getNetworkMetrics() {
+        return networkMetrics;
+    }
+
+    static Gson getGson() {
+        return RecipeTypeAdapters.getGson();
+    }
+
+    private static synchronized RecipeApi getSharedRecipeApi() {
+        if (recipeApi == null) {
+            recipeApi = createRecipeApi(BASE_URL, getHttpClient());
+        }
+        return recipeApi;
+    }
+
+    static OkHttpClient createHttpClient() {
+        return createHttpClient(HttpResponseCache.getInstalled(), networkMetrics);
+    }
+
+    @VisibleForTesting
+    static OkHttpClient createHttpClient(@Nullable HttpResponseCache responseCache) {
+        return createHttpClient(responseCache, null);
+    }
+
+    @VisibleForTesting
+    static OkHttpClient createHttpClient(@Nullable HttpResponseCache responseCache,
+                                         @Nullable NetworkMetrics metrics) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        if (responseCache != null) {
+            builder.cache(responseCache.getCache())
+                    .addNetworkInterceptor(responseCache.getNetworkInterceptor());
+        }
+        if (metrics != null) {
+            builder.eventListenerFactory(metrics);
+        }
+        return builder.build();
+    }
 
+    @VisibleForTesting
+    static RecipeApi createRecipeApi(String baseUrl, OkHttpClient client) {
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create(gson))
+                .baseUrl(baseUrl)
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create(getGson()))
                 .build();
 
         return retrofit.create(RecipeApi.class);
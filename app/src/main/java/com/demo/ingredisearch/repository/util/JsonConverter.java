@@ -2,6 +2,7 @@ package com.demo.ingredisearch.repository.util;
 
 import com.demo.ingredisearch.models.Recipe;
 import com.demo.ingredisearch.repository.sources.remote.RecipeResponse;
+import com.demo.ingredisearch.repository.sources.remote.RecipeTypeAdapters;
 import com.demo.ingredisearch.repository.sources.remote.RecipesContainer;
 import com.google.gson.Gson;
 
@@ -9,7 +10,7 @@ import java.util.List;
 
 public class JsonConverter {
 
-    private static Gson gson = new Gson();
+    private static final Gson gson = RecipeTypeAdapters.getGson();
 
     public static String toJson(List<Recipe> recipes) {
         return gson.toJson(new RecipesContainer(recipes));
@@ -0,0 +1,194 @@
+package com.demo.ingredisearch.repository.util;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Turns an ingredient query as typed into a stable key, so that "eggs, milk", "Milk,eggs" and
+ * " egg ,milk " all cache and coalesce as the same query, {@code "egg,milk"}.
+ * <p>
+ * Ingredients are separated by commas or semicolons; each one is trimmed, lower-cased, has its
+ * inner whitespace collapsed and its last word singularized, then the set is sorted.
+ * <p>
+ * The key is only ever used to look things up. What goes to the server is
+ * {@link #forServer(String)}, the query as typed minus case and repeats, since singularizing is a
+ * guess the server's own matching should not have to live with.
+ * <p>
+ * Every distinct raw query seen is tallied against its key, for a bounded number of keys, to show
+ * how much canonicalization collapses.
+ */
+public final class QueryCanonicalizer {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[,;]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String JOINER = ",";
+
+    private static final int MAX_TRACKED_KEYS = 1000;
+    private static final int MAX_TRACKED_VARIANTS = 64;
+    private static final Map<String, Set<String>> variants = new HashMap<>();
+
+    // Plurals the rules below get wrong
+    private static final Map<String, String> IRREGULAR_PLURALS = new HashMap<>();
+    // Singulars ending in "ie", whose plural looks like "berries"
+    private static final Set<String> IE_SINGULARS = new HashSet<>();
+    // Ends in "s" without being a plural
+    private static final Set<String> UNCOUNTABLE = new HashSet<>();
+
+    static {
+        String[][] irregular = {
+                {"leaves", "leaf"}, {"loaves", "loaf"}, {"halves", "half"}, {"calves", "calf"},
+                {"knives", "knife"}, {"geese", "goose"}, {"mice", "mouse"}, {"teeth", "tooth"}
+        };
+        for (String[] pair : irregular) IRREGULAR_PLURALS.put(pair[0], pair[1]);
+        IE_SINGULARS.addAll(Arrays.asList("pie", "cookie", "veggie", "brownie", "smoothie", "calorie",
+                "rotisserie", "pierogie", "birdie", "hoagie", "sweetie", "specie"));
+        UNCOUNTABLE.addAll(Arrays.asList("molasses", "hummus", "asparagus", "couscous", "swiss", "citrus",
+                "grits", "schnapps", "series", "species"));
+    }
+
+    private QueryCanonicalizer() {
+    }
+
+    @NonNull
+    public static String canonicalize(@NonNull String query) {
+        TreeSet<String> ingredients = new TreeSet<>();
+        for (String token : SEPARATORS.split(query)) {
+            String ingredient = WHITESPACE.matcher(token.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+            if (!ingredient.isEmpty()) ingredients.add(singularizeLastWord(ingredient));
+        }
+
+        StringBuilder key = new StringBuilder(query.length());
+        for (String ingredient : ingredients) {
+            if (key.length() > 0) key.append(JOINER);
+            key.append(ingredient);
+        }
+        String canonical = key.toString();
+        record(query, canonical);
+        return canonical;
+    }
+
+    /**
+     * @return {@code query} the way the server should see it: each ingredient trimmed,
+     * lower-cased and with its inner whitespace collapsed, repeats dropped, otherwise as typed
+     */
+    @NonNull
+    public static String forServer(@NonNull String query) {
+        Set<String> ingredients = new LinkedHashSet<>();
+        for (String token : SEPARATORS.split(query)) {
+            String ingredient = WHITESPACE.matcher(token.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+            if (!ingredient.isEmpty()) ingredients.add(ingredient);
+        }
+
+        StringBuilder server = new StringBuilder(query.length());
+        for (String ingredient : ingredients) {
+            if (server.length() > 0) server.append(JOINER);
+            server.append(ingredient);
+        }
+        return server.toString();
+    }
+
+    private static String singularizeLastWord(String ingredient) {
+        int lastSpace = ingredient.lastIndexOf(' ');
+        return ingredient.substring(0, lastSpace + 1) + singularize(ingredient.substring(lastSpace + 1));
+    }
+
+    /**
+     * English plural rules good enough for ingredient names; words it doesn't recognize as plural
+     * are left alone.
+     */
+    public static String singularize(String word) {
+        int length = word.length();
+        if (length <= 3 || UNCOUNTABLE.contains(word)) return word;
+
+        String irregular = IRREGULAR_PLURALS.get(word);
+        if (irregular != null) return irregular;
+
+        if (word.endsWith("ies")) {
+            String stem = word.substring(0, length - 1);
+            // pies, cookies, veggies; but berries, cherries
+            if (length == 4 || IE_SINGULARS.contains(stem)) return stem;
+            return word.substring(0, length - 3) + "y";
+        } else if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes") || word.endsWith("xes")) {
+            return word.substring(0, length - 2); // tomatoes, peaches, radishes, boxes
+        } else if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")
+                && !word.endsWith("is") && !word.endsWith("sses")) {
+            return word.substring(0, length - 1); // eggs, but not swiss, couscous or molasses
+        }
+        return word;
+    }
+
+    private static synchronized void record(String query, String key) {
+        Set<String> seen = variants.get(key);
+        if (seen == null) {
+            if (variants.size() >= MAX_TRACKED_KEYS) return;
+            seen = new HashSet<>();
+            variants.put(key, seen);
+        }
+        if (seen.size() < MAX_TRACKED_VARIANTS) seen.add(query);
+    }
+
+    /**
+     * @return how many distinct raw queries have been seen for {@code key}
+     */
+    public static synchronized int variantsOf(@NonNull String key) {
+        Set<String> seen = variants.get(key);
+        return seen == null ? 0 : seen.size();
+    }
+
+    @NonNull
+    public static synchronized Stats getStats() {
+        int rawQueries = 0;
+        int collapsedKeys = 0;
+        for (Set<String> seen : variants.values()) {
+            rawQueries += seen.size();
+            if (seen.size() > 1) collapsedKeys++;
+        }
+        return new Stats(rawQueries, variants.size(), collapsedKeys);
+    }
+
+    public static synchronized void resetStats() {
+        variants.clear();
+    }
+
+    /**
+     * Point-in-time canonicalization counters.
+     */
+    public static final class Stats {
+        /** Distinct queries as typed. */
+        public final int rawQueries;
+        /** Distinct keys they canonicalized to. */
+        public final int keys;
+        /** Keys that more than one raw query canonicalized to. */
+        public final int collapsedKeys;
+
+        Stats(int rawQueries, int keys, int collapsedKeys) {
+            this.rawQueries = rawQueries;
+            this.keys = keys;
+            this.collapsedKeys = collapsedKeys;
+        }
+
+        /** Raw queries per key; anything above 1 is requests and cache entries saved. */
+        public double collapseRatio() {
+            return keys == 0 ? 0 : (double) rawQueries / keys;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "rawQueries=" + rawQueries +
+                    ", keys=" + keys +
+                    ", collapsedKeys=" + collapsedKeys +
+                    '}';
+        }
+    }
+}
@@ -10,6 +10,9 @@ import androidx.navigation.ui.NavigationUI;
 import android.os.Bundle;
 
 import com.demo.ingredisearch.R;
+import com.demo.ingredisearch.repository.cache.SearchResultCache;
+import com.demo.ingredisearch.repository.index.IngredientIndex;
+import com.demo.ingredisearch.repository.sources.remote.HttpResponseCache;
 import com.google.android.material.navigation.NavigationView;
 
 public class MainActivity extends AppCompatActivity {
@@ -21,6 +24,9 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        HttpResponseCache.install(getCacheDir());
+        SearchResultCache.install(getCacheDir());
+        IngredientIndex.install(getCacheDir());
         setContentView(R.layout.activity_main);
 
         setupNavigationDrawer();
@@ -7,6 +7,10 @@ import androidx.annotation.NonNull;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Global executor pools for the whole application.
@@ -20,15 +24,29 @@ public class AppExecutors {
 
     private final Executor mainThread;
 
-    public AppExecutors(Executor networkIO, Executor mainThread) {
+    private final Scheduler scheduler;
+
+    public AppExecutors(Executor networkIO, Executor mainThread, Scheduler scheduler) {
         this.networkIO = networkIO;
         this.mainThread = mainThread;
+        this.scheduler = scheduler;
     }
 
     public AppExecutors() {
         this(Executors.newScheduledThreadPool(3), new MainThreadExecutor());
     }
 
+    private AppExecutors(Executor networkIO, Executor mainThread) {
+        this(networkIO, mainThread, new ScheduledExecutorScheduler(
+                Executors.newSingleThreadScheduledExecutor(AppExecutors::timerThread), networkIO));
+    }
+
+    private static Thread timerThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "scheduler");
+        thread.setDaemon(true);
+        return thread;
+    }
+
     public Executor networkIO() {
         return networkIO;
     }
@@ -37,6 +55,14 @@ public class AppExecutors {
         return mainThread;
     }
 
+    /**
+     * Delayed tasks (retries, deadlines) run on the network pool. Their timer has a thread of its
+     * own, so a deadline goes off on time even while every network thread is blocked.
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
     private static class MainThreadExecutor implements Executor {
         private Handler mainThreadHandler = new Handler(Looper.getMainLooper());
         @Override
@@ -44,4 +70,36 @@ public class AppExecutors {
             mainThreadHandler.post(command);
         }
     }
+
+    private static class ScheduledExecutorScheduler implements Scheduler {
+        private final ScheduledExecutorService timer;
+        private final Executor executor;
+
+        ScheduledExecutorScheduler(ScheduledExecutorService timer, Executor executor) {
+            this.timer = timer;
+            this.executor = executor;
+        }
+
+        @Override
+        public Cancellable schedule(@NonNull Runnable task, long delayMillis) {
+            AtomicBoolean cancelled = new AtomicBoolean();
+            // The timer only hands the task off; it may still wait on the executor, so a
+            // cancellation is checked again just before it runs
+            ScheduledFuture<?> future = timer.schedule(() -> executor.execute(() -> {
+                if (!cancelled.get()) task.run();
+            }), delayMillis, TimeUnit.MILLISECONDS);
+            return new Cancellable() {
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                    future.cancel(false);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelled.get();
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package com.demo.ingredisearch.util;
+
+/**
+ * Handle to a pending operation. Once cancelled, the operation must not deliver any result.
+ */
+public interface Cancellable {
+
+    void cancel();
+
+    boolean isCancelled();
+}
@@ -0,0 +1,20 @@
+package com.demo.ingredisearch.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of time, so time-based logic can be driven by a fake clock in tests.
+ */
+public interface Clock {
+
+    /** Monotonic; for measuring durations within the process. */
+    Clock SYSTEM = () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+
+    /** Wall-clock time; for timestamps that have to mean something after a restart. */
+    Clock WALL = System::currentTimeMillis;
+
+    /**
+     * @return milliseconds since an arbitrary, fixed origin; only differences are meaningful.
+     */
+    long now();
+}
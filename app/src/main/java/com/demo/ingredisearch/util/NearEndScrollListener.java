@@ -0,0 +1,45 @@
+package com.demo.ingredisearch.util;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Calls back when a list scrolled downwards to within {@code threshold} items of its end, so the
+ * next page can be fetched before the user actually reaches it.
+ * <p>
+ * A list too short to scroll never scrolls there, so the end is also checked when a layout changes
+ * what is visible, and on {@link #check(RecyclerView)}, e.g. once new results are shown.
+ */
+public class NearEndScrollListener extends RecyclerView.OnScrollListener {
+    private final int mThreshold;
+    private final Runnable mOnNearEnd;
+
+    public NearEndScrollListener(int threshold, Runnable onNearEnd) {
+        mThreshold = threshold;
+        mOnNearEnd = onNearEnd;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        // 0 after a layout that changed the visible items, e.g. a first page that fits the screen
+        if (dy < 0) return;
+        check(recyclerView);
+    }
+
+    /**
+     * Calls back if the last visible item of {@code recyclerView} is within the threshold of its
+     * end, whether or not it was scrolled there.
+     */
+    public void check(@NonNull RecyclerView recyclerView) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) return;
+
+        int itemCount = layoutManager.getItemCount();
+        if (itemCount == 0) return;
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        if (lastVisible >= itemCount - 1 - mThreshold) {
+            mOnNearEnd.run();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Objects;
 
 import static com.demo.ingredisearch.util.Status.ERROR;
 import static com.demo.ingredisearch.util.Status.LOADING;
+import static com.demo.ingredisearch.util.Status.PARTIAL;
 import static com.demo.ingredisearch.util.Status.SUCCESS;
 
 /**
@@ -24,16 +25,30 @@ public class Resource<T> {
     @Nullable
     public final T data;
 
+    /**
+     * The data was served from a cache and may be out of date; a fresher copy is being fetched.
+     */
+    public final boolean stale;
+
     public Resource(@NonNull Status status, @Nullable T data, @Nullable String message) {
+        this(status, data, message, false);
+    }
+
+    public Resource(@NonNull Status status, @Nullable T data, @Nullable String message, boolean stale) {
         this.status = status;
         this.data = data;
         this.message = message;
+        this.stale = stale;
     }
 
     public static <T> Resource<T> success(@Nullable T data) {
         return new Resource<>(SUCCESS, data, null);
     }
 
+    public static <T> Resource<T> stale(@Nullable T data) {
+        return new Resource<>(SUCCESS, data, null, true);
+    }
+
     public static <T> Resource<T> error(String msg, @Nullable T data) {
         return new Resource<>(ERROR, data, msg);
     }
@@ -42,6 +57,10 @@ public class Resource<T> {
         return new Resource<>(LOADING, data, null);
     }
 
+    public static <T> Resource<T> partial(@Nullable T data) {
+        return new Resource<>(PARTIAL, data, null);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -53,7 +72,7 @@ public class Resource<T> {
 
         Resource<?> resource = (Resource<?>) o;
 
-        if (status != resource.status) {
+        if (status != resource.status || stale != resource.stale) {
             return false;
         }
         if (!Objects.equals(message, resource.message)) {
@@ -67,6 +86,7 @@ public class Resource<T> {
         int result = status.hashCode();
         result = 31 * result + (message != null ? message.hashCode() : 0);
         result = 31 * result + (data != null ? data.hashCode() : 0);
+        result = 31 * result + (stale ? 1 : 0);
         return result;
     }
 
@@ -77,6 +97,7 @@ public class Resource<T> {
                 "status=" + status +
                 ", message='" + message + '\'' +
                 ", data=" + data +
+                ", stale=" + stale +
                 '}';
     }
 }
@@ -0,0 +1,11 @@
+package com.demo.ingredisearch.util;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Runs tasks after a delay.
+ */
+public interface Scheduler {
+
+    Cancellable schedule(@NonNull Runnable task, long delayMillis);
+}
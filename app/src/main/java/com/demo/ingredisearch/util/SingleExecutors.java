@@ -1,11 +1,35 @@
 package com.demo.ingredisearch.util;
 
+import androidx.annotation.NonNull;
+
 import java.util.concurrent.Executor;
 
 public class SingleExecutors extends AppExecutors {
     private static final Executor instant = Runnable::run;
 
+    // Ignores the delay and runs the task right away
+    private static final Scheduler immediate = new Scheduler() {
+        @Override
+        public Cancellable schedule(@NonNull Runnable task, long delayMillis) {
+            task.run();
+            return new Cancellable() {
+                @Override
+                public void cancel() {
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+            };
+        }
+    };
+
     public SingleExecutors() {
-        super(instant, instant);
+        this(immediate);
+    }
+
+    public SingleExecutors(Scheduler scheduler) {
+        super(instant, instant, scheduler);
     }
 }
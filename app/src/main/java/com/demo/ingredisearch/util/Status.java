@@ -9,6 +9,10 @@ package com.demo.ingredisearch.util;
 public enum Status {
     SUCCESS,
     ERROR,
-    LOADING
+    LOADING,
+    /**
+     * Part of the data has arrived and more is on the way; a SUCCESS or ERROR follows.
+     */
+    PARTIAL
 }
 
@@ -0,0 +1,200 @@
+package com.demo.ingredisearch.adapters;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.demo.ingredisearch.R;
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static android.os.Looper.getMainLooper;
+import static com.demo.ingredisearch.TestData.mRecipes;
+import static com.demo.ingredisearch.TestData.recipe1;
+import static com.demo.ingredisearch.TestData.recipe2_favored;
+import static com.demo.ingredisearch.TestData.recipe3;
+import static com.demo.ingredisearch.TestData.recipe4;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(AndroidJUnit4.class)
+@Config(sdk = 28)
+public class RecipeAdapterTest {
+
+    // SUT
+    CountingAdapter mAdapter;
+
+    RecyclerView mRecyclerView;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.setTheme(R.style.AppTheme);
+        mRecyclerView = new RecyclerView(context);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(context));
+        // Change animations bind a second holder; count the binds of the update itself
+        mRecyclerView.setItemAnimator(null);
+        // Diff on the test thread; results still come back through the main looper
+        mAdapter = new CountingAdapter();
+        mRecyclerView.setAdapter(mAdapter);
+        show(mRecipes);
+        mAdapter.mBinds = 0;
+        mAdapter.mPayloadBinds = 0;
+    }
+
+    @Test
+    public void setRecipes_equalList_bindsNothing() {
+        // Act (When)
+        show(new ArrayList<>(mRecipes));
+
+        // Assert (Then)
+        assertThat(mAdapter.mBinds, is(0));
+        assertThat(mAdapter.getItemCount(), is(4));
+    }
+
+    @Test
+    public void setRecipes_favoriteFlagChanged_updatesOnlyThatRowsIcon() {
+        // Arrange (Given)
+        View row = mRecyclerView.findViewHolderForAdapterPosition(1).itemView;
+
+        // Act (When)
+        show(Arrays.asList(recipe1, recipe2_favored, recipe3, recipe4));
+
+        // Assert (Then)
+        assertThat(mAdapter.mBinds, is(0));
+        assertThat(mAdapter.mPayloadBinds, is(1));
+        // Same view, only the icon swapped
+        assertThat(mRecyclerView.findViewHolderForAdapterPosition(1).itemView, is(sameInstance(row)));
+        assertThat(row.findViewById(R.id.favButton).getTag(), is(R.drawable.ic_favorite_24dp));
+    }
+
+    @Test
+    public void setRecipes_storesWithFavoriteFlagChanged_updatesOnlyThatRowsIcon() {
+        // Arrange (Given)
+        show(RecipeStore.of(mRecipes));
+        mAdapter.mBinds = 0;
+        mAdapter.mPayloadBinds = 0;
+
+        // Act (When)
+        show(RecipeStore.of(Arrays.asList(recipe1, recipe2_favored, recipe3, recipe4)));
+
+        // Assert (Then)
+        assertThat(mAdapter.mBinds, is(0));
+        assertThat(mAdapter.mPayloadBinds, is(1));
+    }
+
+    @Test
+    public void setRecipes_favoriteAndTitleChanged_bindsThatRowFully() {
+        // Arrange (Given)
+        Recipe renamed = new Recipe(recipe2_favored.getRecipeId(), "Renamed", recipe2_favored.getImageUrl(),
+                recipe2_favored.getSourceUrl(), recipe2_favored.getIngredients(),
+                recipe2_favored.getSocial_rank(), true);
+
+        // Act (When)
+        show(Arrays.asList(recipe1, renamed, recipe3, recipe4));
+
+        // Assert (Then)
+        assertThat(mAdapter.mBinds, is(1));
+    }
+
+    @Test
+    public void getItemId_sameRecipeInAnotherList_keepsItsId() {
+        // Arrange (Given)
+        long before = mAdapter.getItemId(2);
+
+        // Act (When)
+        show(Arrays.asList(recipe3, recipe1, recipe4));
+
+        // Assert (Then)
+        assertThat(mAdapter.hasStableIds(), is(true));
+        assertThat(mAdapter.getItemId(0), is(before));
+        assertThat(mAdapter.getItemId(1), is(not(before)));
+        assertThat(mAdapter.getItemId(0), is(RecipeAdapter.stableIdOf(recipe3.getRecipeId())));
+    }
+
+    @Test
+    public void setRecipes_hiddenFieldChanged_bindsNothing() {
+        // Arrange (Given)
+        Recipe reRanked = new Recipe(recipe1);
+        reRanked.setSocial_rank(1F);
+        reRanked.setIngredients(new String[]{"4 eggs"});
+
+        // Act (When)
+        show(Arrays.asList(reRanked, mRecipes.get(1), recipe3, recipe4));
+
+        // Assert (Then)
+        assertThat(mAdapter.mBinds, is(0));
+    }
+
+    @Test
+    public void setRecipes_rowInsertedAndRemoved_bindsOnlyNewRow() {
+        // Arrange (Given)
+        Recipe added = new Recipe("new", "New recipe", null, null, new String[0], 10F, false);
+
+        // Act (When)
+        show(Arrays.asList(recipe1, added, recipe3, recipe4));
+
+        // Assert (Then)
+        assertThat(mAdapter.mBinds, is(1));
+        assertThat(mAdapter.getItemCount(), is(4));
+    }
+
+    private void show(List<Recipe> recipes) {
+        mAdapter.setRecipes(recipes);
+        shadowOf(getMainLooper()).idle();
+        mRecyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, 1080, 1920);
+    }
+
+    private static class CountingAdapter extends RecipeAdapter {
+        int mBinds;
+        int mPayloadBinds;
+
+        CountingAdapter() {
+            super(new Interaction() {
+                @Override
+                public void onClickItem(Recipe item) {
+                }
+
+                @Override
+                public void onAddFavorite(Recipe item) {
+                }
+
+                @Override
+                public void onRemoveFavorite(Recipe item) {
+                }
+            }, Runnable::run);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position) {
+            mBinds++;
+            super.onBindViewHolder(holder, position);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position, @NonNull List<Object> payloads) {
+            if (!payloads.isEmpty()) mPayloadBinds++;
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.demo.ingredisearch.adapters;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.activity.ComponentActivity;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.demo.ingredisearch.R;
+import com.demo.ingredisearch.models.Recipe;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import static android.os.Looper.getMainLooper;
+import static com.demo.ingredisearch.TestData.mRecipes;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(AndroidJUnit4.class)
+@Config(sdk = 28)
+public class RecyclerPoolsTest {
+
+    ActivityController<ComponentActivity> mController;
+    ComponentActivity mActivity;
+
+    @Before
+    public void setUp() {
+        mController = Robolectric.buildActivity(ComponentActivity.class).setup();
+        mActivity = mController.get();
+        mActivity.setTheme(R.style.AppTheme);
+    }
+
+    @After
+    public void tearDown() {
+        RecyclerPools.clear();
+    }
+
+    @Test
+    public void setUpRecipeList_twoListsOfOneActivity_shareOnePool() {
+        // Arrange (Given)
+        RecyclerView search = new RecyclerView(mActivity);
+        RecyclerView favorites = new RecyclerView(mActivity);
+
+        // Act (When)
+        RecyclerPools.setUpRecipeList(search);
+        RecyclerPools.setUpRecipeList(favorites);
+
+        // Assert (Then)
+        assertThat(favorites.getRecycledViewPool(), is(sameInstance(search.getRecycledViewPool())));
+    }
+
+    @Test
+    public void recipePool_activityDestroyed_isNotReused() {
+        // Arrange (Given)
+        RecyclerView.RecycledViewPool before = RecyclerPools.recipePool(mActivity);
+
+        // Act (When)
+        mController.pause().stop().destroy();
+        ComponentActivity next = Robolectric.buildActivity(ComponentActivity.class).setup().get();
+
+        // Assert (Then)
+        assertThat(RecyclerPools.recipePool(next), is(not(sameInstance(before))));
+    }
+
+    @Test
+    public void listDetached_handsItsRowsToTheSharedPool() {
+        // Arrange (Given)
+        RecyclerView list = showRecipes();
+
+        // Act (When)
+        ((ViewGroup) list.getParent()).removeView(list);
+
+        // Assert (Then)
+        assertThat(RecyclerPools.recipePool(mActivity).getRecycledViewCount(RecyclerPools.RECIPE_VIEW_TYPE),
+                is(mRecipes.size()));
+    }
+
+    @Test
+    public void preInflateRecipeRows_firstResultsUseThePreInflatedRows() throws Exception {
+        // Arrange (Given)
+        RecyclerPools.preInflateRecipeRows(mActivity);
+        awaitPreInflated(RecyclerPools.PRE_INFLATED_RECIPE_ROWS);
+
+        // Act (When)
+        showRecipes();
+
+        // Assert (Then)
+        assertThat(RecyclerPools.getPreInflatedCount(), is(RecyclerPools.PRE_INFLATED_RECIPE_ROWS - mRecipes.size()));
+    }
+
+    private RecyclerView showRecipes() {
+        RecyclerView list = new RecyclerView(mActivity);
+        RecyclerPools.setUpRecipeList(list);
+        list.setItemAnimator(null);
+        RecipeAdapter adapter = new RecipeAdapter(new RecipeAdapter.Interaction() {
+            @Override
+            public void onClickItem(Recipe item) {
+            }
+
+            @Override
+            public void onAddFavorite(Recipe item) {
+            }
+
+            @Override
+            public void onRemoveFavorite(Recipe item) {
+            }
+        }, Runnable::run);
+        list.setAdapter(adapter);
+        mActivity.setContentView(list);
+        adapter.setRecipes(mRecipes);
+        shadowOf(getMainLooper()).idle();
+        list.measure(
+                View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        list.layout(0, 0, 1080, 1920);
+        return list;
+    }
+
+    // Rows are inflated on a background thread and handed over through the main looper, whose
+    // clock is simulated; the deadline goes by the real one
+    private static void awaitPreInflated(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (RecyclerPools.getPreInflatedCount() < count && System.currentTimeMillis() < deadline) {
+            shadowOf(getMainLooper()).idle();
+            Thread.sleep(10);
+        }
+        assertThat(RecyclerPools.getPreInflatedCount(), is(count));
+    }
+}
@@ -1,7 +1,12 @@
 package com.demo.ingredisearch.features.searchresults;
 
+import com.demo.ingredisearch.repository.RecipeRepository;
+
 import org.junit.Test;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
 public class SearchResultsViewModelTest {
 
     @Test
@@ -76,4 +81,18 @@ public class SearchResultsViewModelTest {
         // Assert (Then)
     }
 
+    @Test
+    public void loadNextPage_asksRepositoryForTheNextPage() {
+        // Arrange (Given)
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        SearchResultsViewModel viewModel = new SearchResultsViewModel(recipeRepository);
+        viewModel.searchRecipes("eggs");
+
+        // Act (When)
+        viewModel.loadNextPage();
+
+        // Assert (Then)
+        verify(recipeRepository).searchRecipes("eggs");
+        verify(recipeRepository).loadNextPage();
+    }
 }
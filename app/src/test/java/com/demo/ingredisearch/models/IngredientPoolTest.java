@@ -0,0 +1,44 @@
+package com.demo.ingredisearch.models;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class IngredientPoolTest {
+
+    @Test
+    public void intern_equalStrings_returnsSameInstance() {
+        // Arrange (Given)
+        String first = new String("1 cup pool-test flour");
+        String second = new String("1 cup pool-test flour");
+
+        // Act (When)
+        String internedFirst = IngredientPool.intern(first);
+        String internedSecond = IngredientPool.intern(second);
+
+        // Assert (Then)
+        assertThat(internedFirst, is(sameInstance(first)));
+        assertThat(internedSecond, is(sameInstance(first)));
+        assertThat(IngredientPool.isPooled(first), is(true));
+        assertThat(IngredientPool.isPooled(second), is(false));
+    }
+
+    @Test
+    public void internAll_replacesElementsInPlace() {
+        // Arrange (Given)
+        String pooled = IngredientPool.intern(new String("pool-test salt"));
+        String[] ingredients = {new String("pool-test salt"), null};
+
+        // Act (When)
+        String[] result = IngredientPool.internAll(ingredients);
+
+        // Assert (Then)
+        assertThat(result, is(sameInstance(ingredients)));
+        assertThat(ingredients[0], is(sameInstance(pooled)));
+        assertThat(ingredients[1], is(nullValue()));
+        assertThat(IngredientPool.internAll(null), is(nullValue()));
+    }
+}
@@ -0,0 +1,114 @@
+package com.demo.ingredisearch.models;
+
+import com.demo.ingredisearch.util.BenchmarkUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Heap held by large result sets as recipe objects against a {@link RecipeStore}, and the cost of
+ * handing out the list after every page, which used to copy it.
+ */
+public class RecipeStoreBenchmark {
+
+    private static final int PAGE_SIZE = 30;
+
+    @Test
+    public void retainedHeap_objects_vs_store() throws Exception {
+        for (int count : new int[]{10_000, 50_000}) {
+            List<Recipe> source = recipes(count);
+
+            long objects = retainedBytes(() -> {
+                List<Recipe> copy = new ArrayList<>(count);
+                for (Recipe recipe : source) copy.add(parsedCopy(recipe));
+                return copy;
+            }, source);
+            long store = retainedBytes(() -> RecipeStore.of(source), source);
+
+            System.out.println(String.format(Locale.US, "%-40s %,12d B", "objects, " + count + " recipes", objects));
+            System.out.println(String.format(Locale.US, "%-40s %,12d B (%.0f%% less)", "store, " + count + " recipes",
+                    store, 100.0 * (objects - store) / objects));
+        }
+    }
+
+    @Test
+    public void pagedList_copy_vs_snapshot() throws Exception {
+        List<Recipe> source = recipes(10_020);
+
+        BenchmarkUtil.measure("copy per page, 10k recipes", 20, 20, () -> {
+            Map<String, Recipe> merged = new LinkedHashMap<>();
+            for (int page = 0; page * PAGE_SIZE < source.size(); page++) {
+                for (Recipe recipe : source.subList(page * PAGE_SIZE, (page + 1) * PAGE_SIZE)) {
+                    merged.putIfAbsent(recipe.getRecipeId(), recipe);
+                }
+                Collections.unmodifiableList(new ArrayList<>(merged.values()));
+            }
+        });
+        BenchmarkUtil.measure("store snapshot per page, 10k recipes", 20, 20, () -> {
+            RecipeStore.Builder builder = new RecipeStore.Builder();
+            for (int page = 0; page * PAGE_SIZE < source.size(); page++) {
+                for (Recipe recipe : source.subList(page * PAGE_SIZE, (page + 1) * PAGE_SIZE)) {
+                    builder.add(recipe);
+                }
+                builder.build();
+            }
+        });
+    }
+
+    private interface Build {
+        List<Recipe> run();
+    }
+
+    private static long retainedBytes(Build build, List<Recipe> keepAlive) throws Exception {
+        long before = usedAfterGc();
+        List<Recipe> recipes = build.run();
+        long after = usedAfterGc();
+        if (recipes.size() != keepAlive.size()) throw new AssertionError();
+        return after - before;
+    }
+
+    private static long usedAfterGc() throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String own(String s) {
+        return new String(s.toCharArray());
+    }
+
+    // What the JSON adapters produce: own strings, interned ingredient lines
+    private static Recipe parsedCopy(Recipe recipe) {
+        return new Recipe(own(recipe.getRecipeId()), own(recipe.getTitle()),
+                own(recipe.getImageUrl()), own(recipe.getSourceUrl()),
+                recipe.getIngredients().clone(), recipe.getSocial_rank(), recipe.isFavorite());
+    }
+
+    private static List<Recipe> recipes(int count) {
+        Random random = new Random(20);
+        List<Recipe> recipes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] ingredients = new String[9];
+            for (int j = 0; j < ingredients.length; j++) {
+                int line = (int) (2_000 * Math.pow(random.nextDouble(), 3));
+                ingredients[j] = IngredientPool.intern((line % 4 + 1) + " cups ingredient number " + line);
+            }
+            recipes.add(new Recipe(Integer.toHexString(0x10000 + i), "Recipe number " + i + " with a title",
+                    "https://res.cloudinary.com/dk4ocuiwa/image/upload/RecipesApi/" + i + ".jpg",
+                    "http://www.example" + i % 7 + ".com/recipes/" + (2010 + i % 10) + "/" + (1 + i % 12)
+                            + "/recipe-number-" + i + ".html",
+                    ingredients, random.nextFloat() * 100, false));
+        }
+        return recipes;
+    }
+}
@@ -0,0 +1,121 @@
+package com.demo.ingredisearch.models;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.demo.ingredisearch.TestData.mRecipes;
+import static com.demo.ingredisearch.TestData.recipe1;
+import static com.demo.ingredisearch.TestData.recipe1_favored;
+import static com.demo.ingredisearch.TestData.recipe2;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RecipeStoreTest {
+
+    @Test
+    public void of_readsBackEqualRecipes() {
+        // Arrange (Given)
+        Recipe sparse = new Recipe("x1", "Sparse", null, null, null, 1.5F, false);
+        Recipe full = new Recipe("x2", "Full", "img", "src", new String[]{"2 eggs", "salt", "2 eggs"}, 3F, true);
+        List<Recipe> recipes = new ArrayList<>(mRecipes);
+        recipes.add(sparse);
+        recipes.add(full);
+
+        // Act (When)
+        RecipeStore store = RecipeStore.of(recipes);
+
+        // Assert (Then)
+        assertThat(store, is(recipes));
+        assertThat(store.get(4).getImageUrl(), is(nullValue()));
+        assertThat(store.get(4).getIngredients(), is(nullValue()));
+        assertThat(store.hasIngredients(4), is(false));
+        assertThat(store.hasIngredients(5), is(true));
+        assertThat(store.getRecipeId(5), is("x2"));
+        assertThat(store.isFavorite(5), is(true));
+        assertThat(store.getSocialRank(5), is(3F));
+        assertThat(store.getIngredientCount(5), is(3));
+        assertThat(store.get(5).getIngredients()[2], is(sameInstance(store.get(5).getIngredients()[0])));
+        assertThat(store.getIngredient(5, 1), is("salt"));
+        assertThat(store.getIngredient(5, 2), is(sameInstance(store.getIngredient(5, 0))));
+    }
+
+    @Test
+    public void get_returnsDetachedView() {
+        // Arrange (Given)
+        RecipeStore store = RecipeStore.of(Arrays.asList(recipe1, recipe2));
+
+        // Act (When)
+        store.get(0).setFavorite(true);
+
+        // Assert (Then)
+        assertThat(store.get(0), is(recipe1));
+        assertThat(store.get(0), is(not(sameInstance(store.get(0)))));
+    }
+
+    @Test
+    public void hasSameIdAndTitleAndImage_comparesRowsOfTwoStores() {
+        // Arrange (Given)
+        Recipe moved = new Recipe("x1", "Soup", "http://img.example/a/soup.jpg", null, null, 1F, false);
+        Recipe favored = new Recipe("x1", "Soup", "http://img.example/a/soup.jpg", "src", null, 9F, true);
+        Recipe otherDirectory = new Recipe("x1", "Soup", "http://img.example/b/soup.jpg", null, null, 1F, false);
+        Recipe noImage = new Recipe("x1", "Soup", null, null, null, 1F, false);
+        Recipe renamed = new Recipe("x1", "Soups", "http://img.example/a/soup.jpg", null, null, 1F, false);
+        RecipeStore before = RecipeStore.of(Arrays.asList(recipe1, moved));
+        RecipeStore after = RecipeStore.of(Arrays.asList(moved, favored, otherDirectory, noImage, renamed, recipe2));
+
+        // Assert (Then)
+        assertThat(before.hasSameId(1, after, 0), is(true));
+        assertThat(before.hasSameId(0, after, 5), is(false));
+        assertThat(before.hasSameTitleAndImage(1, after, 0), is(true));
+        assertThat(before.hasSameTitleAndImage(1, after, 1), is(true));
+        assertThat(before.hasSameTitleAndImage(1, after, 2), is(false));
+        assertThat(before.hasSameTitleAndImage(1, after, 3), is(false));
+        assertThat(before.hasSameTitleAndImage(1, after, 4), is(false));
+    }
+
+    @Test
+    public void builder_skipsDuplicateIds() {
+        // Arrange (Given)
+        RecipeStore.Builder builder = new RecipeStore.Builder(1);
+
+        // Act (When)
+        for (Recipe recipe : mRecipes) builder.add(recipe);
+        boolean added = builder.add(recipe1_favored);
+
+        // Assert (Then)
+        assertThat(added, is(false));
+        assertThat(builder.contains(recipe1.getRecipeId()), is(true));
+        assertThat(builder.contains("nope"), is(false));
+        assertThat(builder.build(), is(mRecipes));
+    }
+
+    @Test
+    public void build_isNotChangedByLaterRows() {
+        // Arrange (Given)
+        RecipeStore.Builder builder = new RecipeStore.Builder(1);
+        builder.add(recipe1);
+        RecipeStore before = builder.build();
+
+        // Act (When)
+        for (int i = 0; i < 100; i++) {
+            builder.add(new Recipe("r" + i, "Recipe " + i, null, null, new String[]{"salt " + i}, i, false));
+        }
+
+        // Assert (Then)
+        assertThat(before.size(), is(1));
+        assertThat(before.get(0), is(recipe1));
+        assertThat(builder.build().size(), is(101));
+        assertThat(builder.build().get(100).getIngredients()[0], is("salt 99"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void store_isReadOnly() {
+        RecipeStore.of(mRecipes).add(recipe1);
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.ingredisearch.repository;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+import com.demo.ingredisearch.util.BenchmarkUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Best 20 of a large result set: a full sort of the recipes against the top-k heap, over recipe
+ * objects and over a {@link RecipeStore}.
+ */
+public class RecipeRankingBenchmark {
+
+    private static final int K = 20;
+
+    @Test
+    public void top20_fullSort_vs_heap() throws Exception {
+        for (int count : new int[]{1_000, 10_000, 100_000}) {
+            Random random = new Random(21);
+            List<Recipe> recipes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                recipes.add(new Recipe("r" + i, "Recipe " + i, null, null, new String[0], random.nextFloat() * 100, false));
+            }
+            RecipeStore store = RecipeStore.of(recipes);
+            int iterations = Math.max(10, 1_000_000 / count);
+
+            BenchmarkUtil.measure("full sort, " + count + " recipes", iterations, iterations, () -> {
+                List<Recipe> sorted = new ArrayList<>(recipes);
+                sorted.sort((a, b) -> Float.compare(b.getSocial_rank(), a.getSocial_rank()));
+                sorted.subList(0, K);
+            });
+            BenchmarkUtil.measure("heap, " + count + " recipes", iterations, iterations, () ->
+                    RecipeRanking.rank(recipes, K, null).get(K - 1));
+            BenchmarkUtil.measure("heap over store, " + count + " recipes", iterations, iterations, () ->
+                    RecipeRanking.rank(store, K, null).get(K - 1));
+        }
+    }
+}
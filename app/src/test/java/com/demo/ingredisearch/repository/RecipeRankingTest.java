@@ -0,0 +1,92 @@
+package com.demo.ingredisearch.repository;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class RecipeRankingTest {
+
+    @Test
+    public void rank_movesTopToFrontAndKeepsRestInOrder() {
+        // Arrange (Given)
+        List<Recipe> recipes = recipes(10, 50, 30, 70, 20, 60);
+
+        // Act (When)
+        List<Recipe> ranked = RecipeRanking.rank(recipes, 3, null);
+
+        // Assert (Then)
+        assertThat(ids(ranked), contains("r3", "r5", "r1", "r0", "r2", "r4"));
+    }
+
+    @Test
+    public void rank_equalRanks_useTieBreakerThenServerOrder() {
+        // Arrange (Given)
+        List<Recipe> recipes = recipes(40, 40, 40, 10);
+        Comparator<Recipe> byIdDescending = (a, b) -> b.getRecipeId().compareTo(a.getRecipeId());
+
+        // Act (When)
+        List<Recipe> stable = RecipeRanking.rank(recipes, 2, null);
+        List<Recipe> tieBroken = RecipeRanking.rank(recipes, 2, byIdDescending);
+
+        // Assert (Then)
+        assertThat(ids(stable), contains("r0", "r1", "r2", "r3"));
+        assertThat(ids(tieBroken), contains("r2", "r1", "r0", "r3"));
+    }
+
+    @Test
+    public void offer_growingList_onlyRanksNewRowsAndMatchesFullSort() {
+        // Arrange (Given)
+        Random random = new Random(21);
+        float[] ranks = new float[1_000];
+        for (int i = 0; i < ranks.length; i++) ranks[i] = random.nextInt(200);
+        List<Recipe> all = recipes(ranks);
+        RecipeStore.Builder builder = new RecipeStore.Builder();
+        RecipeRanking ranking = new RecipeRanking(20, null);
+
+        // Act (When)
+        List<Recipe> ranked = null;
+        for (int page = 0; page < 10; page++) {
+            for (Recipe recipe : all.subList(page * 100, page * 100 + 100)) builder.add(recipe);
+            RecipeStore soFar = builder.build();
+            ranking.offer(soFar);
+            ranked = ranking.apply(soFar);
+        }
+
+        // Assert (Then)
+        List<Recipe> sorted = new ArrayList<>(all);
+        sorted.sort((a, b) -> Float.compare(b.getSocial_rank(), a.getSocial_rank()));
+        assertThat(ranking.getOffered(), is(1_000));
+        assertThat(ids(ranked.subList(0, 20)), is(ids(sorted.subList(0, 20))));
+        assertThat(ranked.size(), is(1_000));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void apply_listNotOffered_throws() {
+        new RecipeRanking(2, null).apply(recipes(1, 2));
+    }
+
+    private static List<Recipe> recipes(float... ranks) {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < ranks.length; i++) {
+            recipes.add(new Recipe("r" + i, "Recipe " + i, null, null, new String[0], ranks[i], false));
+        }
+        return recipes;
+    }
+
+    private static List<String> ids(List<Recipe> recipes) {
+        String[] ids = new String[recipes.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = recipes.get(i).getRecipeId();
+        return Arrays.asList(ids);
+    }
+}
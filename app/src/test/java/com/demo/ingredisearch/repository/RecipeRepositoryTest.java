@@ -1,17 +1,60 @@
 package com.demo.ingredisearch.repository;
 
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.cache.SearchResultCache;
+import com.demo.ingredisearch.repository.index.IngredientIndex;
+import com.demo.ingredisearch.repository.sources.ResponseCallback;
 import com.demo.ingredisearch.repository.sources.favorites.FakeFavoritesSource;
 import com.demo.ingredisearch.repository.sources.remote.FakeRemoteDataSource;
+import com.demo.ingredisearch.repository.sources.remote.RecipeApiClient;
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.FakeClock;
+import com.demo.ingredisearch.util.Resource;
+import com.demo.ingredisearch.util.SingleExecutors;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.demo.ingredisearch.TestData.mRecipes;
+import static com.demo.ingredisearch.TestData.recipe1;
+import static com.demo.ingredisearch.TestData.recipe2;
+import static com.demo.ingredisearch.TestData.recipe3;
+import static com.demo.ingredisearch.TestData.recipe4;
+import static com.demo.ingredisearch.util.LiveDataTestUtil.getOrAwaitValue;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class RecipeRepositoryTest {
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
     // SUT
     RecipeRepository mRecipeRepository;
 
     FakeRemoteDataSource mRemoteDataSource;
     FakeFavoritesSource mFavoritesSource;
 
+    // Delayed work (search deadlines) only runs when the test advances it
+    FakeClock mClock = new FakeClock();
+
     @Test
     public void searchRecipes_whenFailedByNetworkError_returnsErrorResponse() {
         // Arrange (Given)
@@ -171,4 +214,436 @@ public class RecipeRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_supersededSearch_isCancelledAndNeverReachesLiveData() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        Cancellable firstCall = mock(Cancellable.class);
+        Cancellable secondCall = mock(Cancellable.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(firstCall, secondCall);
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+
+        // Act (When)
+        mRecipeRepository.searchRecipes("eggs");
+        mRecipeRepository.searchRecipes("milk");
+
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callbacks = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient, times(2)).searchRecipes(anyString(), anyInt(), callbacks.capture());
+        callbacks.getAllValues().get(1).onDataAvailable(Resource.success(singletonList(recipe1)));
+        callbacks.getAllValues().get(0).onDataAvailable(Resource.success(mRecipes));
+
+        // Assert (Then)
+        verify(firstCall).cancel();
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.success(singletonList(recipe1))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void destroy_cancelsOutstandingSearch() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        Cancellable call = mock(Cancellable.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(call);
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.searchRecipes("eggs");
+
+        // Act (When)
+        mRecipeRepository.destroy();
+
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(anyString(), anyInt(), callback.capture());
+        callback.getValue().onDataAvailable(Resource.success(mRecipes));
+
+        // Assert (Then)
+        verify(call).cancel();
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.loading(null)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void loadNextPage_appendsNewRecipesDeduplicatedById() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.searchRecipes("eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> firstPage = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(1), firstPage.capture());
+        firstPage.getValue().onDataAvailable(Resource.success(Arrays.asList(recipe1, recipe2)));
+
+        // Act (When)
+        mRecipeRepository.loadNextPage();
+        mRecipeRepository.loadNextPage(); // already loading: ignored
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> secondPage = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(2), secondPage.capture());
+        secondPage.getValue().onDataAvailable(Resource.success(Arrays.asList(recipe2, recipe3, recipe4)));
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.success(mRecipes)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void loadNextPage_afterPageWithNothingNew_stopsPaging() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.searchRecipes("eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> firstPage = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(1), firstPage.capture());
+        firstPage.getValue().onDataAvailable(Resource.success(singletonList(recipe1)));
+        mRecipeRepository.loadNextPage();
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> secondPage = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(2), secondPage.capture());
+        secondPage.getValue().onDataAvailable(Resource.success(singletonList(recipe1)));
+
+        // Act (When)
+        mRecipeRepository.loadNextPage();
+
+        // Assert (Then)
+        verify(recipeApiClient, never()).searchRecipes(eq("eggs"), eq(3), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_whenSucceed_prefetchesTopDetailsTwoAtATime() {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        when(recipeApiClient.searchRecipe(anyString(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.setDetailPrefetchCount(3);
+        mRecipeRepository.searchRecipes("eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> search = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(1), search.capture());
+
+        // Act (When)
+        search.getValue().onDataAvailable(Resource.success(mRecipes));
+
+        // Assert (Then)
+        ArgumentCaptor<ResponseCallback<Recipe>> details = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipe(eq(recipe1.getRecipeId()), details.capture());
+        verify(recipeApiClient).searchRecipe(eq(recipe2.getRecipeId()), any());
+        verify(recipeApiClient, never()).searchRecipe(eq(recipe3.getRecipeId()), any());
+
+        details.getValue().onDataAvailable(Resource.success(recipe1));
+        verify(recipeApiClient).searchRecipe(eq(recipe3.getRecipeId()), any());
+        verify(recipeApiClient, never()).searchRecipe(eq(recipe4.getRecipeId()), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipe_prefetched_isServedWithoutNetwork() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        when(recipeApiClient.searchRecipe(anyString(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.searchRecipes("eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> search = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(1), search.capture());
+        search.getValue().onDataAvailable(Resource.success(mRecipes));
+        ArgumentCaptor<ResponseCallback<Recipe>> details = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipe(eq(recipe1.getRecipeId()), details.capture());
+        details.getValue().onDataAvailable(Resource.success(recipe1));
+
+        // Act (When)
+        mRecipeRepository.searchRecipe(recipe1.getRecipeId());
+
+        // Assert (Then)
+        verify(recipeApiClient, times(1)).searchRecipe(eq(recipe1.getRecipeId()), any());
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipe()), is(Resource.success(recipe1)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void prefetch_holdsOffWhileForegroundRequestIsInFlight() {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        when(recipeApiClient.searchRecipe(anyString(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.searchRecipes("eggs");
+        mRecipeRepository.searchRecipe("opened");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> search = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(1), search.capture());
+        search.getValue().onDataAvailable(Resource.success(mRecipes));
+
+        // Act (When)
+        verify(recipeApiClient, never()).searchRecipe(eq(recipe1.getRecipeId()), any());
+        ArgumentCaptor<ResponseCallback<Recipe>> opened = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipe(eq("opened"), opened.capture());
+        opened.getValue().onDataAvailable(Resource.success(recipe4));
+
+        // Assert (Then)
+        verify(recipeApiClient).searchRecipe(eq(recipe1.getRecipeId()), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_topRanked_postsBestFirstFromPartialResultOn() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.setDetailPrefetchCount(0);
+        mRecipeRepository.setTopRanked(2, null);
+        Recipe low = new Recipe("low", "Low", null, null, new String[0], 10, false);
+        Recipe high = new Recipe("high", "High", null, null, new String[0], 100, false);
+        Recipe mid = new Recipe("mid", "Mid", null, null, new String[0], 50, false);
+        mRecipeRepository.searchRecipes("eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(1), callback.capture());
+
+        // Act (When)
+        callback.getValue().onDataAvailable(Resource.partial(Arrays.asList(recipe1, low)));
+        Resource<List<Recipe>> partial = getOrAwaitValue(mRecipeRepository.getRecipes());
+        callback.getValue().onDataAvailable(Resource.success(Arrays.asList(recipe1, low, high, mid)));
+
+        // Assert (Then)
+        assertThat(partial, is(Resource.partial(Arrays.asList(recipe1, low))));
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()),
+                is(Resource.success(Arrays.asList(high, recipe1, low, mid))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private RecipeApiClient searchOnce(String query, List<Recipe> result) {
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.setDetailPrefetchCount(0);
+        mRecipeRepository.searchRecipes(query);
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq(query), eq(1), callback.capture());
+        callback.getValue().onDataAvailable(Resource.success(result));
+        return recipeApiClient;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_cachedQuery_postsStaleCopyThenChangedResult() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = searchOnce("eggs", singletonList(recipe1));
+
+        // Act (When)
+        mRecipeRepository.searchRecipes(" Eggs ");
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.stale(singletonList(recipe1))));
+
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> revalidation = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq(" Eggs "), eq(1), revalidation.capture());
+        revalidation.getValue().onDataAvailable(Resource.partial(singletonList(recipe2)));
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.stale(singletonList(recipe1))));
+        revalidation.getValue().onDataAvailable(Resource.success(mRecipes));
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.success(mRecipes)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_revalidationUnchanged_isNoLongerStale() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = searchOnce("eggs", singletonList(recipe1));
+        mRecipeRepository.searchRecipes("eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> revalidations = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient, times(2)).searchRecipes(eq("eggs"), eq(1), revalidations.capture());
+        Resource<List<Recipe>> cached = getOrAwaitValue(mRecipeRepository.getRecipes());
+
+        // Act (When)
+        revalidations.getAllValues().get(1).onDataAvailable(Resource.success(singletonList(recipe1)));
+
+        // Assert (Then)
+        assertThat(cached, is(Resource.stale(singletonList(recipe1))));
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.success(singletonList(recipe1))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_revalidationFailed_keepsStaleCopy() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = searchOnce("eggs", singletonList(recipe1));
+        mRecipeRepository.searchRecipes("eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> revalidations = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient, times(2)).searchRecipes(eq("eggs"), eq(1), revalidations.capture());
+
+        // Act (When)
+        revalidations.getAllValues().get(1).onError(Resource.error("offline", null));
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.stale(singletonList(recipe1))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_nothingCachedPastDeadline_postsErrorThenLateResult() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.setSearchDeadline(3_000);
+        mRecipeRepository.searchRecipes("eggs");
+
+        // Act (When)
+        mClock.advance(2_999);
+        Resource<List<Recipe>> beforeDeadline = getOrAwaitValue(mRecipeRepository.getRecipes());
+        mClock.advance(1);
+
+        // Assert (Then)
+        assertThat(beforeDeadline, is(Resource.loading(null)));
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()),
+                is(Resource.error(RecipeRepository.SEARCH_TIMED_OUT, null)));
+
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("eggs"), eq(1), callback.capture());
+        callback.getValue().onDataAvailable(Resource.success(mRecipes));
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.success(mRecipes)));
+    }
+
+    @Test
+    public void searchRecipes_retryAfterDeadline_searchesAgain() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        Cancellable call = mock(Cancellable.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(call);
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+        mRecipeRepository.setSearchDeadline(3_000);
+        mRecipeRepository.searchRecipes("eggs");
+        mClock.advance(3_000);
+
+        // Act (When)
+        mRecipeRepository.searchRecipes("eggs");
+
+        // Assert (Then)
+        verify(recipeApiClient, times(2)).searchRecipes(eq("eggs"), eq(1), any());
+        verify(call).cancel();
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.loading(null)));
+    }
+
+    @Test
+    public void searchRecipes_answeredBeforeDeadline_neverTimesOut() throws Exception {
+        // Arrange (Given)
+        searchOnce("eggs", mRecipes);
+
+        // Act (When)
+        mClock.advance(60_000);
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.success(mRecipes)));
+    }
+
+    @Test
+    public void searchRecipes_resultInInjectedCache_isPostedAsStale() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        SearchResultCache cache = SearchResultCache.inMemory();
+        cache.put("eggs", mRecipes);
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock), cache);
+
+        // Act (When)
+        mRecipeRepository.searchRecipes("EGGS");
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.stale(mRecipes)));
+        assertThat(cache.getStats().memoryHits, is(1));
+    }
+
+    @Test
+    public void searchRecipes_sameIngredientsWhileLoading_isNotSentAgain() {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        Cancellable call = mock(Cancellable.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(call);
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock));
+
+        // Act (When)
+        mRecipeRepository.searchRecipes("eggs, milk");
+        mRecipeRepository.searchRecipes(" Milk,egg ");
+
+        // Assert (Then)
+        verify(recipeApiClient, times(1)).searchRecipes(anyString(), anyInt(), any());
+        verify(call, never()).cancel();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_whenFailedWithMatchesIndexed_postsThemAsStale() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        IngredientIndex index = new IngredientIndex();
+        Recipe omelette = new Recipe("omelette", "Omelette", null, null, new String[]{"3 eggs", "2 tbsp milk"}, 50, false);
+        index.addAll(Arrays.asList(omelette, recipe2));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock),
+                SearchResultCache.inMemory(), index);
+
+        // Act (When)
+        mRecipeRepository.searchRecipes("milk, egg");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("milk, egg"), eq(1), callback.capture());
+        callback.getValue().onError(Resource.error("offline", null));
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mRecipeRepository.getRecipes()), is(Resource.stale(singletonList(omelette))));
+    }
+
+    @Test
+    public void searchRecipes_whenSucceeded_indexesResults() {
+        // Arrange (Given)
+        searchOnce("eggs", mRecipes);
+
+        // Act (When)
+        List<Recipe> offline = mRecipeRepository.getIngredientIndex().search("chickpeas", IngredientIndex.Match.ALL);
+
+        // Assert (Then)
+        assertThat(offline, is(singletonList(recipe2)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_unknownIngredientFindsNothing_searchesAsTyped_andSuggestsCorrection() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock),
+                SearchResultCache.inMemory(), broccoliIndex());
+
+        // Act (When)
+        mRecipeRepository.searchRecipes("brocoli, eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("brocoli, eggs"), eq(1), callback.capture());
+        callback.getValue().onDataAvailable(Resource.success(Collections.emptyList()));
+
+        // Assert (Then)
+        verify(recipeApiClient, never()).searchRecipes(eq("broccoli, eggs"), anyInt(), any());
+        assertThat(getOrAwaitValue(mRecipeRepository.getCorrectedQuery()), is("broccoli, eggs"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchRecipes_unknownIngredientFindsRecipes_suggestsNothing() throws Exception {
+        // Arrange (Given)
+        RecipeApiClient recipeApiClient = mock(RecipeApiClient.class);
+        when(recipeApiClient.searchRecipes(anyString(), anyInt(), any())).thenReturn(mock(Cancellable.class));
+        mRecipeRepository = new RecipeRepository(recipeApiClient, new SingleExecutors(mClock),
+                SearchResultCache.inMemory(), broccoliIndex());
+
+        // Act (When)
+        mRecipeRepository.searchRecipes("brocoli, eggs");
+        ArgumentCaptor<ResponseCallback<List<Recipe>>> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        verify(recipeApiClient).searchRecipes(eq("brocoli, eggs"), eq(1), callback.capture());
+        callback.getValue().onDataAvailable(Resource.success(singletonList(recipe1)));
+
+        // Assert (Then)
+        assertThat(mRecipeRepository.getCorrectedQuery().getValue(), is(nullValue()));
+    }
+
+    private static IngredientIndex broccoliIndex() {
+        IngredientIndex index = new IngredientIndex();
+        index.add(new Recipe("soup", "Broccoli Soup", null, null, new String[]{"1 head broccoli"}, 50, false));
+        return index;
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.demo.ingredisearch.repository.cache;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.util.FakeClock;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.demo.ingredisearch.TestData.mRecipes;
+import static com.demo.ingredisearch.TestData.recipe1;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SearchResultCacheTest {
+    private static final long TTL = 60_000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    // SUT
+    SearchResultCache mCache;
+
+    FakeClock mClock;
+    File mDirectory;
+
+    @Before
+    public void init() {
+        mClock = new FakeClock();
+        mDirectory = new File(mFolder.getRoot(), "searches");
+        mCache = createCache(1024 * 1024, 10, Long.MAX_VALUE);
+    }
+
+    private SearchResultCache createCache(long memoryBytes, int diskEntries, long diskBytes) {
+        return new SearchResultCache(new MemoryTier(memoryBytes, 64),
+                new DiskTier(mDirectory, diskEntries, diskBytes, TTL, mClock));
+    }
+
+    private static List<Recipe> recipes(int count) {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            recipes.add(new Recipe("r" + i, "Recipe " + i, null, null, new String[]{"2 eggs", "salt"}, i, false));
+        }
+        return recipes;
+    }
+
+    @Test
+    public void get_afterPut_hitsMemoryUnderNormalizedQuery() {
+        // Arrange (Given)
+        mCache.put("Eggs", mRecipes);
+
+        // Act (When)
+        List<Recipe> recipes = mCache.get("  eggs ");
+
+        // Assert (Then)
+        assertThat(recipes, is(mRecipes));
+        assertThat(mCache.getStats().memoryHits, is(1));
+        assertThat(mCache.get("milk"), is(nullValue()));
+        assertThat(mCache.getStats().misses, is(1));
+        assertThat(mCache.getStats().hitRatio(), is(0.5));
+    }
+
+    @Test
+    public void get_newProcess_loadsFromDisk() {
+        // Arrange (Given)
+        mCache.put("eggs", mRecipes);
+        SearchResultCache afterRestart = createCache(1024 * 1024, 10, Long.MAX_VALUE);
+
+        // Act (When)
+        List<Recipe> recipes = afterRestart.get("eggs");
+
+        // Assert (Then)
+        assertThat(recipes, is(mRecipes));
+        assertThat(afterRestart.getStats().diskHits, is(1));
+        afterRestart.get("eggs");
+        assertThat(afterRestart.getStats().memoryHits, is(1));
+    }
+
+    @Test
+    public void get_pastTimeToLive_missesAndDeletesEntry() {
+        // Arrange (Given)
+        mCache.put("eggs", mRecipes);
+        SearchResultCache afterRestart = createCache(1024 * 1024, 10, Long.MAX_VALUE);
+
+        // Act (When)
+        mClock.advance(TTL);
+
+        // Assert (Then)
+        assertThat(afterRestart.get("eggs"), is(nullValue()));
+        assertThat(afterRestart.getStats().diskExpired, is(1));
+        assertThat(mDirectory.list().length, is(0));
+    }
+
+    @Test
+    public void put_overDiskEntryLimit_evictsLeastRecentlyUsed() {
+        // Arrange (Given)
+        mCache = createCache(1, 2, Long.MAX_VALUE); // nothing fits in memory
+        mCache.put("eggs", mRecipes);
+        mCache.put("milk", mRecipes);
+        mCache.get("eggs");
+
+        // Act (When)
+        mCache.put("flour", mRecipes);
+
+        // Assert (Then)
+        assertThat(mCache.get("milk"), is(nullValue()));
+        assertThat(mCache.get("eggs"), is(mRecipes));
+        assertThat(mCache.getStats().diskEvictions, is(1));
+        assertThat(mDirectory.list().length, is(2));
+    }
+
+    @Test
+    public void put_overDiskByteLimit_evictsUntilWithinLimit() {
+        // Arrange (Given)
+        mCache = createCache(1, 100, 3_000);
+
+        // Act (When)
+        for (int i = 0; i < 10; i++) {
+            mCache.put("query " + i, recipes(10));
+        }
+
+        // Assert (Then)
+        long bytes = 0;
+        for (File file : mDirectory.listFiles()) bytes += file.length();
+        assertThat(bytes <= 3_000, is(true));
+        assertThat(mCache.get("query 9"), is(recipes(10)));
+        assertThat(mCache.get("query 0"), is(nullValue()));
+    }
+
+    @Test
+    public void get_corruptFile_missesAndDeletesIt() throws Exception {
+        // Arrange (Given)
+        mCache.put("eggs", mRecipes);
+        String key = SearchResultCache.keyOf("eggs");
+        File file = new File(mDirectory, DiskTier.fileNameOf(key));
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("0\n" + key + "\n{\"recipes\":[{");
+        }
+        SearchResultCache afterRestart = createCache(1024 * 1024, 10, Long.MAX_VALUE);
+
+        // Act (When)
+        List<Recipe> recipes = afterRestart.get("eggs");
+
+        // Assert (Then)
+        assertThat(recipes, is(nullValue()));
+        assertThat(file.exists(), is(false));
+    }
+
+    @Test
+    public void memoryTier_weighsByRecipesAndIngredients() {
+        // Act (When)
+        long one = MemoryTier.weigh(recipes(1));
+        long ten = MemoryTier.weigh(recipes(10));
+
+        // Assert (Then)
+        assertThat(ten, is(10 * one));
+        assertThat(one, is(MemoryTier.RECIPE_OVERHEAD_BYTES + 2L * MemoryTier.STRING_OVERHEAD_BYTES + 2 * (6 + 4)));
+        assertThat(MemoryTier.weigh(Collections.<Recipe>emptyList()), is(0L));
+    }
+
+    @Test
+    public void memoryTier_full_evictsLeastRecentlyUsedByWeight() {
+        // Arrange (Given)
+        long entry = MemoryTier.weigh(recipes(10));
+        MemoryTier memory = new MemoryTier(2 * entry, 64);
+        memory.put("a", recipes(10));
+        memory.put("b", recipes(10));
+        memory.get("a");
+
+        // Act (When)
+        memory.get("c");
+        boolean admitted = memory.put("c", recipes(10));
+
+        // Assert (Then)
+        assertThat(admitted, is(true));
+        assertThat(memory.get("b"), is(nullValue()));
+        assertThat(memory.getEvictions(), is(1));
+        assertThat(memory.getWeight(), is(2 * entry));
+    }
+
+    @Test
+    public void memoryTier_full_keepsFrequentEntryOverOneOffSearch() {
+        // Arrange (Given)
+        long entry = MemoryTier.weigh(recipes(10));
+        MemoryTier memory = new MemoryTier(entry, 64);
+        for (int i = 0; i < 5; i++) memory.get("popular");
+        memory.put("popular", recipes(10));
+
+        // Act (When)
+        memory.get("one-off");
+        boolean admitted = memory.put("one-off", recipes(10));
+
+        // Assert (Then)
+        assertThat(admitted, is(false));
+        assertThat(memory.get("popular"), is(recipes(10)));
+        assertThat(memory.getRejections(), is(1));
+    }
+
+    @Test
+    public void memoryTier_entryHeavierThanTier_isNotAdmitted() {
+        // Arrange (Given)
+        MemoryTier memory = new MemoryTier(10, 64);
+
+        // Act (When)
+        boolean admitted = memory.put("eggs", singletonList(recipe1));
+
+        // Assert (Then)
+        assertThat(admitted, is(false));
+        assertThat(memory.getWeight(), is(0L));
+    }
+}
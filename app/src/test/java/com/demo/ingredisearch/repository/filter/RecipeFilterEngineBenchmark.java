@@ -0,0 +1,59 @@
+package com.demo.ingredisearch.repository.filter;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+import com.demo.ingredisearch.util.BenchmarkUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Sorting a 20k-row result set by title from scratch against the kept order, and a full filter
+ * pass against one that narrows what is shown. Work runs on the calling thread here.
+ */
+public class RecipeFilterEngineBenchmark {
+
+    @Test
+    public void sortAndFilter_20kRecipes() throws Exception {
+        Random random = new Random(22);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String[] ingredients = new String[1 + random.nextInt(12)];
+            for (int j = 0; j < ingredients.length; j++) ingredients[j] = "1 cup ingredient" + random.nextInt(500);
+            recipes.add(new Recipe("r" + i, "Recipe " + Integer.toString(random.nextInt(1 << 30), 36),
+                    random.nextBoolean() ? "img" : null, null, ingredients, random.nextFloat() * 100, false));
+        }
+        RecipeStore store = RecipeStore.of(recipes);
+
+        BenchmarkUtil.measure("title sort, from scratch", 5, 20, () -> {
+            RecipeFilterEngine engine = new RecipeFilterEngine(Runnable::run, Locale.US);
+            engine.setRecipes(store);
+            engine.setSort(RecipeFilterEngine.Sort.TITLE);
+        });
+
+        RecipeFilterEngine engine = new RecipeFilterEngine(Runnable::run, Locale.US);
+        engine.setRecipes(store);
+        engine.setSort(RecipeFilterEngine.Sort.TITLE);
+        BenchmarkUtil.measure("title sort, kept", 5, 200, () -> {
+            engine.setSort(RecipeFilterEngine.Sort.RANK);
+            engine.setSort(RecipeFilterEngine.Sort.TITLE);
+        });
+
+        RecipeFilter wide = RecipeFilter.NONE.withImageRequired(true).withoutIngredient("ingredient7");
+        RecipeFilter narrow = wide.withMaxIngredients(4);
+        engine.setFilter(wide);
+        engine.setFilter(narrow);
+        BenchmarkUtil.measure("filter, full pass", 5, 200, () -> {
+            engine.setFilter(RecipeFilter.NONE);
+            engine.setFilter(wide);
+        });
+        BenchmarkUtil.measure("filter, full pass then narrowing", 5, 200, () -> {
+            engine.setFilter(wide);
+            engine.setFilter(narrow);
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package com.demo.ingredisearch.repository.filter;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.models.RecipeStore;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+import static com.demo.ingredisearch.util.LiveDataTestUtil.getOrAwaitValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RecipeFilterEngineTest {
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    // Work only runs when the test lets it
+    List<Runnable> mPending = new ArrayList<>();
+    Executor mExecutor = mPending::add;
+
+    // SUT
+    RecipeFilterEngine mEngine = new RecipeFilterEngine(mExecutor, Locale.US);
+
+    Recipe mBanana = new Recipe("b", "banana bread", "img", null,
+            new String[]{"3 ripe bananas", "2 cups flour", "1 egg"}, 40, false);
+    Recipe mApple = new Recipe("a", "Apple Pie", null, null,
+            new String[]{"6 apples", "2 cups flour", "1 cup sugar", "butter", "2 eggs", "cinnamon"}, 90, false);
+    Recipe mEclair = new Recipe("e", "\u00C9clair", "img", null,
+            new String[]{"1 cup milk", "4 eggs"}, 70, false);
+    Recipe mCherry = new Recipe("c", "Cherry Clafoutis", "img", null,
+            new String[]{"2 cups cherries", "3 eggs", "1 cup milk"}, 10, false);
+    List<Recipe> mRecipes = Arrays.asList(mBanana, mApple, mEclair, mCherry);
+    // Search results that came without their ingredient lists
+    Recipe mMystery = new Recipe("m", "Mystery Stew", "img", null, null, 50, false);
+
+    @Test
+    public void setSort_ordersByRankOrLocaleCollatedTitle() throws Exception {
+        // Arrange (Given)
+        mEngine.setRecipes(RecipeStore.of(mRecipes));
+
+        // Act (When)
+        mEngine.setSort(RecipeFilterEngine.Sort.RANK);
+        runPending();
+        List<Recipe> byRank = getOrAwaitValue(mEngine.getResults());
+        mEngine.setSort(RecipeFilterEngine.Sort.TITLE);
+        runPending();
+
+        // Assert (Then)
+        assertThat(byRank, contains(mApple, mEclair, mBanana, mCherry));
+        assertThat(getOrAwaitValue(mEngine.getResults()), contains(mApple, mBanana, mCherry, mEclair));
+    }
+
+    @Test
+    public void setFilter_dropsRecipesThatDoNotPass() throws Exception {
+        // Arrange (Given)
+        mEngine.setRecipes(mRecipes);
+
+        // Act (When)
+        mEngine.setFilter(RecipeFilter.NONE.withImageRequired(true).withMaxIngredients(3).withoutIngredient("Cherry"));
+        runPending();
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mEngine.getResults()), contains(mBanana, mEclair));
+    }
+
+    @Test
+    public void setFilter_excludedIngredient_readsTheStoresIngredientLines() throws Exception {
+        // Arrange (Given)
+        mEngine.setRecipes(RecipeStore.of(mRecipes));
+
+        // Act (When)
+        mEngine.setFilter(RecipeFilter.NONE.withoutIngredient("milk"));
+        runPending();
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mEngine.getResults()), contains(mBanana, mApple));
+    }
+
+    @Test
+    public void setFilter_ingredientsUnknown_failsIngredientFilters() throws Exception {
+        // Arrange (Given)
+        mEngine.setRecipes(Arrays.asList(mBanana, mMystery, mEclair));
+
+        // Act (When)
+        mEngine.setFilter(RecipeFilter.NONE.withMaxIngredients(5));
+        runPending();
+        List<Recipe> fewIngredients = getOrAwaitValue(mEngine.getResults());
+        mEngine.setFilter(RecipeFilter.NONE.withoutIngredient("banana"));
+        runPending();
+        List<Recipe> noBanana = getOrAwaitValue(mEngine.getResults());
+        mEngine.setFilter(RecipeFilter.NONE.withImageRequired(true));
+        runPending();
+
+        // Assert (Then)
+        assertThat(fewIngredients, contains(mBanana, mEclair));
+        assertThat(noBanana, contains(mEclair));
+        assertThat(getOrAwaitValue(mEngine.getResults()), contains(mBanana, mMystery, mEclair));
+    }
+
+    @Test
+    public void setFilter_ingredientsUnknownInStore_failsIngredientFilters() throws Exception {
+        // Arrange (Given)
+        mEngine.setRecipes(RecipeStore.of(Arrays.asList(mMystery, mCherry, mApple)));
+
+        // Act (When)
+        mEngine.setFilter(RecipeFilter.NONE.withMaxIngredients(5));
+        runPending();
+        List<Recipe> fewIngredients = getOrAwaitValue(mEngine.getResults());
+        mEngine.setFilter(RecipeFilter.NONE.withoutIngredient("apples"));
+        runPending();
+
+        // Assert (Then)
+        assertThat(fewIngredients, contains(mCherry));
+        assertThat(getOrAwaitValue(mEngine.getResults()), contains(mCherry));
+    }
+
+    @Test
+    public void setRecipes_noSortOrFilter_postsTheListItself() throws Exception {
+        // Arrange (Given)
+        RecipeStore store = RecipeStore.of(mRecipes);
+
+        // Act (When)
+        mEngine.setRecipes(store);
+        runPending();
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mEngine.getResults()), is(sameInstance(store)));
+    }
+
+    @Test
+    public void narrowingFilter_onlyRechecksShownRows() throws Exception {
+        // Arrange (Given)
+        mEngine.setRecipes(mRecipes);
+        mEngine.setSort(RecipeFilterEngine.Sort.RANK);
+        mEngine.setFilter(RecipeFilter.NONE.withoutIngredient("banana"));
+        runPending();
+
+        // Act (When)
+        mEngine.setFilter(mEngine.getFilter().withoutIngredient("milk"));
+        runPending();
+        List<Recipe> narrowed = getOrAwaitValue(mEngine.getResults());
+        mEngine.setFilter(RecipeFilter.NONE);
+        runPending();
+
+        // Assert (Then)
+        assertThat(narrowed, contains(mApple));
+        assertThat(getOrAwaitValue(mEngine.getResults()), contains(mApple, mEclair, mBanana, mCherry));
+        RecipeFilterEngine.Stats stats = mEngine.getStats();
+        assertThat(stats.orderings, is(1));
+        assertThat(stats.fullPasses, is(2));
+        assertThat(stats.narrowingPasses, is(1));
+    }
+
+    @Test
+    public void queuedChanges_onlyLatestIsWorkedOut() throws Exception {
+        // Arrange (Given)
+        mEngine.setRecipes(mRecipes);
+        mEngine.setSort(RecipeFilterEngine.Sort.TITLE);
+        mEngine.setFilter(RecipeFilter.NONE.withMaxIngredients(0));
+
+        // Act (When)
+        runPending();
+
+        // Assert (Then)
+        assertThat(getOrAwaitValue(mEngine.getResults()), is(empty()));
+        assertThat(mEngine.getStats().fullPasses, is(1));
+        assertThat(mEngine.getStats().orderings, is(1));
+    }
+
+    @Test
+    public void filter_narrowerThan_comparesEveryCondition() {
+        // Arrange (Given)
+        RecipeFilter noNuts = RecipeFilter.NONE.withoutIngredient("nuts");
+
+        // Assert (Then)
+        assertThat(noNuts.getExcludedTerms(), contains("nut"));
+        assertThat(noNuts.withMaxIngredients(5).isNarrowerThan(noNuts), is(true));
+        assertThat(noNuts.isNarrowerThan(noNuts.withImageRequired(true)), is(false));
+        assertThat(RecipeFilter.NONE.isNarrowerThan(noNuts), is(false));
+        assertThat(noNuts.withoutIngredient("milk").isNarrowerThan(noNuts), is(true));
+    }
+
+    private void runPending() {
+        List<Runnable> pending = new ArrayList<>(mPending);
+        mPending.clear();
+        for (Runnable runnable : pending) runnable.run();
+    }
+}
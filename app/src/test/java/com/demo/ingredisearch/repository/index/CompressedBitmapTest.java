@@ -0,0 +1,112 @@
+package com.demo.ingredisearch.repository.index;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CompressedBitmapTest {
+
+    private static final Random RANDOM = new Random(3);
+
+    /**
+     * Values over three chunks: one sparse (array), one dense (bitmap) and one in between.
+     */
+    private static TreeSet<Integer> values(double sparse, double dense) {
+        TreeSet<Integer> values = new TreeSet<>();
+        for (int i = 0; i < 3 * 65536; i++) {
+            double density = i < 65536 ? sparse : i < 2 * 65536 ? dense : 0.06;
+            if (RANDOM.nextDouble() < density) values.add(i);
+        }
+        return values;
+    }
+
+    private static CompressedBitmap bitmapOf(TreeSet<Integer> values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value : values.descendingSet()) { // out of order on purpose
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    private static int[] toArray(TreeSet<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void add_acrossContainerKinds_keepsEveryValueOnce() {
+        // Arrange (Given)
+        TreeSet<Integer> values = values(0.01, 0.5);
+
+        // Act (When)
+        CompressedBitmap bitmap = bitmapOf(values);
+        bitmap.add(values.first());
+
+        // Assert (Then)
+        assertThat(bitmap.cardinality(), is(values.size()));
+        assertThat(bitmap.toArray(), is(toArray(values)));
+        assertThat(bitmap.contains(values.last()), is(true));
+        assertThat(bitmap.contains(values.last() + 1), is(false));
+        assertThat(bitmap.last(), is(values.last()));
+    }
+
+    @Test
+    public void setOperations_matchTreeSet() {
+        // Arrange (Given)
+        TreeSet<Integer> a = values(0.01, 0.5);
+        TreeSet<Integer> b = values(0.3, 0.02);
+        CompressedBitmap bitmapA = bitmapOf(a);
+        CompressedBitmap bitmapB = bitmapOf(b);
+
+        TreeSet<Integer> and = new TreeSet<>(a);
+        and.retainAll(b);
+        TreeSet<Integer> or = new TreeSet<>(a);
+        or.addAll(b);
+        TreeSet<Integer> andNot = new TreeSet<>(a);
+        andNot.removeAll(b);
+
+        // Act (When)
+        // Assert (Then)
+        assertThat(CompressedBitmap.and(bitmapA, bitmapB).toArray(), is(toArray(and)));
+        assertThat(CompressedBitmap.or(bitmapA, bitmapB).toArray(), is(toArray(or)));
+        assertThat(CompressedBitmap.andNot(bitmapA, bitmapB).toArray(), is(toArray(andNot)));
+        assertThat(CompressedBitmap.andNot(bitmapB, bitmapA).cardinality(), is(b.size() - and.size()));
+    }
+
+    @Test
+    public void setOperations_leaveOperandsUntouched() {
+        // Arrange (Given)
+        TreeSet<Integer> a = values(0.2, 0.9);
+        CompressedBitmap bitmapA = bitmapOf(a);
+        CompressedBitmap result = CompressedBitmap.or(bitmapA, new CompressedBitmap());
+
+        // Act (When)
+        result.add(7);
+        result.add(65536 + 7);
+
+        // Assert (Then)
+        assertThat(bitmapA.toArray(), is(toArray(a)));
+    }
+
+    @Test
+    public void readFrom_afterWriteTo_isEqual() throws Exception {
+        // Arrange (Given)
+        TreeSet<Integer> values = values(0.02, 0.7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // Act (When)
+        bitmapOf(values).writeTo(new DataOutputStream(bytes));
+        CompressedBitmap read = CompressedBitmap.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Assert (Then)
+        assertThat(read.toArray(), is(toArray(values)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.ingredisearch.repository.index;
+
+import com.demo.ingredisearch.util.BenchmarkUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Correction latency over a vocabulary of 50k random terms, for misspellings of known terms and
+ * for words nothing is close to.
+ */
+public class FuzzyMatcherBenchmark {
+
+    private static final int TERMS = 50_000;
+
+    @Test
+    public void bestMatch_50kTerms() throws Exception {
+        Random random = new Random(11);
+        Map<String, Integer> weights = new HashMap<>();
+        while (weights.size() < TERMS) {
+            StringBuilder term = new StringBuilder();
+            for (int i = 0, length = 5 + random.nextInt(7); i < length; i++) {
+                term.append((char) ('a' + (int) (26 * Math.pow(random.nextDouble(), 2))));
+            }
+            weights.put(term.toString(), 1 + random.nextInt(1_000));
+        }
+
+        long start = System.nanoTime();
+        FuzzyMatcher matcher = FuzzyMatcher.build(weights);
+        System.out.println(String.format("build: %d ms", (System.nanoTime() - start) / 1_000_000));
+
+        List<String> terms = new ArrayList<>(weights.keySet());
+        String[] typos = new String[1_000];
+        for (int i = 0; i < typos.length; i++) {
+            StringBuilder typo = new StringBuilder(terms.get(random.nextInt(terms.size())));
+            int at = random.nextInt(typo.length());
+            switch (i % 3) {
+                case 0: typo.deleteCharAt(at); break;
+                case 1: typo.insert(at, (char) ('a' + random.nextInt(26))); break;
+                default: typo.setCharAt(at, (char) ('a' + random.nextInt(26)));
+            }
+            typos[i] = typo.toString();
+        }
+        int[] next = {0};
+        BenchmarkUtil.measure("one typo", 1_000, 10_000, () ->
+                matcher.bestMatch(typos[next[0]++ % typos.length], Long.MAX_VALUE / 2));
+        BenchmarkUtil.measure("no match", 1_000, 10_000, () ->
+                matcher.bestMatch("qwxzvyqwxz", Long.MAX_VALUE / 2));
+        BenchmarkUtil.measure("one typo, 2ms budget", 1_000, 10_000, () ->
+                matcher.bestMatch(typos[next[0]++ % typos.length], FuzzyMatcher.DEFAULT_BUDGET_NANOS));
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.ingredisearch.repository.index;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class FuzzyMatcherTest {
+
+    private static final long BUDGET = Long.MAX_VALUE / 2;
+
+    private static FuzzyMatcher matcher() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("broccoli", 40);
+        weights.put("tomato", 300);
+        weights.put("potato", 150);
+        weights.put("rice", 90);
+        weights.put("ice", 5);
+        weights.put("butter", 200);
+        weights.put("buttermilk", 15);
+        weights.put("bitter", 2);
+        return FuzzyMatcher.build(weights);
+    }
+
+    @Test
+    public void distance_isLevenshteinUpToTheBound() {
+        assertThat(FuzzyMatcher.distance("kitten", "sitting", 3), is(3));
+        assertThat(FuzzyMatcher.distance("brocoli", "broccoli", 2), is(1));
+        assertThat(FuzzyMatcher.distance("abcdef", "fedcba", 2), is(3));
+        assertThat(FuzzyMatcher.distance("same", "same", 0), is(0));
+        assertThat(FuzzyMatcher.distance("onoin", "onion", 1), is(1));
+    }
+
+    @Test
+    public void bestMatch_misspelling_findsClosestTerm() {
+        // Arrange (Given)
+        FuzzyMatcher matcher = matcher();
+
+        // Act (When)
+        // Assert (Then)
+        assertThat(matcher.bestMatch("brocoli", BUDGET), is("broccoli"));
+        assertThat(matcher.bestMatch("tomatoe", BUDGET), is("tomato"));
+        assertThat(matcher.bestMatch("buttr", BUDGET), is("butter"));
+    }
+
+    @Test
+    public void matches_equallyClose_mostCommonFirst() {
+        assertThat(matcher().matches("botter", 5, BUDGET), is(asList("butter", "bitter")));
+    }
+
+    @Test
+    public void bestMatch_tooFarOrTooShort_isNull() {
+        assertThat(matcher().bestMatch("chocolate", BUDGET), is(nullValue()));
+        assertThat(matcher().bestMatch("ric", BUDGET), is(nullValue()));
+    }
+
+    @Test
+    public void matches_noBudget_checksNothing() {
+        assertThat(matcher().matches("brocoli", 5, -1), is(emptyList()));
+    }
+}
@@ -0,0 +1,109 @@
+package com.demo.ingredisearch.repository.index;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.util.BenchmarkUtil;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Build time, query latency and file size of the index over 100k synthetic recipes whose
+ * ingredients follow a skewed (roughly Zipfian) popularity, like real ones do, against scanning
+ * every recipe's ingredient strings.
+ */
+public class IngredientIndexBenchmark {
+
+    private static final int RECIPES = 100_000;
+    private static final int VOCABULARY = 2_000;
+    private static final int INGREDIENTS_PER_RECIPE = 9;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private static String ingredient(int rank) {
+        StringBuilder name = new StringBuilder();
+        for (int n = rank; ; n /= 26) {
+            name.append((char) ('a' + n % 26));
+            if (n < 26) break;
+        }
+        return "ing" + name;
+    }
+
+    private static int skewed(Random random) {
+        return (int) (VOCABULARY * Math.pow(random.nextDouble(), 3));
+    }
+
+    /**
+     * What filtering without an index comes down to.
+     */
+    private static List<Recipe> scanAll(List<Recipe> recipes, String... ingredients) {
+        List<Recipe> matches = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            boolean all = true;
+            for (String ingredient : ingredients) {
+                boolean found = false;
+                for (String line : recipe.getIngredients()) {
+                    if (line.toLowerCase(Locale.ROOT).contains(ingredient)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) matches.add(recipe);
+        }
+        return matches;
+    }
+
+    @Test
+    public void query_100kRecipes() throws Exception {
+        File file = new File(mFolder.getRoot(), "ingredients.idx");
+        IngredientIndex index = new IngredientIndex(file);
+        Random random = new Random(42);
+
+        List<Recipe> recipes = new ArrayList<>(RECIPES);
+        long start = System.nanoTime();
+        for (int i = 0; i < RECIPES; i++) {
+            String[] ingredients = new String[INGREDIENTS_PER_RECIPE];
+            for (int j = 0; j < ingredients.length; j++) {
+                ingredients[j] = "1 cup chopped " + ingredient(skewed(random));
+            }
+            Recipe recipe = new Recipe("r" + i, "Recipe " + i, null, null, ingredients, 50, false);
+            recipes.add(recipe);
+            index.add(recipe);
+        }
+        System.out.println(String.format("build: %d ms, %d terms, %d KB of bitmaps",
+                (System.nanoTime() - start) / 1_000_000, index.getTermCount(), index.getBitmapBytes() / 1024));
+
+        String common = ingredient(0) + ", " + ingredient(1);
+        String mixed = ingredient(0) + ", " + ingredient(300) + ", " + ingredient(5);
+        String rare = ingredient(1_500) + ", " + ingredient(1_900);
+        BenchmarkUtil.measure("all, two common", 200, 2_000, () -> index.match(common, IngredientIndex.Match.ALL));
+        BenchmarkUtil.measure("all, common and rare", 200, 2_000, () -> index.match(mixed, IngredientIndex.Match.ALL));
+        BenchmarkUtil.measure("all, two rare", 200, 2_000, () -> index.match(rare, IngredientIndex.Match.ALL));
+        BenchmarkUtil.measure("any, two rare", 200, 2_000, () -> index.match(rare, IngredientIndex.Match.ANY));
+        String excluding = ingredient(1) + ", -" + ingredient(0);
+        BenchmarkUtil.measure("all, common but not common", 200, 2_000, () ->
+                index.match(excluding, IngredientIndex.Match.ALL));
+        BenchmarkUtil.measure("scan, two common", 5, 20, () -> scanAll(recipes, ingredient(0), ingredient(1)));
+        BenchmarkUtil.measure("scan, two rare", 5, 20, () -> scanAll(recipes, ingredient(1_500), ingredient(1_900)));
+
+        start = System.nanoTime();
+        index.save();
+        System.out.println(String.format("save: %d ms, %d KB",
+                (System.nanoTime() - start) / 1_000_000, file.length() / 1024));
+        start = System.nanoTime();
+        System.out.println(String.format("load: %d recipes in %d ms",
+                new IngredientIndex(file).size(), (System.nanoTime() - start) / 1_000_000));
+    }
+}
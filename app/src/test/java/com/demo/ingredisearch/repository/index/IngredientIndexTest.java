@@ -0,0 +1,193 @@
+package com.demo.ingredisearch.repository.index;
+
+import com.demo.ingredisearch.models.Recipe;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class IngredientIndexTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    // SUT
+    IngredientIndex mIndex;
+
+    Recipe mOmelette = recipe("1", "Cheese Omelette", "3 large eggs", "1/4 cup grated cheddar cheese", "2 tbsp milk");
+    Recipe mPancakes = recipe("2", "Pancakes", "2 cups flour", "2 eggs", "1 1/2 cups milk");
+    Recipe mSalad = recipe("3", "Tomato Salad", "4 ripe tomatoes", "1 red onion, thinly sliced", "olive oil");
+
+    @Before
+    public void init() {
+        mIndex = new IngredientIndex(null, Runnable::run);
+        mIndex.addAll(Arrays.asList(mOmelette, mPancakes, mSalad));
+    }
+
+    private static Recipe recipe(String id, String title, String... ingredients) {
+        return new Recipe(id, title, null, null, ingredients, 50, false);
+    }
+
+    @Test
+    public void of_dropsQuantitiesUnitsAndPreparation() {
+        assertThat(IngredientTerms.of("1/4 cup grated cheddar cheeses"), contains("cheddar", "cheese"));
+    }
+
+    @Test
+    public void search_all_matchesEveryIngredientInAnyForm() {
+        // Act (When)
+        // Assert (Then)
+        assertThat(mIndex.search("Egg, MILK", IngredientIndex.Match.ALL), is(Arrays.asList(mOmelette, mPancakes)));
+        assertThat(mIndex.search("eggs, cheese", IngredientIndex.Match.ALL), is(singletonList(mOmelette)));
+        assertThat(mIndex.search("eggs, tomatoes", IngredientIndex.Match.ALL), is(emptyList()));
+    }
+
+    @Test
+    public void search_any_matchesAtLeastOneIngredient() {
+        assertThat(mIndex.search("cheddar; tomato; truffle", IngredientIndex.Match.ANY),
+                is(Arrays.asList(mOmelette, mSalad)));
+    }
+
+    @Test
+    public void search_excludedIngredient_dropsRecipesWithIt() {
+        assertThat(mIndex.search("eggs, -cheese", IngredientIndex.Match.ALL), is(singletonList(mPancakes)));
+        assertThat(mIndex.search("tomato; eggs; -flour", IngredientIndex.Match.ANY),
+                is(Arrays.asList(mOmelette, mSalad)));
+        assertThat(mIndex.search("-eggs", IngredientIndex.Match.ANY), is(emptyList()));
+    }
+
+    @Test
+    public void search_multiWordIngredient_needsEveryWord() {
+        assertThat(mIndex.search("red onion", IngredientIndex.Match.ALL), is(singletonList(mSalad)));
+        assertThat(mIndex.search("red cheese", IngredientIndex.Match.ALL), is(emptyList()));
+    }
+
+    @Test
+    public void search_onlyStopWords_matchesNothing() {
+        assertThat(mIndex.search("fresh, chopped", IngredientIndex.Match.ANY), is(emptyList()));
+    }
+
+    @Test
+    public void add_sameRecipeWithDetails_replacesItAndKeepsOldTerms() {
+        // Arrange (Given)
+        Recipe summary = new Recipe("4", "Baked Eggs", null, null, null, 10, false);
+        Recipe details = recipe("4", "Baked Eggs", "4 eggs", "1 can black beans");
+        mIndex.add(summary);
+
+        // Act (When)
+        mIndex.add(details);
+        mIndex.add(summary);
+
+        // Assert (Then)
+        assertThat(mIndex.size(), is(4));
+        assertThat(mIndex.search("beans, baked", IngredientIndex.Match.ALL), is(singletonList(details)));
+    }
+
+    @Test
+    public void save_thenReadBack_answersTheSame() throws Exception {
+        // Arrange (Given)
+        File file = new File(mFolder.getRoot(), "ingredients.idx");
+        IngredientIndex saved = new IngredientIndex(file);
+        saved.addAll(Arrays.asList(mOmelette, mPancakes, mSalad));
+
+        // Act (When)
+        saved.save();
+        IngredientIndex loaded = new IngredientIndex(file);
+
+        // Assert (Then)
+        assertThat(saved.isDirty(), is(false));
+        assertThat(loaded.size(), is(3));
+        assertThat(loaded.getTermCount(), is(mIndex.getTermCount()));
+        assertThat(loaded.search("milk, egg", IngredientIndex.Match.ALL), is(Arrays.asList(mOmelette, mPancakes)));
+        assertThat(loaded.search("onion", IngredientIndex.Match.ANY).get(0).getIngredients(),
+                is(mSalad.getIngredients()));
+    }
+
+    @Test
+    public void load_corruptFile_startsEmpty() throws Exception {
+        // Arrange (Given)
+        File file = mFolder.newFile("ingredients.idx");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("not an index");
+        }
+
+        // Act (When)
+        IngredientIndex index = new IngredientIndex(file);
+
+        // Assert (Then)
+        assertThat(index.size(), is(0));
+        assertThat(file.exists(), is(false));
+    }
+
+    @Test
+    public void suggest_completesLastWordByRecipeCount() {
+        // Arrange (Given)
+        mIndex.add(recipe("4", "Omelette", "2 eggs", "1 cup milk", "chives", "goat cheese"));
+
+        // Act (When)
+        // Assert (Then)
+        assertThat(mIndex.suggest("Ch", 5), contains("cheese", "chive", "cheddar"));
+        assertThat(mIndex.suggest("red  on", 5), contains("red onion"));
+        assertThat(mIndex.suggest("tomatoes", 5), contains("tomato"));
+        assertThat(mIndex.suggest("milk ", 5), is(emptyList()));
+    }
+
+    @Test
+    public void suggest_beforeIndexIsLoaded_usesSavedTrie() throws Exception {
+        // Arrange (Given)
+        File file = new File(mFolder.getRoot(), "ingredients.idx");
+        IngredientIndex saved = new IngredientIndex(file);
+        saved.addAll(Arrays.asList(mOmelette, mPancakes, mSalad));
+        saved.save();
+        file.delete();
+
+        // Act (When)
+        IngredientIndex restarted = new IngredientIndex(file);
+
+        // Assert (Then)
+        assertThat(restarted.suggest("mil", 5), contains("milk"));
+    }
+
+    @Test
+    public void add_rebuildsSuggestionsOnTheExecutor_untilThenOffersThePreviousOnes() {
+        // Arrange (Given)
+        List<Runnable> rebuilds = new ArrayList<>();
+        IngredientIndex index = new IngredientIndex(null, rebuilds::add);
+        index.add(mOmelette);
+        assertThat(index.suggest("che", 5), contains("cheese", "cheddar"));
+
+        // Act (When)
+        index.add(recipe("4", "Cherry Pie", "2 cups cherries"));
+        List<String> beforeRebuild = index.suggest("cher", 5);
+        for (Runnable rebuild : rebuilds) rebuild.run();
+
+        // Assert (Then)
+        assertThat(beforeRebuild, is(emptyList()));
+        assertThat(rebuilds.size(), is(1));
+        assertThat(index.suggest("cher", 5), contains("cherry"));
+    }
+
+    @Test
+    public void correct_replacesOnlyUnknownWordsCloseToATerm() {
+        assertThat(mIndex.correct("Tomatoe, red onoin, 2 eggs"), is("tomato, red onion, 2 eggs"));
+        assertThat(mIndex.correct("tomatoes, truffle"), is("tomatoes, truffle"));
+    }
+
+    @Test
+    public void suggest_nothingStartsWithWord_offersClosestTerms() {
+        assertThat(mIndex.suggest("red onoin", 5), contains("red onion"));
+    }
+}
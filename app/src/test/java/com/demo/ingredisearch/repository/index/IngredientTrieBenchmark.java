@@ -0,0 +1,47 @@
+package com.demo.ingredisearch.repository.index;
+
+import com.demo.ingredisearch.util.BenchmarkUtil;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Top-k completion latency and load time of a trie over 50k random terms with skewed weights.
+ */
+public class IngredientTrieBenchmark {
+
+    private static final int TERMS = 50_000;
+
+    @Test
+    public void complete_50kTerms() throws Exception {
+        Random random = new Random(7);
+        Map<String, Integer> weights = new HashMap<>();
+        while (weights.size() < TERMS) {
+            StringBuilder term = new StringBuilder();
+            for (int i = 0, length = 4 + random.nextInt(8); i < length; i++) {
+                term.append((char) ('a' + (int) (26 * Math.pow(random.nextDouble(), 2))));
+            }
+            weights.put(term.toString(), 1 + (int) (10_000 * Math.pow(random.nextDouble(), 4)));
+        }
+
+        long start = System.nanoTime();
+        IngredientTrie trie = IngredientTrie.build(weights);
+        System.out.println(String.format("build: %d ms, %d nodes",
+                (System.nanoTime() - start) / 1_000_000, trie.getNodeCount()));
+
+        BenchmarkUtil.measure("top 8, 1 char", 1_000, 10_000, () -> trie.complete("c", 8));
+        BenchmarkUtil.measure("top 8, 3 chars", 1_000, 10_000, () -> trie.complete("cab", 8));
+        BenchmarkUtil.measure("top 8, miss", 1_000, 10_000, () -> trie.complete("zzzz", 8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trie.writeTo(out);
+        byte[] bytes = out.toByteArray();
+        BenchmarkUtil.measure("load, " + bytes.length / 1024 + " KB", 5, 20, () ->
+                IngredientTrie.readFrom(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo.ingredisearch.repository.index;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class IngredientTrieTest {
+
+    private static IngredientTrie trie() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("chicken", 120);
+        weights.put("chickpea", 30);
+        weights.put("chili", 45);
+        weights.put("chive", 12);
+        weights.put("cheese", 200);
+        weights.put("chia", 3);
+        weights.put("egg", 300);
+        weights.put("eggplant", 20);
+        return IngredientTrie.build(weights);
+    }
+
+    @Test
+    public void complete_returnsTopKByWeight() {
+        // Arrange (Given)
+        IngredientTrie trie = trie();
+
+        // Act (When)
+        // Assert (Then)
+        assertThat(trie.complete("chi", 3), is(asList("chicken", "chili", "chickpea")));
+        assertThat(trie.complete("ch", 10), is(asList("cheese", "chicken", "chili", "chickpea", "chive", "chia")));
+    }
+
+    @Test
+    public void complete_wholeTermThatIsAlsoAPrefix_comesFirstWhenHeavier() {
+        assertThat(trie().complete("egg", 5), is(asList("egg", "eggplant")));
+    }
+
+    @Test
+    public void complete_unknownPrefix_isEmpty() {
+        assertThat(trie().complete("xyz", 5), is(emptyList()));
+        assertThat(IngredientTrie.EMPTY.complete("a", 5), is(emptyList()));
+    }
+
+    @Test
+    public void readFrom_afterWriteTo_isEquivalent() throws Exception {
+        // Arrange (Given)
+        IngredientTrie trie = trie();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act (When)
+        trie.writeTo(out);
+        IngredientTrie read = IngredientTrie.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        // Assert (Then)
+        assertThat(read.getNodeCount(), is(trie.getNodeCount()));
+        assertThat(read.complete("c", 10), is(trie.complete("c", 10)));
+        assertThat(read.weightOf("chive"), is(12));
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_truncated_throws() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trie().writeTo(out);
+        byte[] bytes = out.toByteArray();
+
+        IngredientTrie.readFrom(new ByteArrayInputStream(bytes, 0, bytes.length / 2));
+    }
+}
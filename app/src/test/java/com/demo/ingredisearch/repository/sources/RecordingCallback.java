@@ -0,0 +1,35 @@
+package com.demo.ingredisearch.repository.sources;
+
+import com.demo.ingredisearch.util.Resource;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every {@link Resource} delivered to it, and lets a test wait for the first one.
+ */
+public class RecordingCallback<T> implements ResponseCallback<T> {
+    public final List<Resource<T>> responses = new CopyOnWriteArrayList<>();
+    private final CountDownLatch mLatch = new CountDownLatch(1);
+
+    @Override
+    public void onDataAvailable(Resource<T> response) {
+        responses.add(response);
+        mLatch.countDown();
+    }
+
+    @Override
+    public void onError(Resource<T> response) {
+        responses.add(response);
+        mLatch.countDown();
+    }
+
+    public Resource<T> await() throws InterruptedException {
+        if (!mLatch.await(2, TimeUnit.SECONDS)) {
+            throw new RuntimeException("Callback was never called.");
+        }
+        return responses.get(0);
+    }
+}
@@ -0,0 +1,124 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.util.FakeClock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.demo.ingredisearch.repository.sources.remote.CircuitBreaker.State.CLOSED;
+import static com.demo.ingredisearch.repository.sources.remote.CircuitBreaker.State.HALF_OPEN;
+import static com.demo.ingredisearch.repository.sources.remote.CircuitBreaker.State.OPEN;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class CircuitBreakerTest {
+    private static final int THRESHOLD = 3;
+    private static final long OPEN_MILLIS = 10_000;
+
+    // SUT
+    CircuitBreaker mCircuitBreaker;
+
+    FakeClock mClock;
+    List<CircuitBreaker.State> mTransitions;
+
+    @Before
+    public void init() {
+        mClock = new FakeClock();
+        mCircuitBreaker = new CircuitBreaker(THRESHOLD, OPEN_MILLIS, 1, mClock);
+        mTransitions = new ArrayList<>();
+        mCircuitBreaker.setListener((from, to) -> mTransitions.add(to));
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            mCircuitBreaker.tryAcquire();
+            mCircuitBreaker.onFailure();
+        }
+    }
+
+    @Test
+    public void failuresBelowThreshold_staysClosed() {
+        // Act (When)
+        fail(THRESHOLD - 1);
+        mCircuitBreaker.onSuccess();
+        fail(THRESHOLD - 1);
+
+        // Assert (Then)
+        assertThat(mCircuitBreaker.getState(), is(CLOSED));
+        assertThat(mCircuitBreaker.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void consecutiveFailuresAtThreshold_opensAndFailsFast() {
+        // Act (When)
+        fail(THRESHOLD);
+
+        // Assert (Then)
+        assertThat(mCircuitBreaker.getState(), is(OPEN));
+        assertThat(mCircuitBreaker.tryAcquire(), is(false));
+        assertThat(mCircuitBreaker.getStats().rejected, is(1));
+    }
+
+    @Test
+    public void openDurationElapsed_halfOpensWithSingleProbe() {
+        // Arrange (Given)
+        fail(THRESHOLD);
+
+        // Act (When)
+        mClock.advance(OPEN_MILLIS);
+
+        // Assert (Then)
+        assertThat(mCircuitBreaker.tryAcquire(), is(true));
+        assertThat(mCircuitBreaker.getState(), is(HALF_OPEN));
+        assertThat(mCircuitBreaker.tryAcquire(), is(false));
+    }
+
+    @Test
+    public void probeSucceeds_closes() {
+        // Arrange (Given)
+        fail(THRESHOLD);
+        mClock.advance(OPEN_MILLIS);
+        mCircuitBreaker.tryAcquire();
+
+        // Act (When)
+        mCircuitBreaker.onSuccess();
+
+        // Assert (Then)
+        assertThat(mCircuitBreaker.getState(), is(CLOSED));
+        assertThat(mTransitions, contains(OPEN, HALF_OPEN, CLOSED));
+    }
+
+    @Test
+    public void probeFails_reopensForAnotherFullPeriod() {
+        // Arrange (Given)
+        fail(THRESHOLD);
+        mClock.advance(OPEN_MILLIS);
+        mCircuitBreaker.tryAcquire();
+
+        // Act (When)
+        mCircuitBreaker.onFailure();
+        mClock.advance(OPEN_MILLIS - 1);
+
+        // Assert (Then)
+        assertThat(mCircuitBreaker.tryAcquire(), is(false));
+        assertThat(mCircuitBreaker.getStats().timesOpened, is(2));
+    }
+
+    @Test
+    public void abandonedProbe_freesItsSlot() {
+        // Arrange (Given)
+        fail(THRESHOLD);
+        mClock.advance(OPEN_MILLIS);
+        mCircuitBreaker.tryAcquire();
+
+        // Act (When)
+        mCircuitBreaker.release();
+
+        // Assert (Then)
+        assertThat(mCircuitBreaker.tryAcquire(), is(true));
+    }
+}
@@ -0,0 +1,161 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Scheduler;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Retrofit {@link Call} that answers synchronously with scripted outcomes, one per attempt.
+ * Clones share the script, so a retried call plays the next outcome.
+ */
+public class FakeCall<T> implements Call<T> {
+
+    private final Deque<Object> mOutcomes;
+    private final int[] mAttempts;
+    private boolean mExecuted;
+    private boolean mCanceled;
+    private boolean mHold;
+    private Callback<T> mHeldCallback;
+    private Cancellable mDelayedAnswer;
+
+    public FakeCall() {
+        this(new ArrayDeque<>(), new int[1]);
+    }
+
+    private FakeCall(Deque<Object> outcomes, int[] attempts) {
+        mOutcomes = outcomes;
+        mAttempts = attempts;
+    }
+
+    public FakeCall<T> thenRespond(T body) {
+        mOutcomes.add(Response.success(body));
+        return this;
+    }
+
+    public FakeCall<T> thenRespondError(int code) {
+        mOutcomes.add(Response.error(code, ResponseBody.create("", MediaType.get("text/plain"))));
+        return this;
+    }
+
+    public FakeCall<T> thenFail(IOException exception) {
+        mOutcomes.add(exception);
+        return this;
+    }
+
+    /**
+     * The next attempt never answers; cancelling it fails it with "Canceled", like OkHttp.
+     */
+    public FakeCall<T> thenHold() {
+        mOutcomes.add(HOLD);
+        return this;
+    }
+
+    /**
+     * The next attempt answers with {@code body} once {@code delayMillis} have passed on
+     * {@code scheduler}, unless it is cancelled first.
+     */
+    public FakeCall<T> thenRespondAfter(Scheduler scheduler, long delayMillis, T body) {
+        mOutcomes.add(new Delayed(scheduler, delayMillis, Response.success(body)));
+        return this;
+    }
+
+    public int attempts() {
+        return mAttempts[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void enqueue(@NonNull Callback<T> callback) {
+        mExecuted = true;
+        mAttempts[0]++;
+        Object outcome = mOutcomes.poll();
+        if (outcome == HOLD) {
+            mHold = true;
+            mHeldCallback = callback;
+        } else if (outcome instanceof Delayed) {
+            Delayed delayed = (Delayed) outcome;
+            mHold = true;
+            mHeldCallback = callback;
+            mDelayedAnswer = delayed.mScheduler.schedule(() -> {
+                mHold = false;
+                callback.onResponse(this, (Response<T>) delayed.mResponse);
+            }, delayed.mDelayMillis);
+        } else if (outcome instanceof IOException) {
+            callback.onFailure(this, (IOException) outcome);
+        } else if (outcome instanceof Response) {
+            callback.onResponse(this, (Response<T>) outcome);
+        } else {
+            throw new IllegalStateException("No outcome scripted for attempt " + mAttempts[0]);
+        }
+    }
+
+    private static final Object HOLD = new Object();
+
+    private static final class Delayed {
+        final Scheduler mScheduler;
+        final long mDelayMillis;
+        final Response<?> mResponse;
+
+        Delayed(Scheduler scheduler, long delayMillis, Response<?> response) {
+            mScheduler = scheduler;
+            mDelayMillis = delayMillis;
+            mResponse = response;
+        }
+    }
+
+    @Override
+    public Response<T> execute() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return mExecuted;
+    }
+
+    @Override
+    public void cancel() {
+        mCanceled = true;
+        if (mHold) {
+            mHold = false;
+            if (mDelayedAnswer != null) mDelayedAnswer.cancel();
+            mHeldCallback.onFailure(this, new IOException("Canceled"));
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+
+    @NonNull
+    @Override
+    public Call<T> clone() {
+        return new FakeCall<>(mOutcomes, mAttempts);
+    }
+
+    @NonNull
+    @Override
+    public Request request() {
+        return new Request.Builder().url("http://localhost/").build();
+    }
+
+    @NonNull
+    @Override
+    public Timeout timeout() {
+        return Timeout.NONE;
+    }
+}
@@ -0,0 +1,256 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.FakeClock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class HedgedCallerTest {
+    private static final long TYPICAL_LATENCY = 100;
+    private static final int WARM_UP_CALLS = 5;
+
+    // SUT
+    HedgedCaller mHedgedCaller;
+
+    FakeClock mClock;
+    List<Object> mOutcomes;
+
+    @Before
+    public void init() {
+        mClock = new FakeClock();
+        mHedgedCaller = createHedgedCaller(0.5);
+        mOutcomes = new ArrayList<>();
+    }
+
+    private HedgedCaller createHedgedCaller(double maxHedgeRatio) {
+        ResilientCaller caller = new ResilientCaller(new RetryPolicy(1, 0, 0),
+                new CircuitBreaker(100, 10_000, 1, mClock), mClock, new Random(42));
+        return new HedgedCaller(caller, new LatencyTracker(10, WARM_UP_CALLS),
+                0.9, maxHedgeRatio, 10, mClock, mClock);
+    }
+
+    private Cancellable enqueue(FakeCall<String> call) {
+        return mHedgedCaller.enqueue(call, new Callback<String>() {
+            @Override
+            public void onResponse(Call<String> call, Response<String> response) {
+                mOutcomes.add(response.body());
+            }
+
+            @Override
+            public void onFailure(Call<String> call, Throwable throwable) {
+                mOutcomes.add(throwable);
+            }
+        });
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            enqueue(new FakeCall<String>().thenRespondAfter(mClock, TYPICAL_LATENCY, "warm-up"));
+            mClock.advance(TYPICAL_LATENCY);
+        }
+        mOutcomes.clear();
+    }
+
+    @Test
+    public void noLatencyHistory_neverHedges() {
+        // Arrange (Given)
+        FakeCall<String> call = new FakeCall<String>().thenRespondAfter(mClock, 1_000, "recipe");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(1_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("recipe"));
+        assertThat(call.attempts(), is(1));
+        assertThat(mHedgedCaller.getStats().hedges, is(0));
+    }
+
+    @Test
+    public void fastAnswer_sendsNoHedge() {
+        // Arrange (Given)
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>().thenRespondAfter(mClock, TYPICAL_LATENCY / 2, "recipe");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(10_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("recipe"));
+        assertThat(call.attempts(), is(1));
+        assertThat(mClock.pendingTasks(), is(0));
+    }
+
+    @Test
+    public void slowAnswer_hedgeAnswersFirstAndWins() {
+        // Arrange (Given)
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>()
+                .thenRespondAfter(mClock, 5_000, "slow")
+                .thenRespondAfter(mClock, TYPICAL_LATENCY, "hedged");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(2 * TYPICAL_LATENCY);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("hedged"));
+        assertThat(call.attempts(), is(2));
+        assertThat(mHedgedCaller.getStats().hedges, is(1));
+        assertThat(mHedgedCaller.getStats().hedgeWins, is(1));
+    }
+
+    @Test
+    public void hedgeWins_recordsLatencyFromStartOfCall() {
+        // Arrange (Given)
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>()
+                .thenRespondAfter(mClock, 5_000, "slow")
+                .thenRespondAfter(mClock, TYPICAL_LATENCY, "hedged");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(2 * TYPICAL_LATENCY);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("hedged"));
+        // Sent at the p90 of 100ms, answered 100ms later: the slow attempt took at least 200ms
+        assertThat(mHedgedCaller.getStats().hedgeDelayMillis, is(2 * TYPICAL_LATENCY));
+    }
+
+    @Test
+    public void hedgeWins_slowAttemptIsCancelled() {
+        // Arrange (Given)
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>()
+                .thenRespondAfter(mClock, 5_000, "slow")
+                .thenRespondAfter(mClock, TYPICAL_LATENCY, "hedged");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(10_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("hedged"));
+        assertThat(mClock.pendingTasks(), is(0));
+    }
+
+    @Test
+    public void firstAttemptAnswersAfterHedgeWasSent_hedgeLoses() {
+        // Arrange (Given)
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>()
+                .thenRespondAfter(mClock, TYPICAL_LATENCY + 50, "first")
+                .thenRespondAfter(mClock, 1_000, "hedged");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(10_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("first"));
+        assertThat(mHedgedCaller.getStats().hedges, is(1));
+        assertThat(mHedgedCaller.getStats().hedgeWins, is(0));
+    }
+
+    @Test
+    public void firstAttemptFails_hedgeAnswerIsDelivered() {
+        // Arrange (Given)
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>()
+                .thenHold()
+                .thenRespondAfter(mClock, 1_000, "hedged");
+        enqueue(call);
+        mClock.advance(TYPICAL_LATENCY);
+
+        // Act (When)
+        call.cancel(); // fails the held first attempt the way a dropped connection would
+        mClock.advance(1_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("hedged"));
+    }
+
+    @Test
+    public void hedgeBudgetUsedUp_doesNotHedge() {
+        // Arrange (Given)
+        mHedgedCaller = createHedgedCaller(0.1);
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>().thenRespondAfter(mClock, 1_000, "recipe");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(1_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, contains("recipe"));
+        assertThat(call.attempts(), is(1));
+        assertThat(mHedgedCaller.getStats().hedgeRate(), is(0.0));
+    }
+
+    @Test
+    public void disabled_doesNotHedge() {
+        // Arrange (Given)
+        warmUp();
+        mHedgedCaller.setEnabled(false);
+        FakeCall<String> call = new FakeCall<String>().thenRespondAfter(mClock, 1_000, "recipe");
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(1_000);
+
+        // Assert (Then)
+        assertThat(call.attempts(), is(1));
+    }
+
+    @Test
+    public void cancelled_neitherAttemptCallsBack() {
+        // Arrange (Given)
+        warmUp();
+        FakeCall<String> call = new FakeCall<String>()
+                .thenRespondAfter(mClock, 5_000, "slow")
+                .thenRespondAfter(mClock, 1_000, "hedged");
+        Cancellable handle = enqueue(call);
+        mClock.advance(TYPICAL_LATENCY);
+
+        // Act (When)
+        handle.cancel();
+        mClock.advance(10_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, is(empty()));
+        assertThat(mClock.pendingTasks(), is(0));
+    }
+
+    @Test
+    public void latencyTracker_reportsPercentileOnceWarm() {
+        // Arrange (Given)
+        LatencyTracker tracker = new LatencyTracker(4, 2);
+
+        // Act (When)
+        tracker.record(400);
+        long cold = tracker.percentile(0.5);
+        for (long latency : new long[]{100, 200, 300, 1_000}) tracker.record(latency);
+
+        // Assert (Then)
+        assertThat(cold, is(-1L));
+        assertThat(tracker.getSampleCount(), is(4));
+        assertThat(tracker.percentile(0.5), is(200L));
+        assertThat(tracker.percentile(1), is(1_000L));
+    }
+}
@@ -0,0 +1,153 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class HttpResponseCacheTest {
+    private static final String SEARCH_BODY = "{\"count\":0,\"recipes\":[]}";
+    private static final long MAX_SIZE_BYTES = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    MockWebServer mServer;
+
+    @Before
+    public void init() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    private ServiceGenerator serviceGeneratorWith(HttpResponseCache responseCache) {
+        return new ServiceGenerator(ServiceGenerator.createRecipeApi(mServer.url("/").toString(),
+                ServiceGenerator.createHttpClient(responseCache)));
+    }
+
+    @Test
+    public void search_repeatedWhileFresh_servedFromDisk() throws Exception {
+        // Arrange (Given)
+        HttpResponseCache cache = new HttpResponseCache(mTemporaryFolder.getRoot(), MAX_SIZE_BYTES,
+                HttpResponseCache.SEARCH_MAX_AGE_SECONDS, HttpResponseCache.RECIPE_MAX_AGE_SECONDS);
+        ServiceGenerator serviceGenerator = serviceGeneratorWith(cache);
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY));
+
+        // Act (When)
+        serviceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        Response<ResponseBody> second = serviceGenerator.getRecipesStreamingService("eggs", 1).execute();
+        second.body().close();
+
+        // Assert (Then)
+        assertThat(second.raw().networkResponse(), is(nullValue()));
+        assertThat(mServer.getRequestCount(), is(1));
+        HttpResponseCache.Stats stats = cache.getStats();
+        assertThat(stats.hits, is(1));
+        assertThat(stats.misses, is(1));
+        assertThat(stats.revalidations, is(0));
+    }
+
+    @Test
+    public void search_staleWithETag_revalidatesAndCountsNotModified() throws Exception {
+        // Arrange (Given)
+        HttpResponseCache cache = new HttpResponseCache(mTemporaryFolder.getRoot(), MAX_SIZE_BYTES,
+                0, HttpResponseCache.RECIPE_MAX_AGE_SECONDS);
+        ServiceGenerator serviceGenerator = serviceGeneratorWith(cache);
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).addHeader("ETag", "\"v1\""));
+        mServer.enqueue(new MockResponse().setResponseCode(304));
+
+        // Act (When)
+        serviceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        Response<ResponseBody> second = serviceGenerator.getRecipesStreamingService("eggs", 1).execute();
+        second.body().close();
+
+        // Assert (Then)
+        assertThat(second.code(), is(200));
+        mServer.takeRequest();
+        assertThat(mServer.takeRequest().getHeader("If-None-Match"), is("\"v1\""));
+        HttpResponseCache.Stats stats = cache.getStats();
+        assertThat(stats.hits, is(0));
+        assertThat(stats.misses, is(1));
+        assertThat(stats.revalidations, is(1));
+        assertThat(stats.notModified, is(1));
+    }
+
+    @Test
+    public void search_serverSaysNoStore_neverStored() throws Exception {
+        // Arrange (Given)
+        HttpResponseCache cache = new HttpResponseCache(mTemporaryFolder.getRoot(), MAX_SIZE_BYTES,
+                HttpResponseCache.SEARCH_MAX_AGE_SECONDS, HttpResponseCache.RECIPE_MAX_AGE_SECONDS);
+        ServiceGenerator serviceGenerator = serviceGeneratorWith(cache);
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).addHeader("Cache-Control", "no-store"));
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).addHeader("Cache-Control", "no-store"));
+
+        // Act (When)
+        serviceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        Response<ResponseBody> second = serviceGenerator.getRecipesStreamingService("eggs", 1).execute();
+        second.body().close();
+
+        // Assert (Then)
+        assertThat(second.raw().networkResponse(), is(notNullValue()));
+        assertThat(second.headers().get("Cache-Control"), is("no-store"));
+        assertThat(mServer.getRequestCount(), is(2));
+        assertThat(cache.getStats().hits, is(0));
+    }
+
+    @Test
+    public void search_serverSetsItsOwnLifetime_keptOverEndpointDefault() throws Exception {
+        // Arrange (Given)
+        HttpResponseCache cache = new HttpResponseCache(mTemporaryFolder.getRoot(), MAX_SIZE_BYTES,
+                HttpResponseCache.SEARCH_MAX_AGE_SECONDS, HttpResponseCache.RECIPE_MAX_AGE_SECONDS);
+        ServiceGenerator serviceGenerator = serviceGeneratorWith(cache);
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY)
+                .addHeader("Cache-Control", "max-age=0").addHeader("ETag", "\"v1\""));
+        mServer.enqueue(new MockResponse().setResponseCode(304));
+
+        // Act (When)
+        serviceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        Response<ResponseBody> second = serviceGenerator.getRecipesStreamingService("eggs", 1).execute();
+        second.body().close();
+
+        // Assert (Then)
+        assertThat(mServer.getRequestCount(), is(2));
+        HttpResponseCache.Stats stats = cache.getStats();
+        assertThat(stats.hits, is(0));
+        assertThat(stats.revalidations, is(1));
+        assertThat(stats.notModified, is(1));
+    }
+
+    @Test
+    public void search_serverSendsExpires_keptOverEndpointDefault() throws Exception {
+        // Arrange (Given)
+        HttpResponseCache cache = new HttpResponseCache(mTemporaryFolder.getRoot(), MAX_SIZE_BYTES,
+                HttpResponseCache.SEARCH_MAX_AGE_SECONDS, HttpResponseCache.RECIPE_MAX_AGE_SECONDS);
+        ServiceGenerator serviceGenerator = serviceGeneratorWith(cache);
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).addHeader("Expires", "Thu, 01 Jan 1970 00:00:00 GMT"));
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY));
+
+        // Act (When)
+        serviceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        Response<ResponseBody> second = serviceGenerator.getRecipesStreamingService("eggs", 1).execute();
+        second.body().close();
+
+        // Assert (Then)
+        assertThat(second.raw().networkResponse(), is(notNullValue()));
+        assertThat(mServer.getRequestCount(), is(2));
+    }
+}
@@ -0,0 +1,104 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.repository.sources.RecordingCallback;
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Resource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class InFlightRequestsTest {
+    private static final int ROUNDS = 2_000;
+
+    // SUT
+    InFlightRequests<Integer> mInFlightRequests;
+
+    AtomicReference<InFlightRequests.Flight<Integer>> mFlight;
+
+    @Before
+    public void init() {
+        mInFlightRequests = new InFlightRequests<>();
+        mFlight = new AtomicReference<>();
+    }
+
+    private Cancellable start(InFlightRequests.Flight<Integer> flight) {
+        mFlight.set(flight);
+        return new Cancellable() {
+            @Override
+            public void cancel() {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void lateJoiner_getsLatestProgressThenOutcome() {
+        // Arrange (Given)
+        RecordingCallback<Integer> first = new RecordingCallback<>();
+        RecordingCallback<Integer> late = new RecordingCallback<>();
+        mInFlightRequests.join("eggs#1", first, this::start);
+        mFlight.get().onProgress(Resource.partial(1));
+        mFlight.get().onProgress(Resource.partial(2));
+
+        // Act (When)
+        mInFlightRequests.join("eggs#1", late, this::start);
+        mFlight.get().onDataAvailable(Resource.success(3));
+
+        // Assert (Then)
+        assertThat(first.responses, contains(Resource.partial(1), Resource.partial(2), Resource.success(3)));
+        assertThat(late.responses, contains(Resource.partial(2), Resource.success(3)));
+    }
+
+    @Test
+    public void lateJoinerRacingTheFlight_neverSeesProgressOutOfOrderOrAfterOutcome() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            // Arrange (Given)
+            // A joiner that comes in after the outcome starts a flight of its own
+            String key = "eggs#" + round;
+            RecordingCallback<Integer> late = new RecordingCallback<>();
+            mInFlightRequests.join(key, new RecordingCallback<>(), this::start);
+            InFlightRequests.Flight<Integer> flight = mFlight.get();
+            flight.onProgress(Resource.partial(1));
+            CountDownLatch go = new CountDownLatch(1);
+            Thread reporter = new Thread(() -> {
+                awaitQuietly(go);
+                flight.onProgress(Resource.partial(2));
+                flight.onDataAvailable(Resource.success(3));
+            });
+            reporter.start();
+
+            // Act (When)
+            go.countDown();
+            mInFlightRequests.join(key, late, this::start);
+            reporter.join();
+
+            // Assert (Then)
+            List<Integer> seen = new ArrayList<>();
+            for (Resource<Integer> response : late.responses) seen.add(response.data);
+            for (int i = 1; i < seen.size(); i++) {
+                assertThat("round " + round + ": " + seen, seen.get(i) > seen.get(i - 1), is(true));
+            }
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
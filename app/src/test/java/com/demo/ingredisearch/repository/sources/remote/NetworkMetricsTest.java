@@ -0,0 +1,126 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static com.demo.ingredisearch.repository.sources.remote.NetworkMetrics.Phase.BODY;
+import static com.demo.ingredisearch.repository.sources.remote.NetworkMetrics.Phase.CONNECT;
+import static com.demo.ingredisearch.repository.sources.remote.NetworkMetrics.Phase.TIME_TO_FIRST_BYTE;
+import static com.demo.ingredisearch.repository.sources.remote.NetworkMetrics.Phase.TLS;
+import static com.demo.ingredisearch.repository.sources.remote.NetworkMetrics.Phase.TOTAL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class NetworkMetricsTest {
+    private static final String EMPTY_SEARCH = "{\"count\":0,\"recipes\":[]}";
+
+    // SUT
+    NetworkMetrics mNetworkMetrics;
+
+    MockWebServer mServer;
+    ServiceGenerator mServiceGenerator;
+
+    @Before
+    public void init() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+        mNetworkMetrics = new NetworkMetrics();
+        mServiceGenerator = new ServiceGenerator(ServiceGenerator.createRecipeApi(mServer.url("/").toString(),
+                ServiceGenerator.createHttpClient(null, mNetworkMetrics)));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void calls_areTimedPerEndpointAndPhase() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(EMPTY_SEARCH));
+        mServer.enqueue(new MockResponse().setBody(EMPTY_SEARCH));
+        mServer.enqueue(new MockResponse().setBody("{\"recipe\":{\"recipe_id\":\"a\",\"title\":\"A\"}}"));
+
+        // Act (When)
+        mServiceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        mServiceGenerator.getRecipesStreamingService("milk", 1).execute().body().string();
+        mServiceGenerator.getRecipeService("a").execute();
+
+        // Assert (Then)
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.SEARCH, TOTAL).count, is(2L));
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.SEARCH, TIME_TO_FIRST_BYTE).count, is(2L));
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.SEARCH, BODY).count, is(2L));
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.GET, TOTAL).count, is(1L));
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.OTHER, TOTAL).count, is(0L));
+    }
+
+    @Test
+    public void pooledConnection_connectIsTimedOnce() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(EMPTY_SEARCH));
+        mServer.enqueue(new MockResponse().setBody(EMPTY_SEARCH));
+
+        // Act (When)
+        mServiceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        mServiceGenerator.getRecipesStreamingService("milk", 1).execute().body().string();
+
+        // Assert (Then)
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.SEARCH, CONNECT).count, is(1L));
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.SEARCH, TLS).count, is(0L)); // plain HTTP
+    }
+
+    @Test
+    public void getSnapshot_coversEveryEndpointAndReset_clearsIt() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(EMPTY_SEARCH));
+        mServiceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+
+        // Act (When)
+        Map<String, Map<NetworkMetrics.Phase, LatencyHistogram.Snapshot>> snapshot = mNetworkMetrics.getSnapshot();
+        mNetworkMetrics.reset();
+
+        // Assert (Then)
+        assertThat(snapshot, hasKey(NetworkMetrics.GET));
+        assertThat(snapshot.get(NetworkMetrics.SEARCH).get(TOTAL).count, is(1L));
+        assertThat(mNetworkMetrics.getSnapshot(NetworkMetrics.SEARCH, TOTAL).count, is(0L));
+    }
+
+    @Test
+    public void histogram_percentilesWithinBucketPrecision() {
+        // Arrange (Given)
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Act (When)
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // Assert (Then)
+        assertThat(snapshot.count, is(100_000L));
+        assertThat(snapshot.p50, is(both(greaterThanOrEqualTo(50_000L)).and(lessThanOrEqualTo(53_000L))));
+        assertThat(snapshot.p90, is(both(greaterThanOrEqualTo(90_000L)).and(lessThanOrEqualTo(95_400L))));
+        assertThat(snapshot.p99, is(both(greaterThanOrEqualTo(99_000L)).and(lessThanOrEqualTo(100_000L))));
+        assertThat(snapshot.max, is(100_000L));
+    }
+
+    @Test
+    public void histogram_bucketsAreContiguous() {
+        // Assert (Then)
+        for (int index = 0; index < 500; index++) {
+            long highest = LatencyHistogram.highestValueIn(index);
+            assertThat(LatencyHistogram.indexOf(highest), is(index));
+            assertThat(LatencyHistogram.indexOf(highest + 1), is(index + 1));
+        }
+    }
+}
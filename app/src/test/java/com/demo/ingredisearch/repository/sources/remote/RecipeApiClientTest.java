@@ -1,11 +1,52 @@
 package com.demo.ingredisearch.repository.sources.remote;
 
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.sources.RecordingCallback;
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.Resource;
+import com.demo.ingredisearch.util.SingleExecutors;
+import com.demo.ingredisearch.util.Status;
+
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
 public class RecipeApiClientTest {
+    private static final String SEARCH_BODY = "{\"count\":1,\"recipes\":[" +
+            "{\"recipe_id\":\"1af01c\",\"title\":\"Cakespy: Cadbury Creme Deviled Eggs\"}]}";
+    private static final String RECIPE_BODY =
+            "{\"recipe\":{\"recipe_id\":\"1af01c\",\"title\":\"Cakespy: Cadbury Creme Deviled Eggs\"}}";
+
     // SUT
     RecipeApiClient mRemoteDataSource;
 
+    MockWebServer mServer;
+
+    @Before
+    public void init() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+        mRemoteDataSource = new RecipeApiClient(new ServiceGenerator(ServiceGenerator.createRecipeApi(
+                mServer.url("/").toString(), ServiceGenerator.createHttpClient(null))), new SingleExecutors());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
     @Test
     public void searchRecipes_whenFailedByNetworkError_returnsErrorResponse() {
         // Arrange (Given)
@@ -102,4 +143,176 @@ public class RecipeApiClientTest {
 
     }
 
+    @Test
+    public void searchRecipes_sameQueryWhileInFlight_sharesOneCall() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        RecordingCallback<List<Recipe>> first = new RecordingCallback<>();
+        RecordingCallback<List<Recipe>> second = new RecordingCallback<>();
+
+        // Act (When)
+        mRemoteDataSource.searchRecipes("eggs, milk", first);
+        mRemoteDataSource.searchRecipes("  Eggs, Milk ", second);
+
+        // Assert (Then)
+        assertThat(first.await(), is(sameInstance(second.await())));
+        assertThat(first.await().data, hasSize(1));
+        assertThat(mServer.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void searchRecipe_sameIdWhileInFlight_sharesOneCall() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(RECIPE_BODY).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        RecordingCallback<Recipe> first = new RecordingCallback<>();
+        RecordingCallback<Recipe> second = new RecordingCallback<>();
+
+        // Act (When)
+        mRemoteDataSource.searchRecipe("1af01c", first);
+        mRemoteDataSource.searchRecipe("1af01c", second);
+
+        // Assert (Then)
+        assertThat(first.await(), is(sameInstance(second.await())));
+        assertThat(first.await().data.getRecipeId(), is("1af01c"));
+        assertThat(mServer.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void searchRecipes_afterPreviousCompleted_startsNewCall() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY));
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY));
+        RecordingCallback<List<Recipe>> first = new RecordingCallback<>();
+        mRemoteDataSource.searchRecipes("eggs", first);
+        first.await();
+
+        // Act (When)
+        RecordingCallback<List<Recipe>> second = new RecordingCallback<>();
+        mRemoteDataSource.searchRecipes("eggs", second);
+        second.await();
+
+        // Assert (Then)
+        assertThat(mServer.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void searchRecipes_cancelled_neverCallsBack() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        RecordingCallback<List<Recipe>> callback = new RecordingCallback<>();
+
+        // Act (When)
+        Cancellable call = mRemoteDataSource.searchRecipes("eggs", callback);
+        call.cancel();
+        Thread.sleep(400);
+
+        // Assert (Then)
+        assertThat(call.isCancelled(), is(true));
+        assertThat(callback.responses, is(empty()));
+    }
+
+    @Test
+    public void searchRecipes_oneOfTwoCallersCancelled_otherStillGetsResult() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        RecordingCallback<List<Recipe>> cancelled = new RecordingCallback<>();
+        RecordingCallback<List<Recipe>> remaining = new RecordingCallback<>();
+
+        // Act (When)
+        Cancellable first = mRemoteDataSource.searchRecipes("eggs", cancelled);
+        mRemoteDataSource.searchRecipes("eggs", remaining);
+        first.cancel();
+
+        // Assert (Then)
+        assertThat(remaining.await().data, hasSize(1));
+        assertThat(cancelled.responses, is(empty()));
+    }
+
+    @Test
+    public void searchRecipes_cancelledThenSameQueryAgain_startsNewCall() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY));
+        mRemoteDataSource.searchRecipes("eggs", new RecordingCallback<>()).cancel();
+
+        // Act (When)
+        RecordingCallback<List<Recipe>> callback = new RecordingCallback<>();
+        mRemoteDataSource.searchRecipes("eggs", callback);
+
+        // Assert (Then)
+        assertThat(callback.await().data, hasSize(1));
+        assertThat(callback.responses, hasSize(1));
+    }
+
+    @Test
+    public void searchRecipes_largeResult_deliversPartialResultsBeforeSuccess() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(RecipeSearchStreamParserTest.searchBody(25)));
+        RecordingCallback<List<Recipe>> callback = new RecordingCallback<>();
+
+        // Act (When)
+        mRemoteDataSource.searchRecipes("eggs", callback);
+        callback.await();
+        Thread.sleep(100);
+
+        // Assert (Then)
+        List<Resource<List<Recipe>>> responses = callback.responses;
+        assertThat(responses.get(0).status, is(Status.PARTIAL));
+        assertThat(responses.get(0).data, hasSize(10));
+        assertThat(responses.get(1).status, is(Status.PARTIAL));
+        assertThat(responses.get(1).data, hasSize(20));
+        assertThat(responses.get(2).status, is(Status.SUCCESS));
+        assertThat(responses.get(2).data, hasSize(25));
+        assertThat(responses, hasSize(3));
+    }
+
+    @Test
+    public void searchRecipes_bodyNotAnObject_returnsErrorResponse() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody("[]"));
+        RecordingCallback<List<Recipe>> callback = new RecordingCallback<>();
+
+        // Act (When)
+        mRemoteDataSource.searchRecipes("eggs", callback);
+
+        // Assert (Then)
+        assertThat(callback.await().status, is(Status.ERROR));
+    }
+
+    @Test
+    public void searchRecipes_sendsQueryAsTyped_notItsCanonicalKey() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY));
+        RecordingCallback<List<Recipe>> callback = new RecordingCallback<>();
+
+        // Act (When)
+        mRemoteDataSource.searchRecipes("Cookies, bay leaves", callback);
+        callback.await();
+
+        // Assert (Then)
+        assertThat(mServer.takeRequest().getRequestUrl().queryParameter("q"), is("cookies,bay leaves"));
+    }
+
+    @Test
+    public void searchRecipes_differentPagesOfSameQuery_areSeparateCalls() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).setBodyDelay(100, TimeUnit.MILLISECONDS));
+        mServer.enqueue(new MockResponse().setBody(SEARCH_BODY).setBodyDelay(100, TimeUnit.MILLISECONDS));
+        RecordingCallback<List<Recipe>> first = new RecordingCallback<>();
+        RecordingCallback<List<Recipe>> second = new RecordingCallback<>();
+
+        // Act (When)
+        mRemoteDataSource.searchRecipes("eggs", 1, first);
+        mRemoteDataSource.searchRecipes("eggs", 2, second);
+        first.await();
+        second.await();
+
+        // Assert (Then)
+        assertThat(mServer.getRequestCount(), is(2));
+        String firstPath = mServer.takeRequest().getPath();
+        String secondPath = mServer.takeRequest().getPath();
+        assertThat(firstPath.contains("page=1") || secondPath.contains("page=1"), is(true));
+        assertThat(firstPath.contains("page=2") || secondPath.contains("page=2"), is(true));
+    }
+
 }
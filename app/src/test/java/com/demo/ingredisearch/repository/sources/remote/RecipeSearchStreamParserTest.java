@@ -0,0 +1,99 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.google.gson.JsonSyntaxException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class RecipeSearchStreamParserTest {
+    // SUT
+    RecipeSearchStreamParser mParser;
+
+    List<Integer> mChunkSizes;
+
+    @Before
+    public void init() {
+        mParser = new RecipeSearchStreamParser(ServiceGenerator.getGson().getAdapter(Recipe.class));
+        mChunkSizes = new ArrayList<>();
+    }
+
+    static String searchBody(int count) {
+        StringBuilder body = new StringBuilder("{\"count\":" + count + ",\"recipes\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"recipe_id\":\"r").append(i).append("\",\"title\":\"Recipe ").append(i)
+                    .append("\",\"ingredients\":[\"2 eggs\",\"salt\"],\"social_rank\":").append(i).append('}');
+        }
+        return body.append("]}").toString();
+    }
+
+    @Test
+    public void parse_smallPayload_noIntermediateChunks() throws Exception {
+        // Act (When)
+        List<Recipe> recipes = mParser.parse(new StringReader(searchBody(3)),
+                recipesSoFar -> mChunkSizes.add(recipesSoFar.size()));
+
+        // Assert (Then)
+        assertThat(recipes, hasSize(3));
+        assertThat(recipes.get(2).getRecipeId(), is("r2"));
+        assertThat(recipes.get(2).getIngredients()[0], is("2 eggs"));
+        assertThat(mChunkSizes, is(empty()));
+    }
+
+    @Test
+    public void parse_largePayload_reportsDoublingChunks() throws Exception {
+        // Act (When)
+        List<Recipe> recipes = mParser.parse(new StringReader(searchBody(100)),
+                recipesSoFar -> mChunkSizes.add(recipesSoFar.size()));
+
+        // Assert (Then)
+        assertThat(recipes, hasSize(100));
+        assertThat(mChunkSizes, contains(10, 20, 40, 80));
+    }
+
+    @Test
+    public void parse_fieldsAroundRecipes_areSkipped() throws Exception {
+        // Act (When)
+        List<Recipe> recipes = mParser.parse(
+                new StringReader("{\"recipes\":[{\"recipe_id\":\"a\",\"title\":\"A\"}],\"count\":1,\"extra\":{\"x\":[1]}}"),
+                recipesSoFar -> mChunkSizes.add(recipesSoFar.size()));
+
+        // Assert (Then)
+        assertThat(recipes, hasSize(1));
+    }
+
+    @Test
+    public void parse_payloadOfAnotherShape_throwsJsonSyntaxException() throws Exception {
+        for (String body : new String[]{"null", "[]", "{\"recipes\":[42]}", "{\"recipes\":[{\"social_rank\":\"high\"}]}"}) {
+            try {
+                // Act (When)
+                mParser.parse(new StringReader(body), recipesSoFar -> mChunkSizes.add(recipesSoFar.size()));
+                fail("Parsed " + body);
+            } catch (JsonSyntaxException expected) {
+                // Assert (Then)
+            }
+        }
+    }
+
+    @Test
+    public void parse_nullRecipes_returnsEmptyList() throws Exception {
+        // Act (When)
+        List<Recipe> recipes = mParser.parse(new StringReader("{\"count\":0,\"recipes\":null}"),
+                recipesSoFar -> mChunkSizes.add(recipesSoFar.size()));
+
+        // Assert (Then)
+        assertThat(recipes, is(empty()));
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.util.BenchmarkUtil;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Parse time and allocation of search responses of growing size, reflective Gson (the old
+ * behaviour) against the hand-written adapters, and the heap kept alive by the parsed recipes with
+ * and without ingredient interning.
+ */
+public class RecipeTypeAdaptersBenchmark {
+
+    @Test
+    public void parseSearchResponse_reflective_vs_adapters() throws Exception {
+        Gson reflective = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .create();
+        Gson adapters = RecipeTypeAdapters.getGson();
+
+        for (int count : new int[]{1_000, 10_000, 100_000}) {
+            String body = RecipeSearchStreamParserTest.searchBody(count);
+            int iterations = Math.max(10, 200_000 / count);
+
+            BenchmarkUtil.measure("reflective, " + count + " recipes", iterations, iterations, () ->
+                    reflective.fromJson(body, RecipeSearchResponse.class));
+            BenchmarkUtil.measure("adapters, " + count + " recipes", iterations, iterations, () ->
+                    adapters.fromJson(body, RecipeSearchResponse.class));
+        }
+    }
+
+    @Test
+    public void retainedHeap_50kRecipes_plain_vs_interned() throws Exception {
+        Gson reflective = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .create();
+        String body = realisticBody(50_000, 9, 2_000);
+
+        long plain = retainedBytes(() -> reflective.fromJson(body, RecipeSearchResponse.class).getRecipes());
+        long interned = retainedBytes(() -> RecipeTypeAdapters.getGson()
+                .fromJson(body, RecipeSearchResponse.class).getRecipes());
+
+        System.out.println(String.format(Locale.US, "%-40s %,12d B", "plain strings, 50000 recipes", plain));
+        System.out.println(String.format(Locale.US, "%-40s %,12d B (%.0f%% less)", "interned, 50000 recipes",
+                interned, 100.0 * (plain - interned) / plain));
+    }
+
+    private interface Parse {
+        List<?> run();
+    }
+
+    private static long retainedBytes(Parse parse) throws Exception {
+        long before = usedAfterGc();
+        List<?> recipes = parse.run();
+        long after = usedAfterGc();
+        if (recipes.isEmpty()) throw new AssertionError();
+        return after - before;
+    }
+
+    private static long usedAfterGc() throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Ingredient lines drawn from a fixed vocabulary, skewed towards the common ones like real data
+    private static String realisticBody(int count, int perRecipe, int vocabulary) {
+        Random random = new Random(19);
+        StringBuilder body = new StringBuilder("{\"count\":" + count + ",\"recipes\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"recipe_id\":\"r").append(i).append("\",\"title\":\"Recipe ").append(i)
+                    .append("\",\"ingredients\":[");
+            for (int j = 0; j < perRecipe; j++) {
+                if (j > 0) body.append(',');
+                int line = (int) (vocabulary * Math.pow(random.nextDouble(), 3));
+                body.append("\"").append(line % 4 + 1).append(" cups ingredient number ").append(line).append('"');
+            }
+            body.append("],\"social_rank\":").append(i).append('}');
+        }
+        return body.append("]}").toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.models.Recipe;
+import com.demo.ingredisearch.repository.util.JsonConverter;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.demo.ingredisearch.TestData.mRecipes;
+import static com.demo.ingredisearch.TestData.recipe1_favored;
+import static com.demo.ingredisearch.TestData.recipeDetails01;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RecipeTypeAdaptersTest {
+
+    // SUT
+    Gson mGson = RecipeTypeAdapters.getGson();
+
+    @Test
+    public void searchResponse_readsSameAsReflection() {
+        // Arrange (Given)
+        Gson reflective = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .create();
+        String body = RecipeSearchStreamParserTest.searchBody(25);
+
+        // Act (When)
+        RecipeSearchResponse response = mGson.fromJson(body, RecipeSearchResponse.class);
+
+        // Assert (Then)
+        RecipeSearchResponse expected = reflective.fromJson(body, RecipeSearchResponse.class);
+        assertThat(response.getCount(), is(25));
+        assertThat(response.getRecipes(), is(expected.getRecipes()));
+    }
+
+    @Test
+    public void searchResponse_sharesIngredientStringsAcrossRecipes() {
+        // Act (When)
+        List<Recipe> recipes = mGson.fromJson(RecipeSearchStreamParserTest.searchBody(2),
+                RecipeSearchResponse.class).getRecipes();
+
+        // Assert (Then)
+        assertThat(recipes.get(0).getIngredients()[0], is("2 eggs"));
+        assertThat(recipes.get(1).getIngredients()[0], is(sameInstance(recipes.get(0).getIngredients()[0])));
+        assertThat(recipes.get(1).getIngredients()[1], is(sameInstance(recipes.get(0).getIngredients()[1])));
+    }
+
+    @Test
+    public void recipe_readsBothFavoriteSpellingsAndSkipsUnknownFields() {
+        // Act (When)
+        Recipe snake = mGson.fromJson("{\"recipe_id\":\"a\",\"title\":\"A\",\"is_favorite\":true,"
+                + "\"publisher\":{\"name\":\"x\"},\"image_url\":null}", Recipe.class);
+        Recipe camel = mGson.fromJson("{\"recipe_id\":\"a\",\"title\":\"A\",\"isFavorite\":true}", Recipe.class);
+
+        // Assert (Then)
+        assertThat(snake.isFavorite(), is(true));
+        assertThat(snake.getImageUrl(), is(nullValue()));
+        assertThat(snake, is(camel));
+    }
+
+    @Test
+    public void recipe_roundTrips() {
+        // Act (When)
+        String json = JsonConverter.toJson(recipeDetails01);
+
+        // Assert (Then)
+        assertThat(JsonConverter.toRecipe(json), is(recipeDetails01));
+    }
+
+    @Test
+    public void favorites_roundTripWithCamelCaseFlag() {
+        // Arrange (Given)
+        List<Recipe> favorites = Arrays.asList(recipe1_favored, mRecipes.get(1));
+
+        // Act (When)
+        String json = JsonConverter.toJson(favorites);
+
+        // Assert (Then)
+        assertThat(json, containsString("\"isFavorite\":true"));
+        assertThat(json, not(containsString("is_favorite")));
+        assertThat(JsonConverter.toRecipes(json), is(favorites));
+    }
+
+    @Test
+    public void socialRank_isWrittenAsTheFloatReads() {
+        // Arrange (Given)
+        Recipe recipe = new Recipe("a", "A", null, null, null, 99.99f, false);
+
+        // Act (When)
+        String json = mGson.toJson(recipe);
+
+        // Assert (Then)
+        assertThat(json, is("{\"recipe_id\":\"a\",\"title\":\"A\",\"social_rank\":99.99,\"isFavorite\":false}"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.util.Cancellable;
+import com.demo.ingredisearch.util.FakeClock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.both;
+
+public class ResilientCallerTest {
+    private static final RetryPolicy RETRY_POLICY = new RetryPolicy(3, 100, 1_000);
+
+    // SUT
+    ResilientCaller mCaller;
+
+    FakeClock mClock;
+    CircuitBreaker mCircuitBreaker;
+    List<Object> mOutcomes;
+
+    @Before
+    public void init() {
+        mClock = new FakeClock();
+        mCircuitBreaker = new CircuitBreaker(2, 10_000, 1, mClock);
+        mCaller = new ResilientCaller(RETRY_POLICY, mCircuitBreaker, mClock, new Random(42));
+        mOutcomes = new ArrayList<>();
+    }
+
+    private Cancellable enqueue(FakeCall<String> call) {
+        return mCaller.enqueue(call, new Callback<String>() {
+            @Override
+            public void onResponse(Call<String> call, Response<String> response) {
+                mOutcomes.add(response.isSuccessful() ? response.body() : response.code());
+            }
+
+            @Override
+            public void onFailure(Call<String> call, Throwable throwable) {
+                mOutcomes.add(throwable);
+            }
+        });
+    }
+
+    @Test
+    public void transientFailureThenSuccess_retriesAfterBackoff() {
+        // Arrange (Given)
+        FakeCall<String> call = new FakeCall<String>().thenFail(new IOException("reset")).thenRespond("ok");
+
+        // Act (When)
+        enqueue(call);
+
+        // Assert (Then)
+        assertThat(mOutcomes, is(empty()));
+        mClock.advance(RETRY_POLICY.nextDelay(0, new Random(42)));
+        assertThat(mOutcomes, hasSize(1));
+        assertThat(mOutcomes.get(0), is("ok"));
+        assertThat(call.attempts(), is(2));
+        assertThat(mCaller.getRetries(), is(1));
+    }
+
+    @Test
+    public void serverErrorOnEveryAttempt_deliversLastResponseAfterMaxAttempts() {
+        // Arrange (Given)
+        mCircuitBreaker = new CircuitBreaker(100, 10_000, 1, mClock);
+        mCaller = new ResilientCaller(RETRY_POLICY, mCircuitBreaker, mClock, new Random(42));
+        FakeCall<String> call = new FakeCall<String>()
+                .thenRespondError(503).thenRespondError(503).thenRespondError(500);
+
+        // Act (When)
+        enqueue(call);
+        mClock.advance(10_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, hasSize(1));
+        assertThat(mOutcomes.get(0), is(500));
+        assertThat(call.attempts(), is(3));
+    }
+
+    @Test
+    public void clientError_isNotRetried() {
+        // Arrange (Given)
+        FakeCall<String> call = new FakeCall<String>().thenRespondError(404);
+
+        // Act (When)
+        enqueue(call);
+
+        // Assert (Then)
+        assertThat(mOutcomes.get(0), is(404));
+        assertThat(call.attempts(), is(1));
+        assertThat(mClock.pendingTasks(), is(0));
+    }
+
+    @Test
+    public void breakerOpen_failsFastWithoutCalling() {
+        // Arrange (Given)
+        FakeCall<String> failing = new FakeCall<String>().thenFail(new IOException()).thenFail(new IOException());
+        enqueue(failing);
+        mClock.advance(1_000);
+        mOutcomes.clear();
+
+        // Act (When)
+        FakeCall<String> call = new FakeCall<String>().thenRespond("ok");
+        enqueue(call);
+
+        // Assert (Then)
+        assertThat(mCircuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(mOutcomes.get(0), is(instanceOf(CircuitBreaker.OpenException.class)));
+        assertThat(call.attempts(), is(0));
+    }
+
+    @Test
+    public void cancelledWhileWaitingForRetry_neverCallsBack() {
+        // Arrange (Given)
+        FakeCall<String> call = new FakeCall<String>().thenFail(new IOException()).thenRespond("ok");
+        Cancellable handle = enqueue(call);
+
+        // Act (When)
+        handle.cancel();
+        mClock.advance(10_000);
+
+        // Assert (Then)
+        assertThat(mOutcomes, is(empty()));
+        assertThat(call.attempts(), is(1));
+    }
+
+    @Test
+    public void cancelledInFlight_neverCallsBack() {
+        // Arrange (Given)
+        FakeCall<String> call = new FakeCall<String>().thenHold();
+        Cancellable handle = enqueue(call);
+
+        // Act (When)
+        handle.cancel();
+
+        // Assert (Then)
+        assertThat(mOutcomes, is(empty()));
+        assertThat(call.isCanceled(), is(true));
+    }
+
+    @Test
+    public void nextDelay_staysWithinDecorrelatedJitterBounds() {
+        // Arrange (Given)
+        Random random = new Random(7);
+        List<Long> delays = new ArrayList<>();
+        long previous = 0;
+
+        // Act (When)
+        for (int i = 0; i < 50; i++) {
+            long delay = RETRY_POLICY.nextDelay(previous, random);
+            assertThat(delay, is(lessThanOrEqualTo(Math.max(100, previous * 3))));
+            delays.add(delay);
+            previous = delay;
+        }
+
+        // Assert (Then)
+        assertThat(delays, everyItem(is(both(greaterThanOrEqualTo(100L)).and(lessThanOrEqualTo(1_000L)))));
+    }
+}
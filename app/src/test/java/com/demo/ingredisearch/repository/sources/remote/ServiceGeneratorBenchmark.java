@@ -0,0 +1,99 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import com.demo.ingredisearch.util.BenchmarkUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Per-request latency and allocation of a search round trip against a local server, comparing a
+ * Retrofit stack rebuilt for every call (the old behaviour) with the shared one.
+ */
+public class ServiceGeneratorBenchmark {
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+    private static final String SEARCH_BODY = "{\"count\":2,\"recipes\":["
+            + "{\"recipe_id\":\"1af01c\",\"title\":\"Deviled Eggs\",\"social_rank\":99.9}," +
+            "{\"recipe_id\":\"1cea66\",\"title\":\"Poached Eggs\",\"social_rank\":98.1}]}";
+
+    MockWebServer mServer;
+    String mBaseUrl;
+
+    @Before
+    public void init() throws Exception {
+        mServer = new MockWebServer();
+        mServer.setServerSocketFactory(new NoDelayServerSocketFactory());
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(SEARCH_BODY);
+            }
+        });
+        mServer.start();
+        mBaseUrl = mServer.url("/").toString();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void search_rebuiltPerCall_vs_shared() throws Exception {
+        BenchmarkUtil.measure("search, stack rebuilt per call", WARMUP, ITERATIONS, () ->
+                new ServiceGenerator(ServiceGenerator.createRecipeApi(mBaseUrl, new OkHttpClient()))
+                        .getRecipesStreamingService("eggs", 1).execute().body().string());
+
+        ServiceGenerator shared = new ServiceGenerator(
+                ServiceGenerator.createRecipeApi(mBaseUrl, ServiceGenerator.createHttpClient()));
+        BenchmarkUtil.measure("search, shared stack", WARMUP, ITERATIONS, () ->
+                shared.getRecipesStreamingService("eggs", 1).execute().body().string());
+    }
+
+    /**
+     * MockWebServer writes headers and body separately; without TCP_NODELAY every response on a
+     * kept-alive connection stalls ~40ms on delayed ACKs, which would hide what we measure.
+     */
+    private static class NoDelayServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
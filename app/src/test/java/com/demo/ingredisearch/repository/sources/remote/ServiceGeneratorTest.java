@@ -0,0 +1,57 @@
+package com.demo.ingredisearch.repository.sources.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ServiceGeneratorTest {
+    private static final String EMPTY_SEARCH = "{\"count\":0,\"recipes\":[]}";
+
+    MockWebServer mServer;
+
+    @Before
+    public void init() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void getHttpClient_returnsSameInstanceEveryTime() {
+        // Act (When)
+        OkHttpClient first = ServiceGenerator.getHttpClient();
+        OkHttpClient second = ServiceGenerator.getHttpClient();
+
+        // Assert (Then)
+        assertThat(first, is(sameInstance(second)));
+    }
+
+    @Test
+    public void getRecipesStreamingService_consecutiveCalls_reuseOneConnection() throws Exception {
+        // Arrange (Given)
+        mServer.enqueue(new MockResponse().setBody(EMPTY_SEARCH));
+        mServer.enqueue(new MockResponse().setBody(EMPTY_SEARCH));
+        ServiceGenerator serviceGenerator = new ServiceGenerator(
+                ServiceGenerator.createRecipeApi(mServer.url("/").toString(), ServiceGenerator.createHttpClient()));
+
+        // Act (When)
+        serviceGenerator.getRecipesStreamingService("eggs", 1).execute().body().string();
+        serviceGenerator.getRecipesStreamingService("milk", 1).execute().body().string();
+
+        // Assert (Then)
+        assertThat(mServer.takeRequest().getSequenceNumber(), is(0));
+        assertThat(mServer.takeRequest().getSequenceNumber(), is(1));
+    }
+}
@@ -0,0 +1,101 @@
+package com.demo.ingredisearch.repository.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class QueryCanonicalizerTest {
+
+    @Before
+    public void init() {
+        QueryCanonicalizer.resetStats();
+    }
+
+    @Test
+    public void canonicalize_orderCaseSpacingAndPlurals_collapseToOneKey() {
+        // Act (When)
+        String first = QueryCanonicalizer.canonicalize("eggs, milk");
+        String second = QueryCanonicalizer.canonicalize("Milk,eggs");
+        String third = QueryCanonicalizer.canonicalize(" eggs ,milk ");
+        String fourth = QueryCanonicalizer.canonicalize("milk; egg; EGGS");
+
+        // Assert (Then)
+        assertThat(first, is("egg,milk"));
+        assertThat(second, is(first));
+        assertThat(third, is(first));
+        assertThat(fourth, is(first));
+    }
+
+    @Test
+    public void canonicalize_multiWordIngredient_keepsWordsAndSingularizesLast() {
+        // Act (When)
+        String key = QueryCanonicalizer.canonicalize("Green   Onions, cherry tomatoes,,");
+
+        // Assert (Then)
+        assertThat(key, is("cherry tomato,green onion"));
+    }
+
+    @Test
+    public void canonicalize_blankQuery_isEmptyKey() {
+        // Act (When)
+        String key = QueryCanonicalizer.canonicalize(" , ; ");
+
+        // Assert (Then)
+        assertThat(key, is(""));
+    }
+
+    @Test
+    public void singularize_commonIngredientPlurals() {
+        // Assert (Then)
+        assertThat(QueryCanonicalizer.singularize("berries"), is("berry"));
+        assertThat(QueryCanonicalizer.singularize("potatoes"), is("potato"));
+        assertThat(QueryCanonicalizer.singularize("peaches"), is("peach"));
+        assertThat(QueryCanonicalizer.singularize("radishes"), is("radish"));
+        assertThat(QueryCanonicalizer.singularize("carrots"), is("carrot"));
+        assertThat(QueryCanonicalizer.singularize("swiss"), is("swiss"));
+        assertThat(QueryCanonicalizer.singularize("couscous"), is("couscous"));
+        assertThat(QueryCanonicalizer.singularize("molasses"), is("molasses"));
+        assertThat(QueryCanonicalizer.singularize("hummus"), is("hummus"));
+    }
+
+    @Test
+    public void singularize_ieSingularsIrregularsAndUncountables() {
+        // Assert (Then)
+        assertThat(QueryCanonicalizer.singularize("pies"), is("pie"));
+        assertThat(QueryCanonicalizer.singularize("cookies"), is("cookie"));
+        assertThat(QueryCanonicalizer.singularize("veggies"), is("veggie"));
+        assertThat(QueryCanonicalizer.singularize("cherries"), is("cherry"));
+        assertThat(QueryCanonicalizer.singularize("leaves"), is("leaf"));
+        assertThat(QueryCanonicalizer.singularize("cloves"), is("clove"));
+        assertThat(QueryCanonicalizer.singularize("asparagus"), is("asparagus"));
+        assertThat(QueryCanonicalizer.singularize("grits"), is("grits"));
+    }
+
+    @Test
+    public void forServer_keepsWordsAsTyped_dropsCaseSpacingAndRepeats() {
+        // Act (When)
+        String query = QueryCanonicalizer.forServer(" Cookies ,  bay   leaves; molasses,cookies,, ");
+
+        // Assert (Then)
+        assertThat(query, is("cookies,bay leaves,molasses"));
+    }
+
+    @Test
+    public void getStats_countsDistinctRawQueriesPerKey() {
+        // Act (When)
+        QueryCanonicalizer.canonicalize("eggs, milk");
+        QueryCanonicalizer.canonicalize("eggs, milk");
+        QueryCanonicalizer.canonicalize("Milk,eggs");
+        QueryCanonicalizer.canonicalize("flour");
+
+        // Assert (Then)
+        QueryCanonicalizer.Stats stats = QueryCanonicalizer.getStats();
+        assertThat(QueryCanonicalizer.variantsOf("egg,milk"), is(2));
+        assertThat(stats.rawQueries, is(3));
+        assertThat(stats.keys, is(2));
+        assertThat(stats.collapsedKeys, is(1));
+        assertThat(stats.collapseRatio(), is(1.5));
+    }
+}
@@ -0,0 +1,84 @@
+package com.demo.ingredisearch.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal micro-benchmark helper for JVM unit tests.
+ * <p>
+ * Benchmarks live next to the code they measure, are named {@code *Benchmark} and are skipped by
+ * the default test run. Run them with {@code ./gradlew testDebugUnitTest -Pbenchmark}.
+ */
+public class BenchmarkUtil {
+
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    public static class Result {
+        public final String name;
+        public final long p50Nanos;
+        public final long p90Nanos;
+        public final long p99Nanos;
+        public final long bytesPerOp;
+
+        Result(String name, long[] samples, long bytesPerOp) {
+            Arrays.sort(samples);
+            this.name = name;
+            this.p50Nanos = percentile(samples, 0.50);
+            this.p90Nanos = percentile(samples, 0.90);
+            this.p99Nanos = percentile(samples, 0.99);
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-40s p50=%8.1fus p90=%8.1fus p99=%8.1fus alloc=%,10d B/op",
+                    name, p50Nanos / 1e3, p90Nanos / 1e3, p99Nanos / 1e3, bytesPerOp);
+        }
+    }
+
+    public static Result measure(String name, int warmup, int iterations, Operation operation) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+
+        long[] samples = new long[iterations];
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        Result result = new Result(name, samples, allocated / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Retained heap after a full GC, in bytes. Only meaningful as a before/after difference.
+     */
+    public static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
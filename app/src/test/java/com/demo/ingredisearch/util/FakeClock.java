@@ -0,0 +1,84 @@
+package com.demo.ingredisearch.util;
+
+import androidx.annotation.NonNull;
+
+import java.util.PriorityQueue;
+
+/**
+ * Manually advanced {@link Clock} and {@link Scheduler}: scheduled tasks run, in order, on the
+ * thread calling {@link #advance(long)} once their time has come.
+ */
+public class FakeClock implements Clock, Scheduler {
+    private long mNow;
+    private long mSequence;
+    private final PriorityQueue<Task> mTasks = new PriorityQueue<>();
+
+    @Override
+    public synchronized long now() {
+        return mNow;
+    }
+
+    @Override
+    public synchronized Cancellable schedule(@NonNull Runnable task, long delayMillis) {
+        Task scheduled = new Task(mNow + delayMillis, mSequence++, task);
+        mTasks.add(scheduled);
+        return scheduled;
+    }
+
+    public void advance(long millis) {
+        long target;
+        synchronized (this) {
+            target = mNow + millis;
+        }
+        while (true) {
+            Task next;
+            synchronized (this) {
+                next = mTasks.peek();
+                if (next == null || next.mDueAt > target) break;
+                mTasks.poll();
+                mNow = next.mDueAt;
+            }
+            if (!next.mCancelled) next.mTask.run();
+        }
+        synchronized (this) {
+            mNow = target;
+        }
+    }
+
+    public synchronized int pendingTasks() {
+        int pending = 0;
+        for (Task task : mTasks) {
+            if (!task.mCancelled) pending++;
+        }
+        return pending;
+    }
+
+    private static class Task implements Comparable<Task>, Cancellable {
+        final long mDueAt;
+        final long mSequence;
+        final Runnable mTask;
+        volatile boolean mCancelled;
+
+        Task(long dueAt, long sequence, Runnable task) {
+            mDueAt = dueAt;
+            mSequence = sequence;
+            mTask = task;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byTime = Long.compare(mDueAt, other.mDueAt);
+            return byTime != 0 ? byTime : Long.compare(mSequence, other.mSequence);
+        }
+
+        @Override
+        public void cancel() {
+            mCancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+}